@@ -7,6 +7,11 @@ import org.apache.commons.configuration.PropertiesConfiguration;
 import java.util.Properties;
 
 public class KafkaConfig {
+    /**
+     * header of a shuffler record which is sent back by crawler because its link is not crawled yet
+     * shuffler doesn't drop link of such a record as a recently sent link
+     */
+    public static final String BOUNCED_LINK_HEADER = "bounced";
     private static final String CONFIG_NAME = "kafka/kafka.properties";
     private Properties linkConsumerProperties;
     private Properties pageConsumerProperties;
@@ -26,6 +31,10 @@ public class KafkaConfig {
     private int shufflerProducerCount;
     private int localLinkQueueSize;
     private int localPageQueueSize;
+    private double localQueueHighWaterMark;
+    private int pageProducerPoolSize;
+    private int shufflerProducerPoolSize;
+    private double localQueueLowWaterMark;
     private String trainingTopic;
 
     public static KafkaConfig load() {
@@ -51,6 +60,10 @@ public class KafkaConfig {
             config.setShufflerProducerCount(configuration.getInt("shuffler.producer.count"));
             config.setLocalLinkQueueSize(configuration.getInt("local.link.queue.size"));
             config.setLocalPageQueueSize(configuration.getInt("local.page.queue.size"));
+            config.setLocalQueueHighWaterMark(configuration.getDouble("local.queue.high.water.mark"));
+            config.setLocalQueueLowWaterMark(configuration.getDouble("local.queue.low.water.mark"));
+            config.setPageProducerPoolSize(configuration.getInt("page.producer.pool.size"));
+            config.setShufflerProducerPoolSize(configuration.getInt("shuffler.producer.pool.size"));
             return config;
         } catch (ConfigurationException e) {
             throw new LoadConfigurationException(CONFIG_NAME, e);
@@ -193,6 +206,38 @@ public class KafkaConfig {
         this.localPageQueueSize = localPageQueueSize;
     }
 
+    public double getLocalQueueHighWaterMark() {
+        return localQueueHighWaterMark;
+    }
+
+    public void setLocalQueueHighWaterMark(double localQueueHighWaterMark) {
+        this.localQueueHighWaterMark = localQueueHighWaterMark;
+    }
+
+    public double getLocalQueueLowWaterMark() {
+        return localQueueLowWaterMark;
+    }
+
+    public void setLocalQueueLowWaterMark(double localQueueLowWaterMark) {
+        this.localQueueLowWaterMark = localQueueLowWaterMark;
+    }
+
+    public int getPageProducerPoolSize() {
+        return pageProducerPoolSize;
+    }
+
+    public void setPageProducerPoolSize(int pageProducerPoolSize) {
+        this.pageProducerPoolSize = pageProducerPoolSize;
+    }
+
+    public int getShufflerProducerPoolSize() {
+        return shufflerProducerPoolSize;
+    }
+
+    public void setShufflerProducerPoolSize(int shufflerProducerPoolSize) {
+        this.shufflerProducerPoolSize = shufflerProducerPoolSize;
+    }
+
     public String getServiceName() {
         return serviceName;
     }
@@ -4,18 +4,49 @@ import in.nimbo.common.exception.LoadConfigurationException;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class ProjectConfig {
+    public enum FETCHER {JSOUP, ASYNC}
+
     private static final String CONFIG_NAME = "project-config.properties";
     private int caffeineMaxSize;
     private int caffeineExpireTime;
     private int jsoupTimeout;
     private String jsoupUserAgent;
     private double englishProbability;
+    private int languagePrefilterLength;
+    private double languageMaxNonLatinRatio;
+    private int languageSampleLength;
     private String reportName;
     private String reportHost;
     private int reportPort;
     private int reportPeriod;
     private int monitoringPeriod;
+    private FETCHER fetcherType;
+    private int fetcherMaxConnections;
+    private int fetcherMaxConnectionsPerHost;
+    private int fetcherIoThreads;
+    private int fetcherMaxBodyBytes;
+    private long fetcherMaxContentLength;
+    private int parserThreads;
+    private int parserMaxContentLength;
+    private int parserMaxAnchors;
+    private boolean robotsEnabled;
+    private String robotsUserAgent;
+    private int robotsCacheMaxSize;
+    private int robotsExpireHours;
+    private int robotsErrorExpireMinutes;
+    private int robotsMaxCrawlDelay;
+    private List<String> urlFilterExtensions;
+    private List<String> urlFilterBlockedDomains;
+    private List<String> urlFilterTrapParameters;
+    private int urlFilterMaxDepth;
+    private int urlFilterMaxQueryParameters;
+    private int urlFilterMaxSegmentRepeats;
+    private List<String> urlCanonicalIgnoredParameters;
+    private List<String> urlCanonicalDomainRules;
 
     public static ProjectConfig load() {
         ProjectConfig projectConfig = new ProjectConfig();
@@ -26,11 +57,45 @@ public class ProjectConfig {
             projectConfig.setJsoupTimeout(config.getInt("jsoup.timeout"));
             projectConfig.setJsoupUserAgent(config.getString("jsoup.user.agent"));
             projectConfig.setEnglishProbability(config.getDouble("english.probability"));
+            projectConfig.setLanguagePrefilterLength(config.getInt("language.prefilter.length"));
+            projectConfig.setLanguageMaxNonLatinRatio(config.getDouble("language.max.non.latin.ratio"));
+            projectConfig.setLanguageSampleLength(config.getInt("language.sample.length"));
             projectConfig.setReportName(config.getString("report.name"));
             projectConfig.setReportHost(config.getString("report.host"));
             projectConfig.setReportPort(config.getInt("report.port"));
             projectConfig.setReportPeriod(config.getInt("report.period"));
             projectConfig.setMonitoringPeriod(config.getInt("monitoring.period.seconds"));
+            String fetcherType = config.getString("fetcher.type");
+            if (fetcherType.equals("jsoup")) {
+                projectConfig.setFetcherType(FETCHER.JSOUP);
+            } else if (fetcherType.equals("async")) {
+                projectConfig.setFetcherType(FETCHER.ASYNC);
+            } else {
+                throw new ConfigurationException(CONFIG_NAME + ": fetcher type is illegal");
+            }
+            projectConfig.setFetcherMaxConnections(config.getInt("fetcher.max.connections"));
+            projectConfig.setFetcherMaxConnectionsPerHost(config.getInt("fetcher.max.connections.per.host"));
+            projectConfig.setFetcherIoThreads(config.getInt("fetcher.io.threads"));
+            projectConfig.setFetcherMaxBodyBytes(config.getInt("fetcher.max.body.bytes"));
+            projectConfig.setFetcherMaxContentLength(config.getLong("fetcher.max.content.length"));
+            projectConfig.setParserThreads(config.getInt("parser.threads"));
+            projectConfig.setParserMaxContentLength(config.getInt("parser.max.content.length"));
+            projectConfig.setParserMaxAnchors(config.getInt("parser.max.anchors"));
+            projectConfig.setRobotsEnabled(config.getBoolean("robots.enabled"));
+            projectConfig.setRobotsUserAgent(config.getString("robots.user.agent"));
+            projectConfig.setRobotsCacheMaxSize(config.getInt("robots.cache.max.size"));
+            projectConfig.setRobotsExpireHours(config.getInt("robots.expire.hours"));
+            projectConfig.setRobotsErrorExpireMinutes(config.getInt("robots.error.expire.minutes"));
+            projectConfig.setRobotsMaxCrawlDelay(config.getInt("robots.max.crawl.delay.seconds"));
+            projectConfig.setUrlFilterExtensions(Arrays.asList(config.getStringArray("url.filter.extensions")));
+            projectConfig.setUrlFilterBlockedDomains(Arrays.asList(config.getStringArray("url.filter.blocked.domains")));
+            projectConfig.setUrlFilterTrapParameters(Arrays.asList(config.getStringArray("url.filter.trap.parameters")));
+            projectConfig.setUrlFilterMaxDepth(config.getInt("url.filter.max.depth"));
+            projectConfig.setUrlFilterMaxQueryParameters(config.getInt("url.filter.max.query.parameters"));
+            projectConfig.setUrlFilterMaxSegmentRepeats(config.getInt("url.filter.max.segment.repeats"));
+            projectConfig.setUrlCanonicalIgnoredParameters(
+                    Arrays.asList(config.getStringArray("url.canonical.ignored.parameters")));
+            projectConfig.setUrlCanonicalDomainRules(Arrays.asList(config.getStringArray("url.canonical.domain.rules")));
             return projectConfig;
         } catch (ConfigurationException e) {
             throw new LoadConfigurationException(CONFIG_NAME, e);
@@ -116,4 +181,212 @@ public class ProjectConfig {
     public void setEnglishProbability(double englishProbability) {
         this.englishProbability = englishProbability;
     }
+
+    public FETCHER getFetcherType() {
+        return fetcherType;
+    }
+
+    public void setFetcherType(FETCHER fetcherType) {
+        this.fetcherType = fetcherType;
+    }
+
+    public int getFetcherMaxConnections() {
+        return fetcherMaxConnections;
+    }
+
+    public void setFetcherMaxConnections(int fetcherMaxConnections) {
+        this.fetcherMaxConnections = fetcherMaxConnections;
+    }
+
+    public int getFetcherMaxConnectionsPerHost() {
+        return fetcherMaxConnectionsPerHost;
+    }
+
+    public void setFetcherMaxConnectionsPerHost(int fetcherMaxConnectionsPerHost) {
+        this.fetcherMaxConnectionsPerHost = fetcherMaxConnectionsPerHost;
+    }
+
+    public int getFetcherIoThreads() {
+        return fetcherIoThreads;
+    }
+
+    public void setFetcherIoThreads(int fetcherIoThreads) {
+        this.fetcherIoThreads = fetcherIoThreads;
+    }
+
+    public int getFetcherMaxBodyBytes() {
+        return fetcherMaxBodyBytes;
+    }
+
+    public void setFetcherMaxBodyBytes(int fetcherMaxBodyBytes) {
+        this.fetcherMaxBodyBytes = fetcherMaxBodyBytes;
+    }
+
+    public long getFetcherMaxContentLength() {
+        return fetcherMaxContentLength;
+    }
+
+    public void setFetcherMaxContentLength(long fetcherMaxContentLength) {
+        this.fetcherMaxContentLength = fetcherMaxContentLength;
+    }
+
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
+    public int getLanguagePrefilterLength() {
+        return languagePrefilterLength;
+    }
+
+    public void setLanguagePrefilterLength(int languagePrefilterLength) {
+        this.languagePrefilterLength = languagePrefilterLength;
+    }
+
+    public double getLanguageMaxNonLatinRatio() {
+        return languageMaxNonLatinRatio;
+    }
+
+    public void setLanguageMaxNonLatinRatio(double languageMaxNonLatinRatio) {
+        this.languageMaxNonLatinRatio = languageMaxNonLatinRatio;
+    }
+
+    public int getLanguageSampleLength() {
+        return languageSampleLength;
+    }
+
+    public void setLanguageSampleLength(int languageSampleLength) {
+        this.languageSampleLength = languageSampleLength;
+    }
+
+    public int getParserMaxContentLength() {
+        return parserMaxContentLength;
+    }
+
+    public void setParserMaxContentLength(int parserMaxContentLength) {
+        this.parserMaxContentLength = parserMaxContentLength;
+    }
+
+    public int getParserMaxAnchors() {
+        return parserMaxAnchors;
+    }
+
+    public void setParserMaxAnchors(int parserMaxAnchors) {
+        this.parserMaxAnchors = parserMaxAnchors;
+    }
+
+    public boolean isRobotsEnabled() {
+        return robotsEnabled;
+    }
+
+    public void setRobotsEnabled(boolean robotsEnabled) {
+        this.robotsEnabled = robotsEnabled;
+    }
+
+    public String getRobotsUserAgent() {
+        return robotsUserAgent;
+    }
+
+    public void setRobotsUserAgent(String robotsUserAgent) {
+        this.robotsUserAgent = robotsUserAgent;
+    }
+
+    public int getRobotsCacheMaxSize() {
+        return robotsCacheMaxSize;
+    }
+
+    public void setRobotsCacheMaxSize(int robotsCacheMaxSize) {
+        this.robotsCacheMaxSize = robotsCacheMaxSize;
+    }
+
+    public int getRobotsExpireHours() {
+        return robotsExpireHours;
+    }
+
+    public void setRobotsExpireHours(int robotsExpireHours) {
+        this.robotsExpireHours = robotsExpireHours;
+    }
+
+    public int getRobotsErrorExpireMinutes() {
+        return robotsErrorExpireMinutes;
+    }
+
+    public void setRobotsErrorExpireMinutes(int robotsErrorExpireMinutes) {
+        this.robotsErrorExpireMinutes = robotsErrorExpireMinutes;
+    }
+
+    public int getRobotsMaxCrawlDelay() {
+        return robotsMaxCrawlDelay;
+    }
+
+    public void setRobotsMaxCrawlDelay(int robotsMaxCrawlDelay) {
+        this.robotsMaxCrawlDelay = robotsMaxCrawlDelay;
+    }
+
+    public List<String> getUrlFilterExtensions() {
+        return urlFilterExtensions;
+    }
+
+    public void setUrlFilterExtensions(List<String> urlFilterExtensions) {
+        this.urlFilterExtensions = urlFilterExtensions;
+    }
+
+    public List<String> getUrlFilterBlockedDomains() {
+        return urlFilterBlockedDomains;
+    }
+
+    public void setUrlFilterBlockedDomains(List<String> urlFilterBlockedDomains) {
+        this.urlFilterBlockedDomains = urlFilterBlockedDomains;
+    }
+
+    public List<String> getUrlFilterTrapParameters() {
+        return urlFilterTrapParameters;
+    }
+
+    public void setUrlFilterTrapParameters(List<String> urlFilterTrapParameters) {
+        this.urlFilterTrapParameters = urlFilterTrapParameters;
+    }
+
+    public int getUrlFilterMaxDepth() {
+        return urlFilterMaxDepth;
+    }
+
+    public void setUrlFilterMaxDepth(int urlFilterMaxDepth) {
+        this.urlFilterMaxDepth = urlFilterMaxDepth;
+    }
+
+    public int getUrlFilterMaxQueryParameters() {
+        return urlFilterMaxQueryParameters;
+    }
+
+    public void setUrlFilterMaxQueryParameters(int urlFilterMaxQueryParameters) {
+        this.urlFilterMaxQueryParameters = urlFilterMaxQueryParameters;
+    }
+
+    public int getUrlFilterMaxSegmentRepeats() {
+        return urlFilterMaxSegmentRepeats;
+    }
+
+    public void setUrlFilterMaxSegmentRepeats(int urlFilterMaxSegmentRepeats) {
+        this.urlFilterMaxSegmentRepeats = urlFilterMaxSegmentRepeats;
+    }
+
+    public List<String> getUrlCanonicalIgnoredParameters() {
+        return urlCanonicalIgnoredParameters;
+    }
+
+    public void setUrlCanonicalIgnoredParameters(List<String> urlCanonicalIgnoredParameters) {
+        this.urlCanonicalIgnoredParameters = urlCanonicalIgnoredParameters;
+    }
+
+    public List<String> getUrlCanonicalDomainRules() {
+        return urlCanonicalDomainRules;
+    }
+
+    public void setUrlCanonicalDomainRules(List<String> urlCanonicalDomainRules) {
+        this.urlCanonicalDomainRules = urlCanonicalDomainRules;
+    }
 }
@@ -0,0 +1,40 @@
+package in.nimbo.common.dao.redis;
+
+import in.nimbo.common.entity.Fingerprint;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * keys of redis are 16 byte binary fingerprints of links
+ */
+public interface RedisDAO {
+    void add(Fingerprint link);
+
+    boolean contains(Fingerprint link);
+
+    /**
+     * check a batch of links with one round trip per redis node
+     * @return for each link, true if it exists in redis
+     */
+    List<Boolean> containsAll(List<Fingerprint> links);
+
+    /**
+     * add link if it doesn't exist with one atomic command
+     * @return true if link is added, false if it existed before
+     */
+    boolean markIfAbsent(Fingerprint link);
+
+    /**
+     * atomically add each link of a batch if it doesn't exist with one round trip per redis node
+     * @return for each link, true if it is added and false if it existed before
+     */
+    List<Boolean> markAllIfAbsent(List<Fingerprint> links);
+
+    /**
+     * iterate over all keys of redis without blocking it
+     * keys which are not fingerprints are skipped
+     * @param consumer consumer of keys
+     */
+    void forEachKey(Consumer<Fingerprint> consumer);
+}
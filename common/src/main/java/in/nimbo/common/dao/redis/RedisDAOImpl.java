@@ -0,0 +1,208 @@
+package in.nimbo.common.dao.redis;
+
+import in.nimbo.common.config.RedisConfig;
+import in.nimbo.common.entity.Fingerprint;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class RedisDAOImpl implements RedisDAO {
+    private static final int SCAN_COUNT = 1000;
+    private static final int SLOTS_COUNT = 16384;
+    private static final String OK = "OK";
+    private static final byte[] EMPTY_VALUE = new byte[0];
+    private JedisCluster cluster;
+    private RedisConfig config;
+    private volatile String[] slotNodes;
+
+    public RedisDAOImpl(JedisCluster cluster, RedisConfig config) {
+        this.cluster = cluster;
+        this.config = config;
+    }
+
+    @Override
+    public void add(Fingerprint link) {
+        if (config.getExpireTime() > 0) {
+            cluster.set(link.toBytes(), EMPTY_VALUE, SetParams.setParams().ex(config.getExpireTime()));
+        } else {
+            cluster.set(link.toBytes(), EMPTY_VALUE);
+        }
+    }
+
+    @Override
+    public boolean markIfAbsent(Fingerprint link) {
+        return OK.equals(cluster.set(link.toBytes(), EMPTY_VALUE, markParams()));
+    }
+
+    @Override
+    public boolean contains(Fingerprint link) {
+        return cluster.get(link.toBytes()) != null;
+    }
+
+    @Override
+    public List<Boolean> containsAll(List<Fingerprint> links) {
+        return pipelined(links, Pipeline::exists, key -> cluster.get(key) != null);
+    }
+
+    @Override
+    public List<Boolean> markAllIfAbsent(List<Fingerprint> links) {
+        SetParams setParams = markParams();
+        List<String> replies = pipelined(links, (pipeline, key) -> pipeline.set(key, EMPTY_VALUE, setParams),
+                key -> cluster.set(key, EMPTY_VALUE, setParams));
+        List<Boolean> results = new ArrayList<>(replies.size());
+        for (String reply : replies) {
+            results.add(OK.equals(reply));
+        }
+        return results;
+    }
+
+    /**
+     * @return parameters of SET NX EX command, expire is not set if expire time is not positive
+     */
+    private SetParams markParams() {
+        SetParams setParams = SetParams.setParams().nx();
+        if (config.getExpireTime() > 0) {
+            setParams.ex(config.getExpireTime());
+        }
+        return setParams;
+    }
+
+    /**
+     * run a command for all keys with one pipeline per node of cluster
+     * keys which are moved to another node are run one by one with redirection of cluster
+     * and slots of nodes are loaded again for next calls
+     * @param links fingerprints which are keys of commands
+     * @param command pipelined command of a binary key
+     * @param fallback single binary key command which is used when pipeline is not possible for key
+     * @return results in order of keys
+     */
+    private <T> List<T> pipelined(List<Fingerprint> links, BiFunction<Pipeline, byte[], Response<T>> command,
+                                  Function<byte[], T> fallback) {
+        List<byte[]> keys = new ArrayList<>(links.size());
+        for (Fingerprint link : links) {
+            keys.add(link.toBytes());
+        }
+        List<T> results = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        boolean[] done = new boolean[keys.size()];
+        boolean slotsChanged = false;
+        Map<String, JedisPool> nodes = cluster.getClusterNodes();
+        for (Map.Entry<String, List<Integer>> entry : groupByNode(keys).entrySet()) {
+            JedisPool pool = nodes.get(entry.getKey());
+            if (pool == null) {
+                slotsChanged = true;
+                continue;
+            }
+            List<Integer> indexes = entry.getValue();
+            try (Jedis jedis = pool.getResource()) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<T>> responses = new ArrayList<>(indexes.size());
+                for (int index : indexes) {
+                    responses.add(command.apply(pipeline, keys.get(index)));
+                }
+                pipeline.sync();
+                for (int i = 0; i < indexes.size(); i++) {
+                    try {
+                        results.set(indexes.get(i), responses.get(i).get());
+                        done[indexes.get(i)] = true;
+                    } catch (JedisRedirectionException e) {
+                        slotsChanged = true;
+                    }
+                }
+            }
+        }
+        if (slotsChanged) {
+            slotNodes = null;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!done[i]) {
+                results.set(i, fallback.apply(keys.get(i)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return indexes of keys grouped by address of node which serves slot of key
+     */
+    private Map<String, List<Integer>> groupByNode(List<byte[]> keys) {
+        String[] nodes = slotNodes;
+        if (nodes == null) {
+            nodes = loadSlotNodes();
+            slotNodes = nodes;
+        }
+        Map<String, List<Integer>> nodeIndexes = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String node = nodes[JedisClusterCRC16.getSlot(keys.get(i))];
+            if (node != null) {
+                nodeIndexes.computeIfAbsent(node, key -> new ArrayList<>()).add(i);
+            }
+        }
+        return nodeIndexes;
+    }
+
+    /**
+     * load address of master node of each slot with CLUSTER SLOTS command
+     * each entry of result is [start slot, end slot, [master host, master port, ...], replicas...]
+     */
+    @SuppressWarnings("unchecked")
+    private String[] loadSlotNodes() {
+        String[] nodes = new String[SLOTS_COUNT];
+        for (JedisPool pool : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                for (Object slotInfoObject : jedis.clusterSlots()) {
+                    List<Object> slotInfo = (List<Object>) slotInfoObject;
+                    List<Object> master = (List<Object>) slotInfo.get(2);
+                    String node = SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1);
+                    int end = ((Long) slotInfo.get(1)).intValue();
+                    for (int slot = ((Long) slotInfo.get(0)).intValue(); slot <= end; slot++) {
+                        nodes[slot] = node;
+                    }
+                }
+                return nodes;
+            } catch (JedisException e) {
+                // try next node
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * scan keys of each master node of cluster
+     * JedisCluster only supports scan with hash tagged patterns, so nodes are scanned one by one
+     */
+    @Override
+    public void forEachKey(Consumer<Fingerprint> consumer) {
+        ScanParams scanParams = new ScanParams().count(SCAN_COUNT);
+        for (JedisPool pool : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                if (!jedis.info("replication").contains("role:master")) {
+                    continue;
+                }
+                byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+                do {
+                    ScanResult<byte[]> scanResult = jedis.scan(cursor, scanParams);
+                    for (byte[] key : scanResult.getResult()) {
+                        if (key.length == Fingerprint.BYTES) {
+                            consumer.accept(Fingerprint.fromBytes(key));
+                        }
+                    }
+                    cursor = scanResult.getCursorAsBytes();
+                } while (!Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package in.nimbo.common.entity;
+
+public class FetchResponse {
+    private String url;
+    private String contentType;
+    private String charset;
+    private String contentLanguage;
+    private byte[] body;
+
+    public FetchResponse() {
+    }
+
+    public FetchResponse(String url, String contentType, String charset, byte[] body) {
+        this.url = url;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.body = body;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public String getContentLanguage() {
+        return contentLanguage;
+    }
+
+    public void setContentLanguage(String contentLanguage) {
+        this.contentLanguage = contentLanguage;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public boolean isHtml() {
+        return contentType == null || contentType.contains("text/html");
+    }
+}
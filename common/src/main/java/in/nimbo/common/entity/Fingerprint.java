@@ -0,0 +1,160 @@
+package in.nimbo.common.entity;
+
+import java.io.Serializable;
+
+/**
+ * 128 bit fingerprint of a link which is stored in two longs
+ * it is murmur3 x64 128 hash of UTF-16LE code units of string, so no byte array is allocated for hashing
+ * binary form is 16 bytes: high long then low long in big endian order
+ */
+public final class Fingerprint implements Serializable {
+    public static final int BYTES = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static Fingerprint of(CharSequence value) {
+        long h1 = 0;
+        long h2 = 0;
+        int length = value.length();
+        int blockEnd = length - length % 8;
+        for (int i = 0; i < blockEnd; i += 8) {
+            long k1 = chars(value, i, 4);
+            long k2 = chars(value, i + 4, 4);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int remaining = length - blockEnd;
+        if (remaining > 4) {
+            h2 ^= mixK2(chars(value, blockEnd + 4, remaining - 4));
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(chars(value, blockEnd, Math.min(remaining, 4)));
+        }
+        long byteLength = 2L * length;
+        h1 ^= byteLength;
+        h2 ^= byteLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2);
+    }
+
+    /**
+     * @throws IllegalArgumentException if length of bytes is not 16
+     */
+    public static Fingerprint fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("fingerprint must be " + BYTES + " bytes");
+        }
+        return new Fingerprint(readLong(bytes, 0), readLong(bytes, 8));
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        writeLong(bytes, 0, high);
+        writeLong(bytes, 8, low);
+        return bytes;
+    }
+
+    public String toHex() {
+        char[] chars = new char[BYTES * 2];
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX_DIGITS[(int) (high >>> (60 - 4 * i)) & 0xf];
+            chars[i + 16] = HEX_DIGITS[(int) (low >>> (60 - 4 * i)) & 0xf];
+        }
+        return new String(chars);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Fingerprint that = (Fingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    /**
+     * @return little endian long of count characters from start, each character is two bytes
+     */
+    private static long chars(CharSequence value, int start, int count) {
+        long result = 0;
+        for (int i = 0; i < count; i++) {
+            result |= (long) value.charAt(start + i) << (16 * i);
+        }
+        return result;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | (bytes[offset + i] & 0xff);
+        }
+        return result;
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -2,6 +2,11 @@ package in.nimbo.common.entity;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * link which is sent between services
+ * in links topic, label is registrable domain of url, level is depth of url
+ * and score is priority of link in crawl frontier
+ */
 public class Link {
     @JsonProperty("url")
     private String url;
@@ -9,6 +14,8 @@ public class Link {
     private String label;
     @JsonProperty("level")
     private int level;
+    @JsonProperty("score")
+    private double score;
 
     public Link(String url, String label, int level) {
         this.url = url;
@@ -16,6 +23,11 @@ public class Link {
         this.level = level;
     }
 
+    public Link(String url, String label, int level, double score) {
+        this(url, label, level);
+        this.score = score;
+    }
+
     public Link(){}
 
     public void setUrl(String url) {
@@ -30,6 +42,10 @@ public class Link {
         this.level = level;
     }
 
+    public void setScore(double score) {
+        this.score = score;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -41,4 +57,8 @@ public class Link {
     public int getLevel() {
         return level;
     }
+
+    public double getScore() {
+        return score;
+    }
 }
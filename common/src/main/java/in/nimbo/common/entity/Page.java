@@ -90,4 +90,8 @@ public class Page {
     public long getLinkDepth() {
         return linkDepth;
     }
+
+    public void setLinkDepth(long linkDepth) {
+        this.linkDepth = linkDepth;
+    }
 }
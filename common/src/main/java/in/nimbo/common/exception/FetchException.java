@@ -0,0 +1,11 @@
+package in.nimbo.common.exception;
+
+public class FetchException extends RuntimeException {
+    public FetchException(String message) {
+        super(message);
+    }
+
+    public FetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
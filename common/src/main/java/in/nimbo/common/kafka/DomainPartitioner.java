@@ -0,0 +1,79 @@
+package in.nimbo.common.kafka;
+
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.utility.UrlParser;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * kafka partitioner which sends all links of a registrable domain to same partition,
+ * so one consumer owns a domain and politeness and other state of domains can be kept locally
+ * domain of a record is label of a Link, registrable domain of url of a Link
+ * or registrable domain of first link of a String value which may contain packed links.
+ * if domain is not found, key is used like default partitioner and records without key are spread randomly
+ */
+public class DomainPartitioner implements Partitioner {
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        String domain = getDomain(value);
+        if (domain != null) {
+            return partition(domain, partitions);
+        } else if (keyBytes != null) {
+            return Utils.toPositive(Utils.murmur2(keyBytes)) % partitions;
+        }
+        List<PartitionInfo> availablePartitions = cluster.availablePartitionsForTopic(topic);
+        if (!availablePartitions.isEmpty()) {
+            return availablePartitions.get(ThreadLocalRandom.current().nextInt(availablePartitions.size())).partition();
+        }
+        return ThreadLocalRandom.current().nextInt(partitions);
+    }
+
+    /**
+     * @param domain registrable domain
+     * @param partitions number of partitions of topic
+     * @return partition of domain
+     */
+    public static int partition(String domain, int partitions) {
+        return Utils.toPositive(Utils.murmur2(domain.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    /**
+     * @param link absolute url
+     * @return registrable domain of link or null if link is invalid
+     */
+    public static String getDomain(String link) {
+        UrlParser parser = UrlParser.local();
+        return parser.parse(link) ? parser.getMainDomain() : null;
+    }
+
+    static String getDomain(Object value) {
+        if (value instanceof Link) {
+            Link link = (Link) value;
+            return link.getLabel() != null ? link.getLabel() : getDomain(link.getUrl());
+        } else if (value instanceof String) {
+            String links = (String) value;
+            int end = links.indexOf('\n');
+            return getDomain(end < 0 ? links : links.substring(0, end));
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        // partitioner doesn't have any config
+    }
+}
@@ -0,0 +1,110 @@
+package in.nimbo.common.kafka;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.utility.CloseUtility;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * small set of producers which are shared between worker threads
+ * producers are thread safe, so a few of them are enough for many workers and records of workers
+ * are gathered in larger batches. pool is sized by throughput of a topic instead of number of workers
+ * producers are owned by pool and workers must not close them
+ *
+ * @param <K> key of records
+ * @param <V> value of records
+ */
+public class ProducerPool<K, V> implements Closeable {
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private List<Producer<K, V>> producers;
+    private AtomicInteger next;
+
+    /**
+     * @param name name of pool which is used in name of metrics
+     * @param properties properties of producers
+     * @param size number of producers
+     */
+    public ProducerPool(String name, Properties properties, int size) {
+        this(name, () -> new KafkaProducer<>(properties), size);
+    }
+
+    public ProducerPool(String name, Supplier<Producer<K, V>> producerSupplier, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size of producer pool must be positive: " + size);
+        }
+        producers = new ArrayList<>(size);
+        next = new AtomicInteger();
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        for (int i = 0; i < size; i++) {
+            Producer<K, V> producer = producerSupplier.get();
+            producers.add(producer);
+            String producerName = "producer-" + i;
+            registerMetric(metricRegistry, producer, MetricRegistry.name(name, producerName, "batchSizeAvg"), "batch-size-avg");
+            registerMetric(metricRegistry, producer, MetricRegistry.name(name, producerName, "recordsPerRequestAvg"), "records-per-request-avg");
+            registerMetric(metricRegistry, producer, MetricRegistry.name(name, producerName, "recordQueueTimeAvg"), "record-queue-time-avg");
+            registerMetric(metricRegistry, producer, MetricRegistry.name(name, producerName, "compressionRateAvg"), "compression-rate-avg");
+            registerMetric(metricRegistry, producer, MetricRegistry.name(name, producerName, "bufferAvailableBytes"), "buffer-available-bytes");
+        }
+    }
+
+    /**
+     * @return next producer in round robin order
+     */
+    public Producer<K, V> get() {
+        return producers.get(Math.floorMod(next.getAndIncrement(), producers.size()));
+    }
+
+    /**
+     * @param index index of a worker
+     * @return producer which is assigned to worker, so each worker uses same producer in its lifetime
+     */
+    public Producer<K, V> get(int index) {
+        return producers.get(Math.floorMod(index, producers.size()));
+    }
+
+    public int size() {
+        return producers.size();
+    }
+
+    /**
+     * flush and close all producers of pool
+     */
+    @Override
+    public void close() {
+        for (Producer<K, V> producer : producers) {
+            CloseUtility.closeSafely(producer);
+        }
+    }
+
+    private static void registerMetric(MetricRegistry metricRegistry, Producer<?, ?> producer,
+                                       String name, String metricName) {
+        metricRegistry.gauge(MetricRegistry.name(ProducerPool.class, name),
+                () -> (Gauge<Double>) () -> getMetric(producer, metricName));
+    }
+
+    /**
+     * @return value of a metric of producer or NaN if metric is not available
+     */
+    private static double getMetric(Producer<?, ?> producer, String metricName) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            MetricName name = entry.getKey();
+            if (name.name().equals(metricName) && name.group().equals(PRODUCER_METRICS_GROUP)) {
+                Object value = entry.getValue().metricValue();
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,198 @@
+package in.nimbo.common.kafka;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * hand off records of a consumer to a bounded local queue without blocking thread of consumer
+ * partitions are paused when queue reaches high water mark and resumed when it is drained to low water mark,
+ * so consumer keeps polling while workers are busy and it is not removed from its group
+ * records which don't fit in queue are kept until next call
+ * workers acknowledge elements of queue after processing them and offset of a partition is returned for commit
+ * only when all records before it are acknowledged, so records of queue are not lost if crawler stops
+ * feeder must be a rebalance listener of consumer or be called by it, so offsets of acknowledged records
+ * of revoked partitions are committed before new owner of partitions reads them again
+ * feeder is not thread safe and it must be used in thread of consumer except acknowledging of records
+ *
+ * @param <K> key of records
+ * @param <V> value of records
+ * @param <T> type of queue elements
+ */
+public class QueueFeeder<K, V, T> implements ConsumerRebalanceListener {
+    private Consumer<K, V> consumer;
+    private BlockingQueue<QueuedRecord<T>> queue;
+    private Function<V, T> mapper;
+    private int highWaterMark;
+    private int lowWaterMark;
+
+    private Deque<ConsumerRecord<K, V>> pendingRecords;
+    private Map<TopicPartition, PartitionOffsets> partitionOffsets;
+    private Queue<QueuedRecord<T>> acknowledgedRecords;
+    private boolean paused;
+
+    private Counter pausesCounter;
+
+    /**
+     * @param mapper convert value of a record to an element of queue, records which are mapped to null are skipped
+     */
+    public QueueFeeder(Consumer<K, V> consumer, BlockingQueue<QueuedRecord<T>> queue, Function<V, T> mapper,
+                       int highWaterMark, int lowWaterMark) {
+        this.consumer = consumer;
+        this.queue = queue;
+        this.mapper = mapper;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+        pendingRecords = new ArrayDeque<>();
+        partitionOffsets = new HashMap<>();
+        acknowledgedRecords = new ConcurrentLinkedQueue<>();
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        pausesCounter = metricRegistry.counter(MetricRegistry.name(QueueFeeder.class, "pausesCounter"));
+    }
+
+    /**
+     * add records to queue as long as it has capacity and pause or resume partitions of consumer
+     * records of partitions which are not assigned to consumer anymore are dropped, so new owner of them handles them
+     *
+     * @param records records which are polled recently
+     */
+    public void feed(ConsumerRecords<K, V> records) {
+        Set<TopicPartition> assignment = consumer.assignment();
+        pendingRecords.removeIf(record -> !assignment.contains(new TopicPartition(record.topic(), record.partition())));
+        partitionOffsets.keySet().retainAll(assignment);
+        for (ConsumerRecord<K, V> record : records) {
+            pendingRecords.addLast(record);
+        }
+
+        while (!pendingRecords.isEmpty()) {
+            ConsumerRecord<K, V> record = pendingRecords.peekFirst();
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            T value = record.value() == null ? null : mapper.apply(record.value());
+            QueuedRecord<T> queuedRecord = value == null ? null
+                    : new QueuedRecord<>(partition, record.offset(), value, acknowledgedRecords::add);
+            if (queuedRecord != null && !queue.offer(queuedRecord)) {
+                break;
+            }
+            pendingRecords.pollFirst();
+            PartitionOffsets offsets = partitionOffsets.computeIfAbsent(partition,
+                    key -> new PartitionOffsets(record.offset()));
+            if (queuedRecord != null) {
+                offsets.unacknowledgedOffsets.add(record.offset());
+            }
+            offsets.nextOffset = record.offset() + 1;
+        }
+
+        int size = queue.size();
+        if (!pendingRecords.isEmpty() || size >= highWaterMark) {
+            if (!paused) {
+                pausesCounter.inc();
+                paused = true;
+            }
+        } else if (paused && size <= lowWaterMark) {
+            consumer.resume(consumer.paused());
+            paused = false;
+        }
+        if (paused) {
+            // partitions are paused again in each call because pause state is reset after rebalance
+            consumer.pause(consumer.assignment());
+        }
+    }
+
+    /**
+     * @return offsets of partitions whose acknowledged records are increased since last call,
+     * offset of a partition is the first record which is not acknowledged or the next record of partition
+     */
+    public Map<TopicPartition, OffsetAndMetadata> takeOffsets() {
+        return takeOffsets(partitionOffsets.keySet());
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> takeOffsets(Collection<TopicPartition> partitions) {
+        QueuedRecord<T> acknowledgedRecord;
+        while ((acknowledgedRecord = acknowledgedRecords.poll()) != null) {
+            PartitionOffsets offsets = partitionOffsets.get(acknowledgedRecord.getPartition());
+            if (offsets != null) {
+                offsets.unacknowledgedOffsets.remove(acknowledgedRecord.getOffset());
+            }
+        }
+        Map<TopicPartition, OffsetAndMetadata> commitOffsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionOffsets offsets = partitionOffsets.get(partition);
+            if (offsets == null) {
+                continue;
+            }
+            long offset = offsets.unacknowledgedOffsets.isEmpty() ? offsets.nextOffset
+                    : offsets.unacknowledgedOffsets.first();
+            if (offset > offsets.committedOffset) {
+                offsets.committedOffset = offset;
+                commitOffsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        return commitOffsets;
+    }
+
+    /**
+     * commit offsets of acknowledged records of revoked partitions and drop their pending records
+     * pending records and records which are not acknowledged are read again by owner of partitions
+     * from committed offsets
+     *
+     * @param partitions revoked partitions
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> revokedOffsets = takeOffsets(partitions);
+        pendingRecords.removeIf(record -> partitions.contains(new TopicPartition(record.topic(), record.partition())));
+        if (!revokedOffsets.isEmpty()) {
+            consumer.commitSync(revokedOffsets);
+        }
+    }
+
+    /**
+     * drop records of partitions which are not assigned to consumer anymore from queue, because their
+     * offsets are not committed and new owner of partitions reads them again
+     * partitions which are assigned again are read after records which are handed off to queue
+     *
+     * @param partitions assigned partitions
+     */
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        partitionOffsets.keySet().retainAll(partitions);
+        queue.removeIf(record -> !partitionOffsets.containsKey(record.getPartition()));
+        for (Map.Entry<TopicPartition, PartitionOffsets> entry : partitionOffsets.entrySet()) {
+            consumer.seek(entry.getKey(), entry.getValue().nextOffset);
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public int getPendingSize() {
+        return pendingRecords.size();
+    }
+
+    private static class PartitionOffsets {
+        private SortedSet<Long> unacknowledgedOffsets;
+        private long nextOffset;
+        private long committedOffset;
+
+        /**
+         * @param startOffset offset which consumer started reading partition from
+         */
+        private PartitionOffsets(long startOffset) {
+            unacknowledgedOffsets = new TreeSet<>();
+            nextOffset = startOffset;
+            committedOffset = startOffset;
+        }
+    }
+}
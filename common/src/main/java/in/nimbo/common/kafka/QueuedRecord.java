@@ -0,0 +1,47 @@
+package in.nimbo.common.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.function.Consumer;
+
+/**
+ * element of a local queue which is fed by a consumer
+ * partition and offset of its record are kept, so record is committed only after it is acknowledged
+ *
+ * @param <T> type of value
+ */
+public class QueuedRecord<T> {
+    private TopicPartition partition;
+    private long offset;
+    private T value;
+    private Consumer<QueuedRecord<T>> acknowledger;
+
+    /**
+     * @param acknowledger called when record is acknowledged
+     */
+    public QueuedRecord(TopicPartition partition, long offset, T value, Consumer<QueuedRecord<T>> acknowledger) {
+        this.partition = partition;
+        this.offset = offset;
+        this.value = value;
+        this.acknowledger = acknowledger;
+    }
+
+    /**
+     * mark record as processed, it is safe to be called from any thread
+     */
+    public void acknowledge() {
+        acknowledger.accept(this);
+    }
+
+    public TopicPartition getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public T getValue() {
+        return value;
+    }
+}
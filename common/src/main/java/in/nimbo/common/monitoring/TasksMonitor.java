@@ -0,0 +1,44 @@
+package in.nimbo.common.monitoring;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+import java.util.function.IntSupplier;
+
+/**
+ * monitor of tasks which are not bound to a fixed list of threads
+ * it samples number of running tasks and free task slots like ThreadsMonitor does for threads
+ */
+public class TasksMonitor implements Runnable {
+    private IntSupplier activeTasks;
+    private IntSupplier waitingTasks;
+    private int capacity;
+
+    private Histogram activeTasksHistogram;
+    private Histogram idleSlotsHistogram;
+    private Histogram waitingTasksHistogram;
+
+    /**
+     * @param activeTasks number of running tasks
+     * @param waitingTasks number of tasks which are waiting for a free slot
+     * @param capacity maximum number of running tasks
+     */
+    public TasksMonitor(IntSupplier activeTasks, IntSupplier waitingTasks, int capacity) {
+        this.activeTasks = activeTasks;
+        this.waitingTasks = waitingTasks;
+        this.capacity = capacity;
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        activeTasksHistogram = metricRegistry.histogram(MetricRegistry.name(TasksMonitor.class, "activeTasks"));
+        idleSlotsHistogram = metricRegistry.histogram(MetricRegistry.name(TasksMonitor.class, "idleSlots"));
+        waitingTasksHistogram = metricRegistry.histogram(MetricRegistry.name(TasksMonitor.class, "waitingTasks"));
+    }
+
+    @Override
+    public void run() {
+        int active = activeTasks.getAsInt();
+        activeTasksHistogram.update(active);
+        idleSlotsHistogram.update(Math.max(0, capacity - active));
+        waitingTasksHistogram.update(waitingTasks.getAsInt());
+    }
+}
@@ -0,0 +1,124 @@
+package in.nimbo.common.serializer;
+
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Meta;
+import in.nimbo.common.entity.Page;
+import net.jpountz.lz4.LZ4Exception;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * view of a page in binary format of {@link PageCodec} whose small fields are decoded eagerly
+ * content, anchors and metas are decoded on first access, so consumers which don't need content don't pay for it
+ * unchanged content is copied to output without decompression if page is serialized again
+ * lazy page is not thread safe like page, it must be passed between threads through a queue
+ */
+public class LazyPage extends Page {
+    private byte[] data;
+    private int contentOffset;
+    private boolean contentCompressed;
+    private int anchorsOffset;
+    private int metasOffset = -1;
+
+    private boolean contentDecoded;
+    private boolean contentModified;
+    private boolean anchorsDecoded;
+    private boolean metasDecoded;
+
+    LazyPage(byte[] data) {
+        this.data = data;
+    }
+
+    void setOffsets(int contentOffset, boolean contentCompressed, int anchorsOffset) {
+        this.contentOffset = contentOffset;
+        this.contentCompressed = contentCompressed;
+        this.anchorsOffset = anchorsOffset;
+    }
+
+    @Override
+    public String getContent() {
+        if (!contentDecoded) {
+            try {
+                super.setContent(PageCodec.readContent(new PageCodec.Reader(data, contentOffset), contentCompressed));
+            } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException | LZ4Exception e) {
+                throw new SerializationException("Invalid content of binary page", e);
+            }
+            contentDecoded = true;
+        }
+        return super.getContent();
+    }
+
+    @Override
+    public void setContent(String content) {
+        super.setContent(content);
+        contentDecoded = true;
+        contentModified = true;
+    }
+
+    @Override
+    public Set<Anchor> getAnchors() {
+        if (!anchorsDecoded) {
+            try {
+                PageCodec.Reader reader = new PageCodec.Reader(data, anchorsOffset);
+                super.setAnchors(PageCodec.readAnchors(reader));
+                metasOffset = reader.getPosition();
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new SerializationException("Invalid anchors of binary page", e);
+            }
+            anchorsDecoded = true;
+        }
+        return super.getAnchors();
+    }
+
+    @Override
+    public void setAnchors(Set<Anchor> anchors) {
+        super.setAnchors(anchors);
+        anchorsDecoded = true;
+    }
+
+    @Override
+    public List<Meta> getMetas() {
+        if (!metasDecoded) {
+            try {
+                if (metasOffset < 0) {
+                    PageCodec.Reader reader = new PageCodec.Reader(data, anchorsOffset);
+                    PageCodec.skipAnchors(reader);
+                    metasOffset = reader.getPosition();
+                }
+                super.setMetas(PageCodec.readMetas(new PageCodec.Reader(data, metasOffset)));
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new SerializationException("Invalid metas of binary page", e);
+            }
+            metasDecoded = true;
+        }
+        return super.getMetas();
+    }
+
+    @Override
+    public void setMetas(List<Meta> metas) {
+        super.setMetas(metas);
+        metasDecoded = true;
+    }
+
+    boolean isContentModified() {
+        return contentModified;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    int getContentOffset() {
+        return contentOffset;
+    }
+
+    boolean isContentCompressed() {
+        return contentCompressed;
+    }
+
+    int getAnchorsOffset() {
+        return anchorsOffset;
+    }
+}
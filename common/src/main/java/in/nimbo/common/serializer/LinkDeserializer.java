@@ -7,9 +7,16 @@ import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
+/**
+ * deserialize json of link, a record which is a plain url (written before links had score)
+ * is deserialized to a link with only url
+ */
 public class LinkDeserializer implements Deserializer<Link> {
+    private ObjectMapper mapper = new ObjectMapper();
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
 
@@ -22,7 +29,12 @@ public class LinkDeserializer implements Deserializer<Link> {
 
     @Override
     public Link deserialize(String topic, Headers headers, byte[] data) {
-        ObjectMapper mapper = new ObjectMapper();
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] != '{') {
+            return new Link(new String(data, StandardCharsets.UTF_8), null, 0);
+        }
         try {
             return mapper.readValue(data, Link.class);
         } catch (IOException e) {
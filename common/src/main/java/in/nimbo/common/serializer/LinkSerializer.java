@@ -11,6 +11,8 @@ import org.apache.kafka.common.serialization.Serializer;
 import java.util.Map;
 
 public class LinkSerializer implements Serializer<Link> {
+    private ObjectWriter writer = new ObjectMapper().writer();
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
     }
@@ -22,7 +24,6 @@ public class LinkSerializer implements Serializer<Link> {
 
     @Override
     public byte[] serialize(String topic, Headers headers, Link link) {
-        ObjectWriter writer = new ObjectMapper().writer();
         try {
             return writer.writeValueAsBytes(link);
         } catch (JsonProcessingException e) {
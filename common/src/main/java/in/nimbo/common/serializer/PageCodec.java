@@ -0,0 +1,424 @@
+package in.nimbo.common.serializer;
+
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Meta;
+import in.nimbo.common.entity.Page;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * compact binary format of page
+ * <pre>
+ * page    := version(byte) flags(byte) link title reversedLink rank(8 bytes) linkDepth(varlong) content anchors metas
+ * string  := length + 1 (varint) utf-8 bytes, length 0 means null
+ * content := string, or uncompressedLength (varint) compressedLength (varint) lz4 block if content flag is set
+ * anchors := count + 1 (varint) (href content)*, count 0 means null
+ * metas   := count + 1 (varint) (key content)*, count 0 means null
+ * </pre>
+ * first byte of a json page is '{', so it is not a valid version and old json pages are detected by decoder
+ * content, anchors and metas are at the end of page, so a lazy decoder can skip them by their lengths
+ * buffers of encoder are reused in each thread because producers are shared between threads
+ */
+public class PageCodec {
+    public static final byte VERSION = 1;
+    static final int CONTENT_COMPRESSED_FLAG = 1;
+    private static final int MIN_COMPRESSION_LENGTH = 256;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(() -> new Buffer(INITIAL_BUFFER_SIZE));
+    private static final ThreadLocal<Buffer> CONTENT_BUFFER = ThreadLocal.withInitial(() -> new Buffer(INITIAL_BUFFER_SIZE));
+
+    private PageCodec() {
+    }
+
+    /**
+     * @param page page
+     * @param compressContent compress content with lz4 if it is large enough and it gets smaller
+     * @return binary format of page
+     */
+    public static byte[] encode(Page page, boolean compressContent) {
+        Buffer buffer = BUFFER.get();
+        buffer.reset();
+        buffer.writeByte(VERSION);
+        int flagsPosition = buffer.position;
+        buffer.writeByte(0);
+        buffer.writeString(page.getLink());
+        buffer.writeString(page.getTitle());
+        buffer.writeString(page.getReversedLink());
+        buffer.writeLong(Double.doubleToLongBits(page.getRank()));
+        buffer.writeVarLong(page.getLinkDepth());
+        LazyPage lazyPage = page instanceof LazyPage ? (LazyPage) page : null;
+        if (lazyPage != null && !lazyPage.isContentModified()) {
+            // content of a lazy page is copied without decompression if it is not changed
+            buffer.writeBytes(lazyPage.getData(), lazyPage.getContentOffset(),
+                    lazyPage.getAnchorsOffset() - lazyPage.getContentOffset());
+            if (lazyPage.isContentCompressed()) {
+                buffer.bytes[flagsPosition] = CONTENT_COMPRESSED_FLAG;
+            }
+        } else if (compressContent && writeCompressedContent(buffer, page.getContent())) {
+            buffer.bytes[flagsPosition] = CONTENT_COMPRESSED_FLAG;
+        } else {
+            buffer.writeString(page.getContent());
+        }
+
+        Set<Anchor> anchors = page.getAnchors();
+        buffer.writeVarInt(anchors == null ? 0 : anchors.size() + 1);
+        if (anchors != null) {
+            for (Anchor anchor : anchors) {
+                buffer.writeString(anchor.getHref());
+                buffer.writeString(anchor.getContent());
+            }
+        }
+        List<Meta> metas = page.getMetas();
+        buffer.writeVarInt(metas == null ? 0 : metas.size() + 1);
+        if (metas != null) {
+            for (Meta meta : metas) {
+                buffer.writeString(meta.getKey());
+                buffer.writeString(meta.getContent());
+            }
+        }
+        return Arrays.copyOf(buffer.bytes, buffer.position);
+    }
+
+    /**
+     * @param data binary format of page
+     * @return page
+     * @throws SerializationException if data is not a valid page or its version is not supported
+     */
+    public static Page decode(byte[] data) {
+        try {
+            Reader reader = new Reader(data, 0);
+            Page page = new Page();
+            boolean contentCompressed = readHeader(reader, page);
+            page.setContent(readContent(reader, contentCompressed));
+            page.setAnchors(readAnchors(reader));
+            page.setMetas(readMetas(reader));
+            return page;
+        } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException | LZ4Exception e) {
+            throw new SerializationException("Invalid binary page", e);
+        }
+    }
+
+    /**
+     * decode small fields of page and skip content, anchors and metas until they are accessed
+     *
+     * @param data binary format of page
+     * @return lazy view of page
+     * @throws SerializationException if header of page is not valid or its version is not supported
+     */
+    public static Page decodeLazy(byte[] data) {
+        try {
+            Reader reader = new Reader(data, 0);
+            LazyPage page = new LazyPage(data);
+            boolean contentCompressed = readHeader(reader, page);
+            int contentOffset = reader.position;
+            skipContent(reader, contentCompressed);
+            page.setOffsets(contentOffset, contentCompressed, reader.position);
+            return page;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Invalid binary page", e);
+        }
+    }
+
+    /**
+     * read version and small fields of page
+     *
+     * @return true if content of page is compressed
+     */
+    private static boolean readHeader(Reader reader, Page page) {
+        byte version = reader.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported version of page: " + version);
+        }
+        int flags = reader.readByte();
+        page.setLink(reader.readString());
+        page.setTitle(reader.readString());
+        page.setReversedLink(reader.readString());
+        page.setRank(Double.longBitsToDouble(reader.readLong()));
+        page.setLinkDepth(reader.readVarLong());
+        return (flags & CONTENT_COMPRESSED_FLAG) != 0;
+    }
+
+    static String readContent(Reader reader, boolean compressed) {
+        return compressed ? reader.readCompressedString() : reader.readString();
+    }
+
+    private static void skipContent(Reader reader, boolean compressed) {
+        if (compressed) {
+            reader.readVarInt();
+            reader.skip(reader.readVarInt());
+        } else {
+            reader.skipString();
+        }
+    }
+
+    static Set<Anchor> readAnchors(Reader reader) {
+        int count = reader.readVarInt() - 1;
+        if (count < 0) {
+            return null;
+        }
+        Set<Anchor> anchors = new HashSet<>(Math.max(16, (int) (count / 0.75f) + 1));
+        for (int i = 0; i < count; i++) {
+            anchors.add(new Anchor(reader.readString(), reader.readString()));
+        }
+        return anchors;
+    }
+
+    static void skipAnchors(Reader reader) {
+        int count = reader.readVarInt() - 1;
+        for (int i = 0; i < count * 2; i++) {
+            reader.skipString();
+        }
+    }
+
+    static List<Meta> readMetas(Reader reader) {
+        int count = reader.readVarInt() - 1;
+        if (count < 0) {
+            return null;
+        }
+        List<Meta> metas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            metas.add(new Meta(reader.readString(), reader.readString()));
+        }
+        return metas;
+    }
+
+    /**
+     * @return true if content is compressed and written to buffer
+     */
+    private static boolean writeCompressedContent(Buffer buffer, String content) {
+        if (content == null || content.length() < MIN_COMPRESSION_LENGTH) {
+            return false;
+        }
+        Buffer contentBuffer = CONTENT_BUFFER.get();
+        contentBuffer.reset();
+        contentBuffer.writeUtf8(content, Buffer.utf8Length(content));
+        int length = contentBuffer.position;
+        int maxCompressedLength = COMPRESSOR.maxCompressedLength(length);
+        int start = buffer.position;
+        buffer.writeVarInt(length);
+        int lengthPosition = buffer.position;
+        // compressed length is written after compression, so at most 5 bytes are reserved for its varint
+        buffer.ensureCapacity(5 + maxCompressedLength);
+        int compressedLength = COMPRESSOR.compress(contentBuffer.bytes, 0, length,
+                buffer.bytes, lengthPosition + 5, maxCompressedLength);
+        if (compressedLength >= length) {
+            buffer.position = start;
+            return false;
+        }
+        buffer.writeVarInt(compressedLength);
+        System.arraycopy(buffer.bytes, lengthPosition + 5, buffer.bytes, buffer.position, compressedLength);
+        buffer.position += compressedLength;
+        return true;
+    }
+
+    private static class Buffer {
+        private byte[] bytes;
+        private int position;
+
+        private Buffer(int size) {
+            bytes = new byte[size];
+        }
+
+        private void reset() {
+            position = 0;
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + length));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] value, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(value, offset, bytes, position, length);
+            position += length;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            int length = utf8Length(value);
+            writeVarInt(length + 1);
+            writeUtf8(value, length);
+        }
+
+        /**
+         * encode string without creating a temporary byte array, unpaired surrogates are written as '?'
+         * like {@link String#getBytes(java.nio.charset.Charset)}
+         */
+        private void writeUtf8(String value, int length) {
+            ensureCapacity(length);
+            byte[] b = bytes;
+            int p = position;
+            int size = value.length();
+            for (int i = 0; i < size; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    b[p++] = (byte) c;
+                } else if (c < 0x800) {
+                    b[p++] = (byte) (0xC0 | (c >> 6));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        b[p++] = (byte) (0xF0 | (codePoint >> 18));
+                        b[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        b[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        b[p++] = (byte) (0x80 | (codePoint & 0x3F));
+                    } else {
+                        b[p++] = '?';
+                    }
+                } else {
+                    b[p++] = (byte) (0xE0 | (c >> 12));
+                    b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            position = p;
+        }
+
+        private static int utf8Length(String value) {
+            int length = 0;
+            int size = value.length();
+            for (int i = 0; i < size; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        length += 4;
+                        i++;
+                    } else {
+                        length++;
+                    }
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+
+    static class Reader {
+        private byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int getPosition() {
+            return position;
+        }
+
+        private void skip(int length) {
+            if (length < 0 || position + length > bytes.length) {
+                throw new SerializationException("Invalid length in binary page: " + length);
+            }
+            position += length;
+        }
+
+        private void skipString() {
+            int length = readVarInt() - 1;
+            if (length > 0) {
+                skip(length);
+            }
+        }
+
+        private byte readByte() {
+            return bytes[position++];
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private int readVarInt() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new SerializationException("Invalid length in binary page: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Invalid varint in binary page");
+        }
+
+        private String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (position + length > bytes.length) {
+                throw new SerializationException("Invalid string length in binary page: " + length);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private String readCompressedString() {
+            int length = readVarInt();
+            int compressedLength = readVarInt();
+            byte[] content = new byte[length];
+            int decompressedLength = DECOMPRESSOR.decompress(bytes, position, compressedLength, content, 0, length);
+            if (decompressedLength != length) {
+                throw new SerializationException("Invalid compressed content in binary page");
+            }
+            position += compressedLength;
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+}
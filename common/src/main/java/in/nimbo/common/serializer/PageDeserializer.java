@@ -1,6 +1,7 @@
 package in.nimbo.common.serializer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import in.nimbo.common.entity.Page;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
@@ -9,10 +10,23 @@ import org.apache.kafka.common.serialization.Deserializer;
 import java.io.IOException;
 import java.util.Map;
 
+/**
+ * deserialize page from binary format of {@link PageCodec}
+ * pages which are produced in json format before binary format are still accepted
+ * if page.lazy.decode of consumer is true, content, anchors and metas are decoded when they are accessed
+ * in thread of their user instead of thread of consumer
+ */
 public class PageDeserializer implements Deserializer<Page> {
+    public static final String LAZY_DECODE_CONFIG = "page.lazy.decode";
+    private static final ObjectReader JSON_READER = new ObjectMapper().readerFor(Page.class);
+    private boolean lazyDecode;
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
-
+        Object lazy = configs.get(LAZY_DECODE_CONFIG);
+        if (lazy != null) {
+            lazyDecode = Boolean.parseBoolean(lazy.toString().trim());
+        }
     }
 
     @Override
@@ -22,12 +36,17 @@ public class PageDeserializer implements Deserializer<Page> {
 
     @Override
     public Page deserialize(String topic, Headers headers, byte[] data) {
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return mapper.readValue(data, Page.class);
-        } catch (IOException e) {
-            throw new SerializationException(e);
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            try {
+                return JSON_READER.readValue(data);
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
         }
+        return lazyDecode ? PageCodec.decodeLazy(data) : PageCodec.decode(data);
     }
 
     @Override
@@ -1,8 +1,5 @@
 package in.nimbo.common.serializer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import in.nimbo.common.entity.Page;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
@@ -10,9 +7,27 @@ import org.apache.kafka.common.serialization.Serializer;
 
 import java.util.Map;
 
+/**
+ * serialize page in binary format of {@link PageCodec}
+ * content of page is compressed with lz4 unless page.content.compression of producer is none
+ */
 public class PageSerializer implements Serializer<Page> {
+    public static final String CONTENT_COMPRESSION_CONFIG = "page.content.compression";
+    private boolean compressContent = true;
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
+        Object compression = configs.get(CONTENT_COMPRESSION_CONFIG);
+        if (compression != null) {
+            String value = compression.toString().trim().toLowerCase();
+            if (value.equals("none")) {
+                compressContent = false;
+            } else if (value.equals("lz4")) {
+                compressContent = true;
+            } else {
+                throw new SerializationException("Unsupported compression of page content: " + compression);
+            }
+        }
     }
 
     @Override
@@ -22,12 +37,10 @@ public class PageSerializer implements Serializer<Page> {
 
     @Override
     public byte[] serialize(String topic, Headers headers, Page page) {
-        ObjectWriter writer = new ObjectMapper().writer();
-        try {
-            return writer.writeValueAsBytes(page);
-        } catch (JsonProcessingException e) {
-            throw new SerializationException(e);
+        if (page == null) {
+            return null;
         }
+        return PageCodec.encode(page, compressContent);
     }
 
     @Override
@@ -4,156 +4,175 @@ import com.cybozu.labs.langdetect.Detector;
 import com.cybozu.labs.langdetect.DetectorFactory;
 import com.cybozu.labs.langdetect.LangDetectException;
 import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.entity.FetchResponse;
 import in.nimbo.common.entity.Page;
 import in.nimbo.common.exception.LanguageDetectException;
 import in.nimbo.common.exception.ParseLinkException;
+import in.nimbo.common.service.fetcher.Fetcher;
+import in.nimbo.common.service.fetcher.JsoupFetcher;
+import in.nimbo.common.service.filter.UrlFilter;
+import in.nimbo.common.service.parser.HtmlContent;
+import in.nimbo.common.service.parser.HtmlExtractor;
+import in.nimbo.common.service.parser.LanguageFilter;
+import in.nimbo.common.utility.CloseUtility;
 import in.nimbo.common.utility.LanguageDetectorUtility;
-import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.common.utility.UrlCanonicalizer;
+import in.nimbo.common.utility.UrlParser;
 import in.nimbo.common.entity.Anchor;
-import in.nimbo.common.entity.Meta;
-import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLHandshakeException;
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ParserService {
     private Logger parserLogger = LoggerFactory.getLogger("parser");
     private Logger appLogger = LoggerFactory.getLogger("crawler");
     private ProjectConfig projectConfig;
+    private Fetcher fetcher;
+    private ExecutorService parserExecutor;
+    private HtmlExtractor htmlExtractor;
+    private LanguageFilter languageFilter;
+    private UrlFilter urlFilter;
 
     public ParserService(ProjectConfig projectConfig) {
+        this(projectConfig, new JsoupFetcher(projectConfig));
+    }
+
+    public ParserService(ProjectConfig projectConfig, Fetcher fetcher) {
         this.projectConfig = projectConfig;
+        this.fetcher = fetcher;
+        int parserThreads = projectConfig.getParserThreads() > 0 ?
+                projectConfig.getParserThreads() : Runtime.getRuntime().availableProcessors();
+        parserExecutor = Executors.newFixedThreadPool(parserThreads);
+        htmlExtractor = new HtmlExtractor(projectConfig.getParserMaxContentLength(), projectConfig.getParserMaxAnchors());
+        languageFilter = new LanguageFilter(projectConfig.getLanguagePrefilterLength(),
+                projectConfig.getLanguageMaxNonLatinRatio(), projectConfig.getLanguageSampleLength());
+        urlFilter = new UrlFilter(projectConfig);
     }
 
-    /**
-     * return document of page if it is present
-     *
-     * @param link link of site
-     * @return
-     */
-    public Optional<Document> getDocument(String link) {
-        try {
-            Connection.Response response = Jsoup.connect(link)
-                    .userAgent(projectConfig.getJsoupUserAgent())
-                    .timeout(projectConfig.getJsoupTimeout())
-                    .followRedirects(true)
-                    .ignoreContentType(true)
-                    .execute();
-            if (response.contentType() != null &&
-                    !response.contentType().contains("text/html")) {
-                return Optional.empty();
-            } else {
-                return Optional.of(response.parse());
-            }
-        } catch (SSLHandshakeException e) {
+    public void close() {
+        CloseUtility.closeSafely(fetcher);
+        parserExecutor.shutdown();
+    }
+
+    private void logFetchFailure(String link, Throwable e) {
+        if (e instanceof SSLHandshakeException) {
             parserLogger.warn("Server certificate verification failed: {}", link);
-        } catch (UnknownHostException e) {
+        } else if (e instanceof UnknownHostException) {
             parserLogger.warn("Could not resolve host: {}", link);
-        } catch (MalformedURLException | IllegalArgumentException e) {
+        } else if (e instanceof MalformedURLException || e instanceof IllegalArgumentException) {
             parserLogger.warn("Illegal url format: {}", link);
-        } catch (HttpStatusException e) {
-            parserLogger.warn("Response is not OK. Url: \"{}\" StatusCode: {}", e.getUrl(), e.getStatusCode());
-        } catch (SocketTimeoutException e) {
+        } else if (e instanceof HttpStatusException) {
+            HttpStatusException statusException = (HttpStatusException) e;
+            parserLogger.warn("Response is not OK. Url: \"{}\" StatusCode: {}", statusException.getUrl(), statusException.getStatusCode());
+        } else if (e instanceof SocketTimeoutException) {
             parserLogger.warn("Connection time out with jsoup: {}", link);
-        } catch (StringIndexOutOfBoundsException | IOException e) {
+        } else {
             parserLogger.warn("Unable to parse page with jsoup: {}", link);
         }
-        return Optional.empty();
     }
 
     /**
-     * @param document document contain a site contents
-     * @return list of all anchors in a document
+     * @param anchors anchors with absolute href
+     * @return anchors with canonical href and lower case text, repeated hrefs are numbered.
+     * anchors which are rejected by url filter are removed
      */
-    private Set<Anchor> getAnchors(Document document) {
-        Set<Anchor> anchors = new HashSet<>();
-        Elements linkElements = document.getElementsByTag("a");
+    private Set<Anchor> normalizeAnchors(List<Anchor> anchors) {
+        Set<Anchor> normalizedAnchors = new HashSet<>();
         Map<String, Integer> map = new HashMap<>();
-        for (Element linkElement : linkElements) {
-            String absUrl = linkElement.absUrl("href");
-            if (!absUrl.isEmpty() && !absUrl.matches("mailto:.*")
-                    && LinkUtility.isValidUrl(absUrl) && !linkElement.text().equals("")) {
-                try {
-                    String normalizedUrl = LinkUtility.normalize(absUrl);
-                    map.merge(normalizedUrl, 1, Integer::sum);
-                    if (map.get(normalizedUrl) > 1) {
-                        normalizedUrl += "#" + map.get(normalizedUrl);
-                    }
-                    anchors.add(new Anchor(normalizedUrl, linkElement.text().toLowerCase()));
-                } catch (MalformedURLException e) {
-                    parserLogger.warn("Unable to normalize link: {}", absUrl);
+        UrlParser urlParser = UrlParser.local();
+        for (Anchor anchor : anchors) {
+            String text = anchor.getContent();
+            if (!text.isEmpty() && urlParser.parse(anchor.getHref()) && urlParser.isValid() && urlFilter.accept(urlParser)) {
+                String normalizedUrl = UrlCanonicalizer.getDefault().canonicalize(urlParser);
+                int count = map.merge(normalizedUrl, 1, Integer::sum);
+                if (count > 1) {
+                    normalizedUrl += "#" + count;
                 }
+                normalizedAnchors.add(new Anchor(normalizedUrl, text.toLowerCase()));
             }
         }
-        return anchors;
+        return normalizedAnchors;
     }
 
     /**
-     * @param document document contain a site contents
-     * @return list of all metas in a document
+     * crawl a site and return it's content as a page
+     * caller thread is blocked until page is fetched and it parses page itself
+     *
+     * @param link link of site
+     * @return page if able to crawl page
      */
-    List<Meta> getMetas(Document document) {
-        List<Meta> metas = new ArrayList<>();
-        Elements metaElements = document.getElementsByTag("meta");
-        for (Element metaElement : metaElements) {
-            String name = metaElement.attr("name");
-            String content = metaElement.attr("content");
-            if (name != null && content != null && !name.isEmpty() && !content.isEmpty()) {
-                Meta meta = new Meta(name, content);
-                metas.add(meta);
-            }
+    public Page getPage(String link) {
+        FetchResponse response;
+        try {
+            response = fetcher.fetch(link).get();
+        } catch (ExecutionException e) {
+            logFetchFailure(link, e.getCause());
+            throw new ParseLinkException("Fetch exception");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseLinkException("Fetch interrupted");
         }
-        return metas;
+        return parsePage(link, response);
     }
 
     /**
-     * @param document document contain a site contents
-     * @return title of document and empty if there is no title
+     * crawl a site without blocking caller thread
+     * page is fetched by fetcher and parsed inside parser threads
+     *
+     * @param link link of site
+     * @return future of page which completed exceptionally with ParseLinkException if unable to crawl page
      */
-    String getTitle(Document document) {
-        Elements titleElements = document.getElementsByTag("title");
-        if (!titleElements.isEmpty()) {
-            return titleElements.get(0).text();
-        } else {
-            return "";
-        }
+    public CompletableFuture<Page> getPageAsync(String link) {
+        return fetcher.fetch(link).handleAsync((response, throwable) -> {
+            if (throwable != null) {
+                logFetchFailure(link, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                throw new ParseLinkException("Fetch exception");
+            }
+            return parsePage(link, response);
+        }, parserExecutor);
     }
 
     /**
-     * crawl a site and return it's content as a page
+     * parse page by a single pass extractor instead of jsoup dom
      *
-     * @param link link of site
-     * @return page if able to crawl page
+     * @param link     link of site
+     * @param response fetched response of page
+     * @return page if response is a html page which is not rejected by language filter
      */
-    public Page getPage(String link) {
+    private Page parsePage(String link, FetchResponse response) {
+        if (!response.isHtml()) {
+            throw new ParseLinkException("Response is not html");
+        }
+        String html = HtmlExtractor.decode(response.getBody(), response.getCharset());
+        if (languageFilter.isRejected(html, response.getContentLanguage())) {
+            throw new ParseLinkException("Page is not english");
+        }
+        return createPage(link, htmlExtractor.extract(html, response.getUrl()));
+    }
+
+    private Page createPage(String link, HtmlContent htmlContent) {
         try {
-            Optional<Document> documentOptional = getDocument(link);
-            if (!documentOptional.isPresent()) {
-                throw new ParseLinkException("JSoup parse exception");
-            }
-            Document document = documentOptional.get();
-            String pageContentWithoutTag = document.text().replace("\n", " ");
+            String pageContentWithoutTag = htmlContent.getText();
             if (pageContentWithoutTag.isEmpty()) {
                 parserLogger.warn("There is no content for site: {}", link);
-            } else if (isEnglishLanguage(pageContentWithoutTag, projectConfig.getEnglishProbability())) {
-                Set<Anchor> anchors = getAnchors(document);
-                List<Meta> metas = getMetas(document);
-                String title = getTitle(document);
+            } else if (isEnglishLanguage(languageFilter.sample(pageContentWithoutTag), projectConfig.getEnglishProbability())) {
+                String title = htmlContent.getTitle();
                 if (title.isEmpty()) {
                     title = link;
                 }
-                return new Page(link, title, pageContentWithoutTag, anchors, metas, 1.0);
+                return new Page(link, title, pageContentWithoutTag, normalizeAnchors(htmlContent.getAnchors()),
+                        htmlContent.getMetas(), 1.0);
             }
         } catch (MalformedURLException e) {
             appLogger.warn("Unable to reverse link: {}", link);
@@ -163,7 +182,6 @@ public class ParserService {
         throw new ParseLinkException();
     }
 
-
     public boolean isEnglishLanguage(String text, double englishProbability) {
         try {
             Detector detector = DetectorFactory.create();
@@ -0,0 +1,111 @@
+package in.nimbo.common.service.fetcher;
+
+import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.entity.FetchResponse;
+import in.nimbo.common.exception.FetchException;
+import in.nimbo.common.utility.CloseUtility;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * non blocking fetcher based on event driven http client
+ * all requests share a bounded connection pool which also limits connections of each host
+ * responses are checked on headers and their body is streamed with a limited size, see {@link LimitedResponseConsumer}
+ */
+public class AsyncHttpFetcher implements Fetcher {
+    private CloseableHttpAsyncClient client;
+    private ResponseLimits limits;
+
+    private AsyncHttpFetcher(CloseableHttpAsyncClient client, ResponseLimits limits) {
+        this.client = client;
+        this.limits = limits;
+    }
+
+    public static AsyncHttpFetcher createFetcher(ProjectConfig projectConfig) {
+        try {
+            int ioThreads = projectConfig.getFetcherIoThreads() > 0 ?
+                    projectConfig.getFetcherIoThreads() : Runtime.getRuntime().availableProcessors();
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(ioThreads)
+                    .setConnectTimeout(projectConfig.getJsoupTimeout())
+                    .setSoTimeout(projectConfig.getJsoupTimeout())
+                    .build();
+            PoolingNHttpClientConnectionManager connectionManager =
+                    new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+            connectionManager.setMaxTotal(projectConfig.getFetcherMaxConnections());
+            connectionManager.setDefaultMaxPerRoute(projectConfig.getFetcherMaxConnectionsPerHost());
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(projectConfig.getJsoupTimeout())
+                    .setSocketTimeout(projectConfig.getJsoupTimeout())
+                    .setConnectionRequestTimeout(projectConfig.getJsoupTimeout())
+                    .build();
+            CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setUserAgent(projectConfig.getJsoupUserAgent())
+                    .setDefaultHeaders(Collections.singletonList(new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "gzip")))
+                    .build();
+            client.start();
+            return new AsyncHttpFetcher(client, new ResponseLimits(projectConfig));
+        } catch (IOReactorException e) {
+            throw new FetchException("Unable to start http client", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<FetchResponse> fetch(String link) {
+        return fetch(link, false);
+    }
+
+    @Override
+    public CompletableFuture<FetchResponse> fetchResource(String link) {
+        return fetch(link, true);
+    }
+
+    private CompletableFuture<FetchResponse> fetch(String link, boolean anyContentType) {
+        CompletableFuture<FetchResponse> future = new CompletableFuture<>();
+        try {
+            HttpClientContext context = HttpClientContext.create();
+            LimitedResponseConsumer responseConsumer =
+                    new LimitedResponseConsumer(link, context, anyContentType, limits, future);
+            client.execute(HttpAsyncMethods.create(new HttpGet(link)), responseConsumer, context, new FutureCallback<FetchResponse>() {
+                @Override
+                public void completed(FetchResponse response) {
+                    future.complete(response);
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        CloseUtility.closeSafely(client);
+    }
+}
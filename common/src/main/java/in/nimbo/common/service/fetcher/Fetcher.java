@@ -0,0 +1,27 @@
+package in.nimbo.common.service.fetcher;
+
+import in.nimbo.common.entity.FetchResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface Fetcher extends AutoCloseable {
+    /**
+     * fetch a page without blocking caller (if implementation support it)
+     * body of non html responses is not downloaded
+     *
+     * @param link link of site
+     * @return future which completed with response or exceptionally with cause of failure
+     */
+    CompletableFuture<FetchResponse> fetch(String link);
+
+    /**
+     * fetch a resource which body is downloaded with any content type, e.g. robots.txt
+     *
+     * @param link link of resource
+     * @return future which completed with response or exceptionally with cause of failure
+     */
+    CompletableFuture<FetchResponse> fetchResource(String link);
+
+    @Override
+    void close();
+}
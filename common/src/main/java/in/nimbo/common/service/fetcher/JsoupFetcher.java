@@ -0,0 +1,88 @@
+package in.nimbo.common.service.fetcher;
+
+import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.entity.FetchResponse;
+import in.nimbo.common.exception.FetchException;
+import in.nimbo.common.utility.CloseUtility;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * blocking fetcher which send request in caller thread
+ * body of a response is read after its headers are checked and it is truncated by jsoup after maximum body bytes
+ */
+public class JsoupFetcher implements Fetcher {
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private ProjectConfig projectConfig;
+    private ResponseLimits limits;
+
+    public JsoupFetcher(ProjectConfig projectConfig) {
+        this.projectConfig = projectConfig;
+        this.limits = new ResponseLimits(projectConfig);
+    }
+
+    @Override
+    public CompletableFuture<FetchResponse> fetch(String link) {
+        return fetch(link, false);
+    }
+
+    @Override
+    public CompletableFuture<FetchResponse> fetchResource(String link) {
+        return fetch(link, true);
+    }
+
+    private CompletableFuture<FetchResponse> fetch(String link, boolean anyContentType) {
+        CompletableFuture<FetchResponse> future = new CompletableFuture<>();
+        try {
+            Connection.Response response = Jsoup.connect(link)
+                    .userAgent(projectConfig.getJsoupUserAgent())
+                    .timeout(projectConfig.getJsoupTimeout())
+                    .followRedirects(true)
+                    .ignoreContentType(true)
+                    .maxBodySize(limits.getMaxBodyBytes())
+                    .execute();
+            FetchResponse fetchResponse = new FetchResponse(response.url().toString(), response.contentType(),
+                    response.charset(), EMPTY_BODY);
+            fetchResponse.setContentLanguage(response.header("Content-Language"));
+            long contentLength = getContentLength(response);
+            if (!anyContentType && !fetchResponse.isHtml()) {
+                limits.count(ResponseLimits.Rejection.CONTENT_TYPE, contentLength);
+                CloseUtility.closeSafely(response.bodyStream());
+            } else if (!anyContentType && limits.exceedsContentLength(contentLength)) {
+                limits.count(ResponseLimits.Rejection.CONTENT_LENGTH, contentLength);
+                CloseUtility.closeSafely(response.bodyStream());
+                throw new FetchException("Content length is more than limit: " + contentLength);
+            } else {
+                byte[] body = response.bodyAsBytes();
+                if (body.length >= limits.getMaxBodyBytes()) {
+                    limits.count(ResponseLimits.Rejection.TRUNCATED, contentLength - body.length);
+                }
+                fetchResponse.setBody(body);
+            }
+            future.complete(fetchResponse);
+        } catch (IOException | IllegalArgumentException | StringIndexOutOfBoundsException | FetchException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return declared length of body or -1 if it is unknown
+     */
+    private static long getContentLength(Connection.Response response) {
+        try {
+            String contentLength = response.header("Content-Length");
+            return contentLength != null ? Long.parseLong(contentLength.trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
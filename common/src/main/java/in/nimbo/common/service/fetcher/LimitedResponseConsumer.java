@@ -0,0 +1,164 @@
+package in.nimbo.common.service.fetcher;
+
+import in.nimbo.common.entity.FetchResponse;
+import in.nimbo.common.exception.FetchException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.jsoup.HttpStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * response consumer which decides on headers whether body of a response is needed
+ * body is streamed into a buffer which is limited to maximum body bytes and truncated after it
+ * when consumer completes future before end of body, it is marked done and client closes connection
+ * without downloading rest of body
+ */
+class LimitedResponseConsumer extends AbstractAsyncResponseConsumer<FetchResponse> {
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final int READ_BUFFER_SIZE = 8192;
+    private String link;
+    private HttpClientContext context;
+    private boolean anyContentType;
+    private ResponseLimits limits;
+    private CompletableFuture<FetchResponse> future;
+    private FetchResponse fetchResponse;
+    private String contentLanguage;
+    private boolean gzip;
+    private long contentLength;
+    private ByteBuffer readBuffer;
+    private byte[] body;
+    private int size;
+
+    LimitedResponseConsumer(String link, HttpClientContext context, boolean anyContentType,
+                            ResponseLimits limits, CompletableFuture<FetchResponse> future) {
+        this.link = link;
+        this.context = context;
+        this.anyContentType = anyContentType;
+        this.limits = limits;
+        this.future = future;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode < 200 || statusCode >= 400) {
+            completeExceptionally(new HttpStatusException("HTTP error fetching URL", statusCode, getUrl()));
+            return;
+        }
+        Header header = response.getFirstHeader(HttpHeaders.CONTENT_LANGUAGE);
+        contentLanguage = header != null ? header.getValue() : null;
+        header = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        gzip = header != null && header.getValue().trim().equalsIgnoreCase("gzip");
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType defaultContentType) throws IOException {
+        if (isDone()) {
+            return;
+        }
+        ContentType contentType = ContentType.get(entity);
+        fetchResponse = new FetchResponse(getUrl(),
+                entity.getContentType() != null ? entity.getContentType().getValue() : null,
+                contentType != null && contentType.getCharset() != null ? contentType.getCharset().name() : null,
+                EMPTY_BODY);
+        fetchResponse.setContentLanguage(contentLanguage);
+        contentLength = entity.getContentLength();
+        if (!anyContentType && !fetchResponse.isHtml()) {
+            limits.count(ResponseLimits.Rejection.CONTENT_TYPE, contentLength);
+            complete(fetchResponse);
+        } else if (!anyContentType && limits.exceedsContentLength(contentLength)) {
+            limits.count(ResponseLimits.Rejection.CONTENT_LENGTH, contentLength);
+            completeExceptionally(new FetchException("Content length is more than limit: " + contentLength));
+        } else {
+            readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long initialSize = contentLength >= 0 ? contentLength : READ_BUFFER_SIZE;
+            body = new byte[(int) Math.min(limits.getMaxBodyBytes(), initialSize)];
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        if (isDone()) {
+            return;
+        }
+        while (decoder.read(readBuffer) > 0) {
+            readBuffer.flip();
+            int length = Math.min(readBuffer.remaining(), limits.getMaxBodyBytes() - size);
+            if (size + length > body.length) {
+                long newSize = Math.max(size + length, body.length * 2L);
+                body = Arrays.copyOf(body, (int) Math.min(limits.getMaxBodyBytes(), newSize));
+            }
+            readBuffer.get(body, size, length);
+            size += length;
+            readBuffer.clear();
+            if (size >= limits.getMaxBodyBytes()) {
+                limits.count(ResponseLimits.Rejection.TRUNCATED, contentLength - size);
+                complete(buildResponse());
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected FetchResponse buildResult(HttpContext context) {
+        if (fetchResponse == null) {
+            return new FetchResponse(getUrl(), null, null, EMPTY_BODY);
+        }
+        return buildResponse();
+    }
+
+    @Override
+    protected void releaseResources() {
+        readBuffer = null;
+        body = null;
+    }
+
+    private FetchResponse buildResponse() {
+        if (body != null) {
+            if (gzip) {
+                fetchResponse.setBody(limits.gunzip(body, size));
+            } else {
+                fetchResponse.setBody(size == body.length ? body : Arrays.copyOf(body, size));
+            }
+        }
+        return fetchResponse;
+    }
+
+    /**
+     * complete future before end of body, so rest of body is not downloaded
+     */
+    private void complete(FetchResponse response) {
+        future.complete(response);
+        cancel();
+    }
+
+    private void completeExceptionally(Exception e) {
+        future.completeExceptionally(e);
+        cancel();
+    }
+
+    /**
+     * @return last location of redirects or link if request is not redirected
+     */
+    private String getUrl() {
+        List<URI> redirectLocations = context.getRedirectLocations();
+        if (redirectLocations != null && !redirectLocations.isEmpty()) {
+            return redirectLocations.get(redirectLocations.size() - 1).toString();
+        }
+        return link;
+    }
+}
@@ -0,0 +1,87 @@
+package in.nimbo.common.service.fetcher;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.config.ProjectConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * size limits of responses which are shared by fetchers
+ * rejected and truncated responses are counted with bytes which are not downloaded because of them
+ */
+class ResponseLimits {
+    enum Rejection {
+        CONTENT_TYPE("contentType"), CONTENT_LENGTH("contentLength"), TRUNCATED("truncated");
+
+        private String metricName;
+
+        Rejection(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private int maxBodyBytes;
+    private long maxContentLength;
+
+    ResponseLimits(ProjectConfig projectConfig) {
+        this.maxBodyBytes = projectConfig.getFetcherMaxBodyBytes() > 0 ?
+                projectConfig.getFetcherMaxBodyBytes() : Integer.MAX_VALUE - 8;
+        this.maxContentLength = projectConfig.getFetcherMaxContentLength() > 0 ?
+                projectConfig.getFetcherMaxContentLength() : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return maximum number of bytes of a body, bodies are truncated after it
+     */
+    int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * @param contentLength declared length of body or negative if it is unknown
+     * @return true if page must be rejected before its body is read
+     */
+    boolean exceedsContentLength(long contentLength) {
+        return contentLength > maxContentLength;
+    }
+
+    /**
+     * @param rejection reason of rejection
+     * @param savedBytes bytes which are not downloaded, negative if it is unknown
+     */
+    void count(Rejection rejection, long savedBytes) {
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        metricRegistry.counter(MetricRegistry.name(Fetcher.class, rejection.metricName + "Rejections")).inc();
+        if (savedBytes > 0) {
+            metricRegistry.counter(MetricRegistry.name(Fetcher.class, rejection.metricName + "SavedBytes")).inc(savedBytes);
+        }
+    }
+
+    /**
+     * decompress a gzip body which may be truncated
+     *
+     * @param body compressed body
+     * @param length length of compressed body
+     * @return decompressed bytes until end of body or maximum body bytes
+     */
+    byte[] gunzip(byte[] body, int length) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(maxBodyBytes, length * 4L));
+        byte[] buffer = new byte[8192];
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body, 0, length))) {
+            int read = 0;
+            while (output.size() < maxBodyBytes && read >= 0) {
+                read = input.read(buffer, 0, Math.min(buffer.length, maxBodyBytes - output.size()));
+                if (read > 0) {
+                    output.write(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            // body is truncated or corrupted, keep what is decompressed so far
+        }
+        return output.toByteArray();
+    }
+}
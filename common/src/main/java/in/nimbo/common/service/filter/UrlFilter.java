@@ -0,0 +1,252 @@
+package in.nimbo.common.service.filter;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.utility.DomainTrie;
+import in.nimbo.common.utility.UrlParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * rules which reject links that are not worth to be queued and fetched before they reach redis
+ * rules are compiled once and checking a parsed link doesn't allocate
+ * rejections are counted for each rule, so rules can be tuned
+ */
+public class UrlFilter {
+    public enum Rule {
+        EXTENSION("extension"), DOMAIN("domain"), DEPTH("depth"),
+        QUERY("query"), TRAP_PARAMETER("trapParameter"), REPEATED_SEGMENT("repeatedSegment");
+
+        private String counterName;
+
+        Rule(String metricName) {
+            counterName = MetricRegistry.name(UrlFilter.class, metricName + "Rejections");
+        }
+    }
+
+    private TokenSet extensions;
+    private DomainTrie blockedDomains;
+    private TokenSet trapParameters;
+    private int maxDepth;
+    private int maxQueryParameters;
+    private int maxSegmentRepeats;
+
+    public UrlFilter(ProjectConfig projectConfig) {
+        this(projectConfig.getUrlFilterExtensions(), projectConfig.getUrlFilterBlockedDomains(),
+                projectConfig.getUrlFilterTrapParameters(), projectConfig.getUrlFilterMaxDepth(),
+                projectConfig.getUrlFilterMaxQueryParameters(), projectConfig.getUrlFilterMaxSegmentRepeats());
+    }
+
+    /**
+     * @param extensions extensions of files which are not html pages, e.g. jpg
+     * @param blockedDomains domains which they and their subdomains are rejected
+     * @param trapParameters names of query parameters and path segments of session ids and calendars
+     * @param maxDepth maximum number of path segments, zero means unlimited
+     * @param maxQueryParameters maximum number of query parameters, zero means unlimited
+     * @param maxSegmentRepeats maximum number of times a path segment is repeated in path, zero means unlimited
+     */
+    public UrlFilter(Collection<String> extensions, Collection<String> blockedDomains, Collection<String> trapParameters,
+                     int maxDepth, int maxQueryParameters, int maxSegmentRepeats) {
+        this.extensions = new TokenSet(extensions);
+        this.blockedDomains = new DomainTrie(blockedDomains != null ? blockedDomains : Collections.emptyList());
+        this.trapParameters = new TokenSet(trapParameters);
+        this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+        this.maxQueryParameters = maxQueryParameters > 0 ? maxQueryParameters : Integer.MAX_VALUE;
+        this.maxSegmentRepeats = maxSegmentRepeats > 0 ? maxSegmentRepeats : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param parser parser which has parsed a valid link
+     * @return true if link is accepted by all rules, rejected link is counted
+     */
+    public boolean accept(UrlParser parser) {
+        return accept(check(parser));
+    }
+
+    /**
+     * @param parser parser which has parsed a valid link
+     * @return first rule which rejects link or null if link is accepted
+     */
+    public Rule check(UrlParser parser) {
+        CharSequence link = parser.getLink();
+        if (blockedDomains.matches(link, parser.getHostStart(), parser.getHostEnd())) {
+            return Rule.DOMAIN;
+        }
+        int pathStart = parser.getPathStart();
+        int pathEnd = parser.getPathEnd();
+        if (parser.depth() > maxDepth) {
+            return Rule.DEPTH;
+        }
+        if (hasExtension(link, pathStart, pathEnd)) {
+            return Rule.EXTENSION;
+        }
+        if (hasTrapSegment(link, pathStart, pathEnd)) {
+            return Rule.TRAP_PARAMETER;
+        }
+        if (hasRepeatedSegment(link, pathStart, pathEnd)) {
+            return Rule.REPEATED_SEGMENT;
+        }
+        int queryStart = parser.getQueryStart();
+        if (queryStart >= 0) {
+            int queryEnd = parser.getRequestEnd();
+            int parameters = 0;
+            int parameterStart = queryStart;
+            for (int i = queryStart; i <= queryEnd; i++) {
+                if (i == queryEnd || link.charAt(i) == '&' || link.charAt(i) == ';') {
+                    if (i > parameterStart) {
+                        parameters++;
+                        if (trapParameters.contains(link, parameterStart, indexOf(link, '=', parameterStart, i))) {
+                            return Rule.TRAP_PARAMETER;
+                        }
+                    }
+                    parameterStart = i + 1;
+                }
+            }
+            if (parameters > maxQueryParameters) {
+                return Rule.QUERY;
+            }
+        }
+        return null;
+    }
+
+    private boolean accept(Rule rule) {
+        if (rule == null) {
+            return true;
+        }
+        SharedMetricRegistries.getDefault().counter(rule.counterName).inc();
+        return false;
+    }
+
+    /**
+     * @return true if extension of last segment of path is blocked
+     */
+    private boolean hasExtension(CharSequence link, int pathStart, int pathEnd) {
+        int segmentStart = lastIndexOf(link, '/', pathStart, pathEnd) + 1;
+        int segmentEnd = indexOf(link, ';', segmentStart, pathEnd);
+        int dot = lastIndexOf(link, '.', segmentStart, segmentEnd);
+        return dot >= segmentStart && extensions.contains(link, dot + 1, segmentEnd);
+    }
+
+    /**
+     * @return true if name of a segment or a path parameter like ;jsessionid=... is a trap parameter
+     */
+    private boolean hasTrapSegment(CharSequence link, int pathStart, int pathEnd) {
+        int partStart = pathStart;
+        for (int i = pathStart; i <= pathEnd; i++) {
+            if (i == pathEnd || link.charAt(i) == '/' || link.charAt(i) == ';') {
+                if (trapParameters.contains(link, partStart, indexOf(link, '=', partStart, i))) {
+                    return true;
+                }
+                partStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a non empty segment is repeated in path more than maximum segment repeats, e.g. /a/b/a/b/a/b
+     */
+    private boolean hasRepeatedSegment(CharSequence link, int pathStart, int pathEnd) {
+        if (maxSegmentRepeats == Integer.MAX_VALUE) {
+            return false;
+        }
+        for (int start = pathStart + 1; start < pathEnd; ) {
+            int end = indexOf(link, '/', start, pathEnd);
+            if (end > start) {
+                int repeats = 1;
+                for (int other = end + 1; other < pathEnd; ) {
+                    int otherEnd = indexOf(link, '/', other, pathEnd);
+                    if (regionEquals(link, start, end, other, otherEnd) && ++repeats > maxSegmentRepeats) {
+                        return true;
+                    }
+                    other = otherEnd + 1;
+                }
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(CharSequence link, int start, int end, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (link.charAt(start + i) != link.charAt(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index of c in link[from, to) or to if it is not found
+     */
+    private static int indexOf(CharSequence link, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (link.charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return index of c in link[from, to) or from - 1 if it is not found
+     */
+    private static int lastIndexOf(CharSequence link, char c, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (link.charAt(i) == c) {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    /**
+     * case insensitive set of short tokens which are grouped by their length
+     */
+    private static class TokenSet {
+        private char[][][] tokensByLength;
+
+        TokenSet(Collection<String> tokens) {
+            List<List<char[]>> groups = new ArrayList<>();
+            if (tokens != null) {
+                for (String token : tokens) {
+                    String lowerCaseToken = token.trim().toLowerCase();
+                    if (!lowerCaseToken.isEmpty()) {
+                        while (groups.size() <= lowerCaseToken.length()) {
+                            groups.add(new ArrayList<>());
+                        }
+                        groups.get(lowerCaseToken.length()).add(lowerCaseToken.toCharArray());
+                    }
+                }
+            }
+            tokensByLength = new char[groups.size()][][];
+            for (int i = 0; i < groups.size(); i++) {
+                tokensByLength[i] = groups.get(i).toArray(new char[0][]);
+            }
+        }
+
+        boolean contains(CharSequence text, int start, int end) {
+            int length = end - start;
+            if (length <= 0 || length >= tokensByLength.length) {
+                return false;
+            }
+            for (char[] token : tokensByLength[length]) {
+                int i = 0;
+                while (i < length && token[i] == Character.toLowerCase(text.charAt(start + i))) {
+                    i++;
+                }
+                if (i == length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
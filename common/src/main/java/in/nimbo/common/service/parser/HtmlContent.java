@@ -0,0 +1,40 @@
+package in.nimbo.common.service.parser;
+
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Meta;
+
+import java.util.List;
+
+/**
+ * parts of a html page which are extracted by {@link HtmlExtractor}
+ * href of anchors is absolute but it is not normalized
+ */
+public class HtmlContent {
+    private String text;
+    private String title;
+    private List<Anchor> anchors;
+    private List<Meta> metas;
+
+    public HtmlContent(String text, String title, List<Anchor> anchors, List<Meta> metas) {
+        this.text = text;
+        this.title = title;
+        this.anchors = anchors;
+        this.metas = metas;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<Anchor> getAnchors() {
+        return anchors;
+    }
+
+    public List<Meta> getMetas() {
+        return metas;
+    }
+}
@@ -0,0 +1,402 @@
+package in.nimbo.common.service.parser;
+
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Meta;
+import org.jsoup.parser.Parser;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * single pass extractor of text, title, anchors and metas of a html page without building a dom tree
+ * text is normalized like text of jsoup: white spaces are collapsed and block tags are separated by a space
+ * content of script and style is skipped and extraction stops when both content and anchors limits are reached
+ * extractor is stateless and thread safe
+ */
+public class HtmlExtractor {
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "html", "head", "body", "frameset", "script", "noscript", "style", "meta", "link", "title", "frame",
+            "noframes", "section", "nav", "aside", "hgroup", "header", "footer", "p", "h1", "h2", "h3", "h4", "h5",
+            "h6", "ul", "ol", "pre", "div", "blockquote", "hr", "address", "figure", "figcaption", "form", "fieldset",
+            "ins", "del", "dl", "dt", "dd", "li", "table", "caption", "thead", "tfoot", "tbody", "colgroup", "col",
+            "tr", "th", "td", "video", "audio", "canvas", "details", "menu", "plaintext", "template", "article",
+            "main", "svg", "math", "center", "br"));
+    private static final Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList("script", "style"));
+    private static final Set<String> TEXT_ONLY_TAGS = new HashSet<>(Arrays.asList("title", "textarea"));
+    private static final Pattern META_CHARSET_PATTERN =
+            Pattern.compile("<meta[^>]*charset\\s*=\\s*[\"']?\\s*([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+    private static final int CHARSET_SNIFF_LENGTH = 5000;
+    private static final int MAX_ANCHOR_TEXT_LENGTH = 1000;
+
+    private int maxContentLength;
+    private int maxAnchors;
+
+    /**
+     * @param maxContentLength maximum number of characters of text, zero means unlimited
+     * @param maxAnchors maximum number of anchors, zero means unlimited
+     */
+    public HtmlExtractor(int maxContentLength, int maxAnchors) {
+        this.maxContentLength = maxContentLength > 0 ? maxContentLength : Integer.MAX_VALUE;
+        this.maxAnchors = maxAnchors > 0 ? maxAnchors : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param html html of page
+     * @param baseUrl url of page which relative links are resolved against it
+     * @return text, title, anchors and metas of page
+     */
+    public HtmlContent extract(String html, String baseUrl) {
+        return new Extraction(html, baseUrl).run();
+    }
+
+    /**
+     * decode body of a response with its charset, byte order mark or charset of its meta tag, default is utf-8
+     *
+     * @param body body of response
+     * @param charsetName charset of response header which may be null
+     * @return decoded html
+     */
+    public static String decode(byte[] body, String charsetName) {
+        Charset charset = getCharset(charsetName);
+        int offset = 0;
+        if (body.length >= 3 && (body[0] & 0xFF) == 0xEF && (body[1] & 0xFF) == 0xBB && (body[2] & 0xFF) == 0xBF) {
+            charset = StandardCharsets.UTF_8;
+            offset = 3;
+        }
+        if (charset == null) {
+            String head = new String(body, 0, Math.min(body.length, CHARSET_SNIFF_LENGTH), StandardCharsets.ISO_8859_1);
+            Matcher matcher = META_CHARSET_PATTERN.matcher(head);
+            if (matcher.find()) {
+                charset = getCharset(matcher.group(1));
+            }
+        }
+        if (charset == null) {
+            charset = StandardCharsets.UTF_8;
+        }
+        return new String(body, offset, body.length - offset, charset);
+    }
+
+    private static Charset getCharset(String charsetName) {
+        if (charsetName == null || charsetName.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Charset.forName(charsetName.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * resolve a link against base url like absUrl of jsoup
+     *
+     * @return absolute link or empty string if it is not a valid link
+     */
+    static String resolve(String baseUrl, String relativeUrl) {
+        try {
+            URL base;
+            try {
+                base = new URL(baseUrl);
+            } catch (MalformedURLException e) {
+                return new URL(relativeUrl).toExternalForm();
+            }
+            if (relativeUrl.startsWith("?")) {
+                relativeUrl = base.getPath() + relativeUrl;
+            }
+            if (relativeUrl.indexOf('.') == 0 && base.getFile().indexOf('/') != 0) {
+                base = new URL(base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+            }
+            return new URL(base, relativeUrl).toExternalForm();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 160;
+    }
+
+    private static boolean isInvisible(char c) {
+        return c == 8203 || c == 173;
+    }
+
+    private static int indexOfIgnoreCase(String text, String target, int from) {
+        int last = text.length() - target.length();
+        for (int i = from; i <= last; i++) {
+            if (text.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String trimEnd(StringBuilder builder) {
+        int end = builder.length();
+        while (end > 0 && builder.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return builder.substring(0, end);
+    }
+
+    /**
+     * state of extraction of one page
+     */
+    private class Extraction {
+        private String html;
+        private int length;
+        private int position;
+        private String baseUrl;
+        private boolean baseFound;
+
+        private StringBuilder text = new StringBuilder();
+        private boolean textFull;
+        private String title;
+        private StringBuilder titleText;
+        private String anchorHref;
+        private StringBuilder anchorText;
+        private List<Anchor> anchors = new ArrayList<>();
+        private List<Meta> metas = new ArrayList<>();
+
+        private Extraction(String html, String baseUrl) {
+            this.html = html;
+            this.length = html.length();
+            this.baseUrl = baseUrl;
+        }
+
+        private HtmlContent run() {
+            while (position < length && !(textFull && anchors.size() >= maxAnchors)) {
+                int tagStart = html.indexOf('<', position);
+                if (tagStart < 0) {
+                    tagStart = length;
+                }
+                if (tagStart > position) {
+                    appendText(position, tagStart);
+                }
+                position = tagStart;
+                if (position >= length) {
+                    break;
+                }
+                char next = position + 1 < length ? html.charAt(position + 1) : 0;
+                if (html.startsWith("<!--", position)) {
+                    position = skipAfter("-->", position + 4);
+                } else if (next == '!' || next == '?') {
+                    position = skipAfter(">", position + 2);
+                } else if (next == '/') {
+                    readEndTag();
+                } else if (Character.isLetter(next)) {
+                    readStartTag();
+                } else {
+                    appendText(position, position + 1);
+                    position++;
+                }
+            }
+            closeAnchor();
+            return new HtmlContent(trimEnd(text), title == null ? "" : title, anchors, metas);
+        }
+
+        private int skipAfter(String target, int from) {
+            int index = html.indexOf(target, from);
+            return index < 0 ? length : index + target.length();
+        }
+
+        private void readStartTag() {
+            int nameStart = position + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < length && !isWhitespace(html.charAt(nameEnd))
+                    && html.charAt(nameEnd) != '/' && html.charAt(nameEnd) != '>') {
+                nameEnd++;
+            }
+            String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+            position = nameEnd;
+            boolean keepAttributes = name.equals("a") || name.equals("meta") || name.equals("base");
+            Map<String, String> attributes = readAttributes(keepAttributes);
+
+            if (BLOCK_TAGS.contains(name)) {
+                appendSpace();
+            }
+            switch (name) {
+                case "a":
+                    closeAnchor();
+                    String href = attributes.get("href");
+                    if (href != null && anchors.size() < maxAnchors) {
+                        anchorHref = href;
+                        anchorText = new StringBuilder();
+                    }
+                    break;
+                case "meta":
+                    String metaName = attributes.get("name");
+                    String metaContent = attributes.get("content");
+                    if (metaName != null && metaContent != null && !metaName.isEmpty() && !metaContent.isEmpty()) {
+                        metas.add(new Meta(metaName, metaContent));
+                    }
+                    break;
+                case "base":
+                    String baseHref = attributes.get("href");
+                    if (!baseFound && baseHref != null && !baseHref.isEmpty()) {
+                        String resolvedBase = resolve(baseUrl, baseHref);
+                        if (!resolvedBase.isEmpty()) {
+                            baseUrl = resolvedBase;
+                        }
+                        baseFound = true;
+                    }
+                    break;
+                default:
+                    if (RAW_TEXT_TAGS.contains(name)) {
+                        int end = indexOfIgnoreCase(html, "</" + name, position);
+                        position = end < 0 ? length : skipAfter(">", end);
+                    } else if (TEXT_ONLY_TAGS.contains(name)) {
+                        int end = indexOfIgnoreCase(html, "</" + name, position);
+                        int textEnd = end < 0 ? length : end;
+                        if (name.equals("title") && title == null) {
+                            titleText = new StringBuilder();
+                            appendText(position, textEnd);
+                            title = trimEnd(titleText);
+                            titleText = null;
+                        } else {
+                            appendText(position, textEnd);
+                        }
+                        position = end < 0 ? length : skipAfter(">", end);
+                        appendSpace();
+                    }
+            }
+        }
+
+        /**
+         * read attributes of current tag until end of it
+         *
+         * @param keep keep attributes with lower case names, first one of duplicate attributes is kept
+         * @return attributes of tag or empty map if they are not kept
+         */
+        private Map<String, String> readAttributes(boolean keep) {
+            Map<String, String> attributes = keep ? new HashMap<>() : Collections.emptyMap();
+            while (position < length) {
+                char c = html.charAt(position);
+                if (c == '>') {
+                    position++;
+                    return attributes;
+                }
+                if (isWhitespace(c) || c == '/') {
+                    position++;
+                    continue;
+                }
+                int nameStart = position;
+                while (position < length && !isWhitespace(html.charAt(position))
+                        && html.charAt(position) != '=' && html.charAt(position) != '>') {
+                    position++;
+                }
+                int nameEnd = position;
+                if (nameEnd == nameStart) {
+                    position++;
+                    continue;
+                }
+                while (position < length && isWhitespace(html.charAt(position))) {
+                    position++;
+                }
+                String value = "";
+                if (position < length && html.charAt(position) == '=') {
+                    position++;
+                    while (position < length && isWhitespace(html.charAt(position))) {
+                        position++;
+                    }
+                    if (position < length && (html.charAt(position) == '"' || html.charAt(position) == '\'')) {
+                        int end = html.indexOf(html.charAt(position), position + 1);
+                        int valueEnd = end < 0 ? length : end;
+                        value = html.substring(position + 1, valueEnd);
+                        position = end < 0 ? length : end + 1;
+                    } else {
+                        int valueStart = position;
+                        while (position < length && !isWhitespace(html.charAt(position)) && html.charAt(position) != '>') {
+                            position++;
+                        }
+                        value = html.substring(valueStart, position);
+                    }
+                }
+                if (keep) {
+                    String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+                    if (!attributes.containsKey(name)) {
+                        attributes.put(name, value.indexOf('&') >= 0 ? Parser.unescapeEntities(value, true) : value);
+                    }
+                }
+            }
+            return attributes;
+        }
+
+        private void readEndTag() {
+            int nameStart = position + 2;
+            int nameEnd = nameStart;
+            while (nameEnd < length && !isWhitespace(html.charAt(nameEnd)) && html.charAt(nameEnd) != '>') {
+                nameEnd++;
+            }
+            String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+            position = skipAfter(">", nameEnd);
+            if (name.equals("a")) {
+                closeAnchor();
+            } else if (BLOCK_TAGS.contains(name)) {
+                appendSpace();
+            }
+        }
+
+        private void closeAnchor() {
+            if (anchorText != null) {
+                anchors.add(new Anchor(resolve(baseUrl, anchorHref), trimEnd(anchorText)));
+                anchorText = null;
+                anchorHref = null;
+            }
+        }
+
+        private void appendText(int from, int to) {
+            if (textFull && anchorText == null && titleText == null) {
+                return;
+            }
+            int ampersand = html.indexOf('&', from);
+            if (ampersand >= 0 && ampersand < to) {
+                String decoded = Parser.unescapeEntities(html.substring(from, to), false);
+                for (int i = 0; i < decoded.length(); i++) {
+                    appendChar(decoded.charAt(i));
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    appendChar(html.charAt(i));
+                }
+            }
+        }
+
+        private void appendChar(char c) {
+            if (isWhitespace(c)) {
+                appendSpace();
+            } else if (!isInvisible(c)) {
+                if (!textFull) {
+                    text.append(c);
+                    textFull = text.length() >= maxContentLength;
+                }
+                if (anchorText != null && anchorText.length() < MAX_ANCHOR_TEXT_LENGTH) {
+                    anchorText.append(c);
+                }
+                if (titleText != null) {
+                    titleText.append(c);
+                }
+            }
+        }
+
+        /**
+         * append a space to builders which are not empty and don't end with a space
+         */
+        private void appendSpace() {
+            if (!textFull && text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+                text.append(' ');
+                textFull = text.length() >= maxContentLength;
+            }
+            if (anchorText != null && anchorText.length() > 0 && anchorText.charAt(anchorText.length() - 1) != ' ') {
+                anchorText.append(' ');
+            }
+            if (titleText != null && titleText.length() > 0 && titleText.charAt(titleText.length() - 1) != ' ') {
+                titleText.append(' ');
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package in.nimbo.common.service.parser;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * cheap checks which reject non english pages before they are parsed
+ * declared language of page and share of non latin letters in head of html are checked first
+ * and language detector only reads a bounded sample of text of remaining pages
+ */
+public class LanguageFilter {
+    private static final Pattern HTML_LANG_PATTERN =
+            Pattern.compile("<html\\b[^>]*?\\blang\\s*=\\s*[\"']?\\s*([a-zA-Z_-]+)", Pattern.CASE_INSENSITIVE);
+    private static final int HTML_LANG_SEARCH_LENGTH = 1024;
+    private static final int MIN_LETTERS = 50;
+    private int prefilterLength;
+    private double maxNonLatinRatio;
+    private int sampleLength;
+
+    /**
+     * @param prefilterLength number of characters of html which are checked for non latin letters, zero disables check
+     * @param maxNonLatinRatio maximum share of non latin letters in checked characters
+     * @param sampleLength maximum number of characters of text which are passed to language detector, zero means unlimited
+     */
+    public LanguageFilter(int prefilterLength, double maxNonLatinRatio, int sampleLength) {
+        this.prefilterLength = prefilterLength;
+        this.maxNonLatinRatio = maxNonLatinRatio;
+        this.sampleLength = sampleLength > 0 ? sampleLength : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param html html of page
+     * @param contentLanguage content language header of response which may be null
+     * @return true if page is not english for sure
+     */
+    public boolean isRejected(String html, String contentLanguage) {
+        if (isOtherLanguage(contentLanguage)) {
+            return true;
+        }
+        Matcher matcher = HTML_LANG_PATTERN.matcher(html)
+                .region(0, Math.min(html.length(), Math.max(prefilterLength, HTML_LANG_SEARCH_LENGTH)));
+        if (matcher.find() && isOtherLanguage(matcher.group(1))) {
+            return true;
+        }
+        return prefilterLength > 0 && hasNonLatinText(html, Math.min(html.length(), prefilterLength));
+    }
+
+    /**
+     * @param text text of page
+     * @return beginning of text which is enough for language detector, cut at a whitespace
+     */
+    public String sample(String text) {
+        if (text.length() <= sampleLength) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', sampleLength);
+        return text.substring(0, end > 0 ? end : sampleLength);
+    }
+
+    /**
+     * @param languages comma separated language tags like "fa-IR, en"
+     * @return true if at least one language is declared and none of them is english
+     */
+    static boolean isOtherLanguage(String languages) {
+        if (languages == null) {
+            return false;
+        }
+        boolean declared = false;
+        for (String language : languages.split(",")) {
+            String tag = language.trim();
+            int end = 0;
+            while (end < tag.length() && Character.isLetter(tag.charAt(end))) {
+                end++;
+            }
+            if (end > 0) {
+                if (tag.regionMatches(true, 0, "en", 0, 2) && end == 2) {
+                    return false;
+                }
+                declared = true;
+            }
+        }
+        return declared;
+    }
+
+    /**
+     * count latin and non latin letters outside of tags, scripts and styles
+     *
+     * @return true if enough letters are seen and share of non latin letters is more than maximum
+     */
+    private boolean hasNonLatinText(String html, int length) {
+        int letters = 0;
+        int nonLatinLetters = 0;
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int end = skipTag(html, i, length);
+                if (end < 0) {
+                    break;
+                }
+                i = end;
+            } else {
+                if (Character.isLetter(c)) {
+                    letters++;
+                    if (!isLatin(c)) {
+                        nonLatinLetters++;
+                    }
+                }
+                i++;
+            }
+        }
+        return letters >= MIN_LETTERS && nonLatinLetters > letters * maxNonLatinRatio;
+    }
+
+    /**
+     * @return index after tag, or after end tag of script and style, or -1 if tag is not closed before length
+     */
+    private static int skipTag(String html, int start, int length) {
+        int end = html.indexOf('>', start);
+        if (end < 0 || end >= length) {
+            return -1;
+        }
+        String rawTextTag = html.regionMatches(true, start + 1, "script", 0, 6) ? "</script" :
+                html.regionMatches(true, start + 1, "style", 0, 5) ? "</style" : null;
+        if (rawTextTag != null && html.charAt(end - 1) != '/') {
+            int close = indexOfIgnoreCase(html, rawTextTag, end, length);
+            if (close < 0) {
+                return -1;
+            }
+            end = html.indexOf('>', close);
+            if (end < 0 || end >= length) {
+                return -1;
+            }
+        }
+        return end + 1;
+    }
+
+    private static int indexOfIgnoreCase(String text, String target, int from, int length) {
+        for (int i = from; i + target.length() <= length; i++) {
+            if (text.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLatin(char c) {
+        return c < 0x0250 || Character.UnicodeScript.of(c) == Character.UnicodeScript.LATIN;
+    }
+}
@@ -0,0 +1,253 @@
+package in.nimbo.common.service.robots;
+
+import in.nimbo.common.utility.UrlParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compiled rules of a robots.txt for one user agent (https://tools.ietf.org/html/draft-koster-rep)
+ * rules are sorted by length of pattern so the first matched rule is the most specific one
+ * and allow wins when an allow and a disallow rule have same length
+ * rules are immutable and thread safe
+ */
+public final class RobotsRules {
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.emptyList(), 0, false);
+    private static final int MAX_SIZE = 512 * 1024;
+    private static final long DEFAULT_MAX_CRAWL_DELAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final Rule[] rules;
+    private final long crawlDelayMillis;
+    private final boolean temporary;
+
+    private static final class Rule {
+        private final char[] pattern;
+        private final boolean allow;
+        private final boolean endAnchor;
+        private final boolean wildcard;
+
+        private Rule(String value, boolean allow) {
+            this.allow = allow;
+            endAnchor = value.endsWith("$");
+            pattern = (endAnchor ? value.substring(0, value.length() - 1) : value).toCharArray();
+            wildcard = value.indexOf('*') >= 0;
+        }
+
+        private boolean matches(CharSequence text, int from, int to) {
+            if (!wildcard) {
+                int length = to - from;
+                if (length < pattern.length || (endAnchor && length != pattern.length)) {
+                    return false;
+                }
+                for (int i = 0; i < pattern.length; i++) {
+                    if (pattern[i] != text.charAt(from + i)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            int p = 0;
+            int t = from;
+            int starP = -1;
+            int starT = -1;
+            while (t < to) {
+                if (p == pattern.length && !endAnchor) {
+                    return true;
+                } else if (p < pattern.length && pattern[p] == '*') {
+                    starP = p++;
+                    starT = t;
+                } else if (p < pattern.length && pattern[p] == text.charAt(t)) {
+                    p++;
+                    t++;
+                } else if (starP >= 0) {
+                    p = starP + 1;
+                    t = ++starT;
+                } else {
+                    return false;
+                }
+            }
+            while (p < pattern.length && pattern[p] == '*') {
+                p++;
+            }
+            return p == pattern.length;
+        }
+    }
+
+    private RobotsRules(List<Rule> rules, long crawlDelayMillis, boolean temporary) {
+        this.rules = rules.toArray(new Rule[0]);
+        this.crawlDelayMillis = crawlDelayMillis;
+        this.temporary = temporary;
+        Arrays.sort(this.rules, (a, b) -> a.pattern.length != b.pattern.length
+                ? Integer.compare(b.pattern.length, a.pattern.length)
+                : Boolean.compare(b.allow, a.allow));
+    }
+
+    /**
+     * rules which are used until robots.txt of host is fetched again
+     * @param allow true if all paths are allowed
+     */
+    public static RobotsRules temporary(boolean allow) {
+        List<Rule> rules = new ArrayList<>();
+        if (!allow) {
+            rules.add(new Rule("/", false));
+        }
+        return new RobotsRules(rules, 0, true);
+    }
+
+    /**
+     * parse robots.txt and compile rules of group of user agent or group of "*" if there is no such group.
+     * user agent of a group matches if its product token is equal to user agent ignoring case.
+     * only first MAX_SIZE characters of content are parsed
+     * @param content content of robots.txt
+     * @param userAgent product token of crawler, e.g. keenbo
+     * @return compiled rules with a crawl delay of at most one day
+     */
+    public static RobotsRules parse(String content, String userAgent) {
+        return parse(content, userAgent, DEFAULT_MAX_CRAWL_DELAY_MILLIS);
+    }
+
+    /**
+     * @param content content of robots.txt
+     * @param userAgent product token of crawler, e.g. keenbo
+     * @param maxCrawlDelayMillis larger crawl delays are clamped to it, invalid and infinite delays are ignored
+     * @return compiled rules
+     * @see #parse(String, String)
+     */
+    public static RobotsRules parse(String content, String userAgent, long maxCrawlDelayMillis) {
+        List<Rule> specificRules = new ArrayList<>();
+        List<Rule> genericRules = new ArrayList<>();
+        double specificDelay = 0;
+        double genericDelay = 0;
+        boolean specificFound = false;
+        boolean inSpecificGroup = false;
+        boolean inGenericGroup = false;
+        boolean lastWasAgent = false;
+        int length = Math.min(content.length(), MAX_SIZE);
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && content.charAt(lineEnd) != '\n' && content.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            String line = content.substring(lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            int comment = line.indexOf('#');
+            int colon = line.indexOf(':');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            if (colon < 0 || colon >= line.length()) {
+                continue;
+            }
+            String key = line.substring(0, colon).trim().toLowerCase();
+            String value = line.substring(colon + 1).trim();
+            switch (key) {
+                case "user-agent":
+                    if (!lastWasAgent) {
+                        inSpecificGroup = false;
+                        inGenericGroup = false;
+                    }
+                    lastWasAgent = true;
+                    if (value.equals("*")) {
+                        inGenericGroup = true;
+                    } else if (productToken(value).equalsIgnoreCase(userAgent)) {
+                        inSpecificGroup = true;
+                        specificFound = true;
+                    }
+                    break;
+                case "allow":
+                case "disallow":
+                    lastWasAgent = false;
+                    if (!value.isEmpty()) {
+                        Rule rule = new Rule(value, key.equals("allow"));
+                        if (inSpecificGroup) {
+                            specificRules.add(rule);
+                        }
+                        if (inGenericGroup) {
+                            genericRules.add(rule);
+                        }
+                    }
+                    break;
+                case "crawl-delay":
+                    lastWasAgent = false;
+                    double delay = parseDelay(value, maxCrawlDelayMillis / 1000.0);
+                    if (inSpecificGroup) {
+                        specificDelay = delay;
+                    }
+                    if (inGenericGroup) {
+                        genericDelay = delay;
+                    }
+                    break;
+                default:
+                    lastWasAgent = false;
+            }
+        }
+        return specificFound ? new RobotsRules(specificRules, (long) (specificDelay * 1000), false)
+                : new RobotsRules(genericRules, (long) (genericDelay * 1000), false);
+    }
+
+    /**
+     * @param link absolute url
+     * @return true if path and query of link are allowed, invalid links are not allowed
+     */
+    public boolean isAllowed(String link) {
+        UrlParser parser = UrlParser.local();
+        return parser.parse(link) && isAllowed(link, parser.getPathStart(), parser.getRequestEnd());
+    }
+
+    /**
+     * @param text text which contains path and query of a url in [from, to), empty path is considered as "/"
+     * @return true if most specific matched rule is an allow rule or no rule is matched
+     */
+    public boolean isAllowed(CharSequence text, int from, int to) {
+        if (rules.length == 0) {
+            return true;
+        }
+        if (from == to || text.charAt(from) != '/') {
+            return isAllowed("/" + text.subSequence(from, to), 0, to - from + 1);
+        }
+        for (Rule rule : rules) {
+            if (rule.matches(text, from, to)) {
+                return rule.allow;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return crawl delay of host in milliseconds or zero if it is not specified
+     */
+    public long getCrawlDelayMillis() {
+        return crawlDelayMillis;
+    }
+
+    /**
+     * @return true if rules are result of a failed fetch and must be fetched sooner
+     */
+    public boolean isTemporary() {
+        return temporary;
+    }
+
+    private static String productToken(String value) {
+        int end = 0;
+        while (end < value.length() && value.charAt(end) != '/' && !Character.isWhitespace(value.charAt(end))) {
+            end++;
+        }
+        return value.substring(0, end);
+    }
+
+    /**
+     * @return delay in seconds which is at most max delay, or zero if value is not a finite non negative number
+     */
+    private static double parseDelay(String value, double maxDelay) {
+        try {
+            double delay = Double.parseDouble(value);
+            return !Double.isFinite(delay) || delay < 0 ? 0 : Math.min(delay, maxDelay);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
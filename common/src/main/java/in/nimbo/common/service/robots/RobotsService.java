@@ -0,0 +1,126 @@
+package in.nimbo.common.service.robots;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.entity.FetchResponse;
+import in.nimbo.common.service.fetcher.Fetcher;
+import in.nimbo.common.utility.UrlParser;
+import org.jsoup.HttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fetch robots.txt of each host once and keep its compiled rules in a cache
+ * key of cache is origin of links (scheme, host and port) because robots.txt is valid only for its origin
+ * robots.txt which is not found (4xx) allows all paths, a server error (5xx) disallows all paths
+ * and a network failure allows all paths, result of failures are kept for a shorter time
+ * checks never block caller, rules of a host are fetched in background at first check
+ */
+public class RobotsService {
+    private static final String ROBOTS_PATH = "/robots.txt";
+    private Logger appLogger = LoggerFactory.getLogger("crawler");
+    private ProjectConfig projectConfig;
+    private Fetcher fetcher;
+    private AsyncLoadingCache<String, RobotsRules> rulesCache;
+    private Counter fetchCounter;
+    private Counter failedFetchCounter;
+
+    public RobotsService(ProjectConfig projectConfig, Fetcher fetcher) {
+        this.projectConfig = projectConfig;
+        this.fetcher = fetcher;
+        long expireNanos = TimeUnit.HOURS.toNanos(projectConfig.getRobotsExpireHours());
+        long errorExpireNanos = TimeUnit.MINUTES.toNanos(projectConfig.getRobotsErrorExpireMinutes());
+        rulesCache = Caffeine.newBuilder()
+                .maximumSize(projectConfig.getRobotsCacheMaxSize())
+                .expireAfter(new Expiry<String, RobotsRules>() {
+                    @Override
+                    public long expireAfterCreate(String origin, RobotsRules rules, long currentTime) {
+                        return rules.isTemporary() ? errorExpireNanos : expireNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String origin, RobotsRules rules, long currentTime, long currentDuration) {
+                        return expireAfterCreate(origin, rules, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String origin, RobotsRules rules, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync((origin, executor) -> fetchRules(origin));
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        fetchCounter = metricRegistry.counter(MetricRegistry.name(RobotsService.class, "fetchCounter"));
+        failedFetchCounter = metricRegistry.counter(MetricRegistry.name(RobotsService.class, "failedFetchCounter"));
+        metricRegistry.gauge(MetricRegistry.name(RobotsService.class, "cachedHosts"),
+                () -> (Gauge<Long>) () -> rulesCache.synchronous().estimatedSize());
+    }
+
+    /**
+     * find rules of host of link without blocking caller
+     * if rules of host are not cached, robots.txt of host is fetched in background
+     *
+     * @param link normalized link
+     * @return rules of host of link or empty if robots.txt of host is being fetched.
+     * if robots is disabled or link is invalid, rules which allow all paths are returned
+     */
+    public Optional<RobotsRules> getRules(String link) {
+        if (!projectConfig.isRobotsEnabled()) {
+            return Optional.of(RobotsRules.ALLOW_ALL);
+        }
+        UrlParser parser = UrlParser.local();
+        if (!parser.parse(link)) {
+            return Optional.of(RobotsRules.ALLOW_ALL);
+        }
+        CompletableFuture<RobotsRules> rules = rulesCache.get(parser.getOrigin());
+        if (rules.isDone()) {
+            return Optional.of(rules.join());
+        }
+        return Optional.empty();
+    }
+
+    private CompletableFuture<RobotsRules> fetchRules(String origin) {
+        fetchCounter.inc();
+        CompletableFuture<FetchResponse> response;
+        try {
+            response = fetcher.fetchResource(origin + ROBOTS_PATH);
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        return response.handle((fetchResponse, e) -> {
+            if (e == null) {
+                return RobotsRules.parse(new String(fetchResponse.getBody(), StandardCharsets.UTF_8),
+                        projectConfig.getRobotsUserAgent(), TimeUnit.SECONDS.toMillis(projectConfig.getRobotsMaxCrawlDelay()));
+            }
+            return failureRules(origin, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        });
+    }
+
+    private RobotsRules failureRules(String origin, Throwable e) {
+        if (e instanceof HttpStatusException) {
+            int statusCode = ((HttpStatusException) e).getStatusCode();
+            if (statusCode >= 400 && statusCode < 500 && statusCode != 429) {
+                return RobotsRules.ALLOW_ALL;
+            }
+            failedFetchCounter.inc();
+            appLogger.warn("Unable to fetch robots.txt of {} with status {}", origin, statusCode);
+            return RobotsRules.temporary(false);
+        }
+        failedFetchCounter.inc();
+        appLogger.warn("Unable to fetch robots.txt of {}: {}", origin, e.getMessage());
+        return RobotsRules.temporary(true);
+    }
+}
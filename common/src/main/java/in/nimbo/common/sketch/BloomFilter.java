@@ -0,0 +1,160 @@
+package in.nimbo.common.sketch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * thread safe bloom filter with fixed capacity
+ * bits of filter are set with compare and swap, so readers and writers are never blocked
+ */
+public class BloomFilter {
+    private static final double LN2 = Math.log(2);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECOND_SEED = 0x9E3779B97F4A7C15L;
+
+    private AtomicLongArray bits;
+    private long bitSize;
+    private int hashFunctions;
+    private long capacity;
+    private AtomicLong count;
+
+    /**
+     * @param capacity expected number of inserted items
+     * @param fpp false positive probability when capacity items are inserted
+     */
+    public BloomFilter(long capacity, double fpp) {
+        if (capacity <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("illegal bloom filter capacity or false positive probability");
+        }
+        this.capacity = capacity;
+        long words = (optimalBits(capacity, fpp) + 63) / 64;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bloom filter is too large: " + capacity);
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitSize = words * 64;
+        this.hashFunctions = optimalHashFunctions(capacity, bitSize);
+        this.count = new AtomicLong();
+    }
+
+    public static long optimalBits(long capacity, double fpp) {
+        return Math.max(64, (long) Math.ceil(-capacity * Math.log(fpp) / (LN2 * LN2)));
+    }
+
+    public static int optimalHashFunctions(long capacity, long bits) {
+        return Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+    }
+
+    /**
+     * @return size of filter in bytes for given capacity and false positive probability
+     */
+    public static long sizeInBytes(long capacity, double fpp) {
+        return (optimalBits(capacity, fpp) + 63) / 64 * 8;
+    }
+
+    /**
+     * @return true if any bit is changed which means key was not inserted before
+     */
+    public boolean put(CharSequence key) {
+        long firstHash = hash(key);
+        return put(firstHash, secondHash(firstHash));
+    }
+
+    /**
+     * insert a key which is already hashed to 128 bits
+     * @return true if any bit is changed which means key was not inserted before
+     */
+    public boolean put(long firstHash, long secondHash) {
+        secondHash |= 1;
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(firstHash + i * secondHash, bitSize);
+            changed |= setBit(index);
+        }
+        if (changed) {
+            count.incrementAndGet();
+        }
+        return changed;
+    }
+
+    /**
+     * @return false if key is definitely not inserted, true if it is probably inserted
+     */
+    public boolean mightContain(CharSequence key) {
+        long firstHash = hash(key);
+        return mightContain(firstHash, secondHash(firstHash));
+    }
+
+    /**
+     * @return false if hashed key is definitely not inserted, true if it is probably inserted
+     */
+    public boolean mightContain(long firstHash, long secondHash) {
+        secondHash |= 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(firstHash + i * secondHash, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false positive probability of filter with current number of items
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) count.get() / bitSize), hashFunctions);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long oldValue;
+        do {
+            oldValue = bits.get(word);
+            if ((oldValue & mask) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, oldValue, oldValue | mask));
+        return true;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of characters followed by murmur3 finalizer
+     * second hash of double hashing is derived from this hash
+     */
+    static long hash(CharSequence key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    static long secondHash(long firstHash) {
+        return mix(firstHash ^ SECOND_SEED);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,69 @@
+package in.nimbo.common.sketch;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * thread safe count-min sketch which estimates frequency of keys in fixed memory
+ * estimate of a key is never less than its real count and it is more than real count
+ * by at most epsilon * total count with probability 1 - delta
+ */
+public class CountMinSketch {
+    private AtomicIntegerArray counters;
+    private int width;
+    private int depth;
+    private AtomicLong totalCount;
+
+    /**
+     * @param epsilon error of estimates relative to total count
+     * @param delta probability that error of an estimate is more than epsilon * total count
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("illegal count-min sketch epsilon or delta");
+        }
+        int minWidth = (int) Math.ceil(Math.E / epsilon);
+        width = Integer.highestOneBit(Math.max(2, minWidth - 1)) << 1;
+        depth = (int) Math.ceil(Math.log(1 / delta));
+        counters = new AtomicIntegerArray(width * depth);
+        totalCount = new AtomicLong();
+    }
+
+    /**
+     * increase count of key by one
+     * @return estimate of count of key after increase
+     */
+    public int add(CharSequence key) {
+        long firstHash = BloomFilter.hash(key);
+        long secondHash = BloomFilter.secondHash(firstHash) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + (int) ((firstHash + i * secondHash) & (width - 1));
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        totalCount.incrementAndGet();
+        return estimate;
+    }
+
+    /**
+     * @return estimate of count of key which is never less than real count
+     */
+    public int estimate(CharSequence key) {
+        long firstHash = BloomFilter.hash(key);
+        long secondHash = BloomFilter.secondHash(firstHash) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + (int) ((firstHash + i * secondHash) & (width - 1));
+            estimate = Math.min(estimate, counters.get(index));
+        }
+        return estimate;
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long sizeInBytes() {
+        return (long) width * depth * 4;
+    }
+}
@@ -0,0 +1,121 @@
+package in.nimbo.common.sketch;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * bloom filter which grows by adding new slices when last slice is full
+ * each slice has twice capacity and half false positive probability of previous one,
+ * so total false positive probability stays below configured value
+ * total memory is bounded, after reaching it last slice absorbs new items
+ * and false positive probability grows, but there is no false negative
+ */
+public class ScalableBloomFilter {
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private List<BloomFilter> slices;
+    private double fpp;
+    private long maxBytes;
+    private volatile BloomFilter lastSlice;
+    private volatile boolean bounded;
+
+    /**
+     * @param initialCapacity capacity of first slice
+     * @param fpp total false positive probability
+     * @param maxBytes maximum memory of all slices, first slice is always created
+     */
+    public ScalableBloomFilter(long initialCapacity, double fpp, long maxBytes) {
+        this.fpp = fpp;
+        this.maxBytes = maxBytes;
+        slices = new CopyOnWriteArrayList<>();
+        lastSlice = new BloomFilter(initialCapacity, fpp * (1 - TIGHTENING_RATIO));
+        slices.add(lastSlice);
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long firstHash = BloomFilter.hash(key);
+        return mightContain(firstHash, BloomFilter.secondHash(firstHash));
+    }
+
+    public boolean mightContain(long firstHash, long secondHash) {
+        for (BloomFilter slice : slices) {
+            if (slice.mightContain(firstHash, secondHash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * insert key in last slice if it is not probably inserted before
+     */
+    public void put(CharSequence key) {
+        long firstHash = BloomFilter.hash(key);
+        put(firstHash, BloomFilter.secondHash(firstHash));
+    }
+
+    /**
+     * insert a key which is already hashed to 128 bits in last slice if it is not probably inserted before
+     */
+    public void put(long firstHash, long secondHash) {
+        if (mightContain(firstHash, secondHash)) {
+            return;
+        }
+        BloomFilter slice = lastSlice;
+        slice.put(firstHash, secondHash);
+        if (!bounded && slice.getCount() >= slice.getCapacity()) {
+            grow(slice);
+        }
+    }
+
+    /**
+     * @return false positive probability of filter with current number of items
+     */
+    public double expectedFpp() {
+        double notFalsePositive = 1;
+        for (BloomFilter slice : slices) {
+            notFalsePositive *= 1 - slice.expectedFpp();
+        }
+        return 1 - notFalsePositive;
+    }
+
+    public double getFpp() {
+        return fpp;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (BloomFilter slice : slices) {
+            count += slice.getCount();
+        }
+        return count;
+    }
+
+    public long sizeInBytes() {
+        long size = 0;
+        for (BloomFilter slice : slices) {
+            size += slice.sizeInBytes();
+        }
+        return size;
+    }
+
+    public int getSlicesCount() {
+        return slices.size();
+    }
+
+    private synchronized void grow(BloomFilter fullSlice) {
+        if (fullSlice != lastSlice || bounded) {
+            return;
+        }
+        long capacity = fullSlice.getCapacity() * GROWTH_FACTOR;
+        double sliceFpp = fpp * Math.pow(TIGHTENING_RATIO, slices.size() + 1.0);
+        if (sizeInBytes() + BloomFilter.sizeInBytes(capacity, sliceFpp) > maxBytes) {
+            bounded = true;
+            return;
+        }
+        BloomFilter slice = new BloomFilter(capacity, sliceFpp);
+        slices.add(slice);
+        lastSlice = slice;
+    }
+}
@@ -0,0 +1,99 @@
+package in.nimbo.common.sketch;
+
+/**
+ * bloom filter of keys which are inserted in a sliding time window
+ * window is divided into generations, each one is a bloom filter with fixed capacity.
+ * keys are inserted in newest generation and oldest generation is dropped when a generation is passed,
+ * so a key is remembered at least (generations - 1) * generationMillis and memory is fixed
+ * if a generation is full before its time, next generation is started sooner
+ */
+public class SlidingBloomFilter {
+    private long generationCapacity;
+    private double fpp;
+    private long generationMillis;
+    private volatile BloomFilter[] generations;
+    private volatile long generationStart;
+
+    /**
+     * @param generationCapacity expected number of inserted keys in each generation
+     * @param fpp false positive probability of each generation
+     * @param generations number of generations which are kept, at least two
+     * @param generationMillis duration of each generation
+     */
+    public SlidingBloomFilter(long generationCapacity, double fpp, int generations, long generationMillis, long now) {
+        if (generations < 2 || generationMillis <= 0) {
+            throw new IllegalArgumentException("illegal generations of sliding bloom filter: "
+                    + generations + " x " + generationMillis);
+        }
+        this.generationCapacity = generationCapacity;
+        this.fpp = fpp;
+        this.generationMillis = generationMillis;
+        this.generations = new BloomFilter[generations];
+        for (int i = 0; i < generations; i++) {
+            this.generations[i] = new BloomFilter(generationCapacity, fpp);
+        }
+        generationStart = now;
+    }
+
+    public boolean mightContain(CharSequence key, long now) {
+        long firstHash = BloomFilter.hash(key);
+        return mightContain(firstHash, BloomFilter.secondHash(firstHash), now);
+    }
+
+    /**
+     * @return false if hashed key is definitely not inserted in window, true if it is probably inserted
+     */
+    public boolean mightContain(long firstHash, long secondHash, long now) {
+        for (BloomFilter generation : rotate(now)) {
+            if (generation.mightContain(firstHash, secondHash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(CharSequence key, long now) {
+        long firstHash = BloomFilter.hash(key);
+        put(firstHash, BloomFilter.secondHash(firstHash), now);
+    }
+
+    /**
+     * insert a key which is already hashed to 128 bits in newest generation
+     */
+    public void put(long firstHash, long secondHash, long now) {
+        rotate(now)[0].put(firstHash, secondHash);
+    }
+
+    public long sizeInBytes() {
+        return generations.length * BloomFilter.sizeInBytes(generationCapacity, fpp);
+    }
+
+    /**
+     * @return generations from newest to oldest after dropping passed generations
+     */
+    private BloomFilter[] rotate(long now) {
+        BloomFilter[] current = generations;
+        if (now - generationStart < generationMillis && current[0].getCount() < generationCapacity) {
+            return current;
+        }
+        synchronized (this) {
+            current = generations;
+            long passedGenerations = (now - generationStart) / generationMillis;
+            if (passedGenerations > 0) {
+                generationStart += passedGenerations * generationMillis;
+            } else if (current[0].getCount() >= generationCapacity) {
+                passedGenerations = 1;
+                generationStart = now;
+            } else {
+                return current;
+            }
+            BloomFilter[] next = new BloomFilter[current.length];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = i < passedGenerations ? new BloomFilter(generationCapacity, fpp)
+                        : current[(int) (i - passedGenerations)];
+            }
+            generations = next;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package in.nimbo.common.sketch;
+
+/**
+ * count-min sketch of a sliding time window which is approximated with two fixed windows
+ * estimate of a key is its count in current window plus its count in previous window
+ * weighted by part of previous window which is still in sliding window
+ * sketches are replaced when window is passed, so memory is fixed
+ */
+public class WindowedCountMinSketch {
+    private double epsilon;
+    private double delta;
+    private long windowMillis;
+    private volatile CountMinSketch current;
+    private volatile CountMinSketch previous;
+    private volatile long windowStart;
+
+    public WindowedCountMinSketch(double epsilon, double delta, long windowMillis, long now) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("illegal window of count-min sketch: " + windowMillis);
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.windowMillis = windowMillis;
+        current = new CountMinSketch(epsilon, delta);
+        previous = new CountMinSketch(epsilon, delta);
+        windowStart = now;
+    }
+
+    /**
+     * increase count of key in current window by one
+     */
+    public void add(CharSequence key, long now) {
+        rotate(now);
+        current.add(key);
+    }
+
+    /**
+     * @return estimate of count of key in sliding window which ends at now
+     */
+    public long estimate(CharSequence key, long now) {
+        rotate(now);
+        double previousWeight = 1 - (double) (now - windowStart) / windowMillis;
+        return current.estimate(key) + (long) Math.ceil(previous.estimate(key) * Math.max(0, previousWeight));
+    }
+
+    private void rotate(long now) {
+        if (now - windowStart < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            long passedWindows = (now - windowStart) / windowMillis;
+            if (passedWindows > 0) {
+                previous = passedWindows == 1 ? current : new CountMinSketch(epsilon, delta);
+                current = new CountMinSketch(epsilon, delta);
+                windowStart += passedWindows * windowMillis;
+            }
+        }
+    }
+}
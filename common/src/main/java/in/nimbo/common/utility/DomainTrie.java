@@ -0,0 +1,178 @@
+package in.nimbo.common.utility;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * set of domains which is compiled to a trie of labels from last label to first one like {@link PublicSuffixList}
+ * a host matches if it is one of domains or a subdomain of them, e.g. ads.example.com matches example.com
+ * lookup doesn't allocate and takes O(length of host)
+ */
+public final class DomainTrie {
+    private static final int ROOT = 0;
+
+    private char[] labels;
+    private int[] labelOffsets;
+    private int[] labelLengths;
+    private int[] parents;
+    private boolean[] terminals;
+    private int[] table;
+    private int mask;
+
+    /**
+     * @param domains domains of set, empty domains are ignored
+     */
+    public DomainTrie(Collection<String> domains) {
+        Map<String, Integer> nodeIds = new HashMap<>();
+        List<String> nodeLabels = new ArrayList<>();
+        List<Integer> nodeParents = new ArrayList<>();
+        List<Boolean> nodeTerminals = new ArrayList<>();
+        nodeLabels.add("");
+        nodeParents.add(-1);
+        nodeTerminals.add(false);
+        for (String domain : domains) {
+            String rule = domain.trim().toLowerCase();
+            if (rule.endsWith(".")) {
+                rule = rule.substring(0, rule.length() - 1);
+            }
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            String[] ruleLabels = rule.split("\\.");
+            for (int i = ruleLabels.length - 1; i >= 0; i--) {
+                String key = node + "." + ruleLabels[i];
+                Integer child = nodeIds.get(key);
+                if (child == null) {
+                    child = nodeLabels.size();
+                    nodeIds.put(key, child);
+                    nodeLabels.add(ruleLabels[i]);
+                    nodeParents.add(node);
+                    nodeTerminals.add(false);
+                }
+                node = child;
+            }
+            nodeTerminals.set(node, true);
+        }
+        compile(nodeLabels, nodeParents, nodeTerminals);
+    }
+
+    /**
+     * @param host host without port
+     * @param start start index of host
+     * @param end end index of host
+     * @return true if host or one of its parent domains is in set
+     */
+    public boolean matches(CharSequence host, int start, int end) {
+        if (end > start && host.charAt(end - 1) == '.') {
+            end--;
+        }
+        int node = ROOT;
+        int position = end;
+        while (position > start) {
+            int labelStart = lastIndexOf(host, start, position) + 1;
+            node = child(node, host, labelStart, position);
+            if (node < 0) {
+                return false;
+            } else if (terminals[node]) {
+                return true;
+            }
+            position = labelStart - 1;
+        }
+        return false;
+    }
+
+    private void compile(List<String> nodeLabels, List<Integer> nodeParents, List<Boolean> nodeTerminals) {
+        int count = nodeLabels.size();
+        int poolSize = 0;
+        for (String label : nodeLabels) {
+            poolSize += label.length();
+        }
+        labels = new char[poolSize];
+        labelOffsets = new int[count];
+        labelLengths = new int[count];
+        parents = new int[count];
+        terminals = new boolean[count];
+        int capacity = Integer.highestOneBit(count * 2 - 1) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+        int offset = 0;
+        for (int node = 0; node < count; node++) {
+            String label = nodeLabels.get(node);
+            label.getChars(0, label.length(), labels, offset);
+            labelOffsets[node] = offset;
+            labelLengths[node] = label.length();
+            parents[node] = nodeParents.get(node);
+            terminals[node] = nodeTerminals.get(node);
+            offset += label.length();
+            if (node != ROOT) {
+                int slot = hash(parents[node], labels, labelOffsets[node], labelLengths[node]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = node;
+            }
+        }
+    }
+
+    /**
+     * @return child of node with label of host[start, end) or -1 if there is no such child
+     */
+    private int child(int node, CharSequence host, int start, int end) {
+        int hash = node;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + lowerCase(host.charAt(i));
+        }
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int candidate = table[slot];
+            if (parents[candidate] == node && labelEquals(candidate, host, start, end)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean labelEquals(int node, CharSequence host, int start, int end) {
+        if (labelLengths[node] != end - start) {
+            return false;
+        }
+        int offset = labelOffsets[node];
+        for (int i = start; i < end; i++) {
+            if (labels[offset++] != lowerCase(host.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(int parent, char[] chars, int offset, int length) {
+        int hash = parent;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char lowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int lastIndexOf(CharSequence host, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (host.charAt(i) == '.') {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+}
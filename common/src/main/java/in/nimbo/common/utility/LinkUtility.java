@@ -5,14 +5,14 @@ import in.nimbo.common.exception.ReverseLinkException;
 
 import java.math.BigInteger;
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class LinkUtility {
+    private static final String LINK_SEPARATOR = "\n";
 
     private LinkUtility() {
     }
@@ -20,39 +20,14 @@ public class LinkUtility {
     /**
      * @param link link
      * @return reversed link (only domain)
+     * @throws ReverseLinkException if link is not an absolute url
      */
     public static String reverseLink(String link) {
-        try {
-            int length = link.length();
-            int i, j;
-            i = link.indexOf('/') + 1;
-            j = link.indexOf('/', i + 1);
-            if (j < 0) {
-                j = length;
-            }
-            String protocol = link.substring(0, i - 1);
-            String domain = link.substring(i + 1, j);
-            String port = null;
-            int colonIndex = domain.indexOf(':');
-            if (colonIndex > -1) {
-                port = domain.substring(colonIndex);
-                domain = domain.substring(0, colonIndex);
-            }
-            String uri = j < length ? link.substring(j) : "";
-            StringBuilder newDomain = new StringBuilder();
-            int dotIndex = domain.lastIndexOf('.');
-            while (dotIndex > -1) {
-                String part = domain.substring(dotIndex + 1);
-                newDomain.append(part);
-                newDomain.append(".");
-                domain = domain.substring(0, dotIndex);
-                dotIndex = domain.lastIndexOf('.');
-            }
-            newDomain.append(domain);
-            return protocol + "//" + newDomain + (port != null ? port : "") + uri;
-        } catch (StringIndexOutOfBoundsException e) {
-            throw new ReverseLinkException(e);
+        UrlParser parser = UrlParser.local();
+        if (!parser.parse(link)) {
+            throw new ReverseLinkException();
         }
+        return parser.reverse();
     }
 
     /**
@@ -60,81 +35,59 @@ public class LinkUtility {
      * url must be in absolute format
      *
      * @param link link
-     * @return domain of url without it's subdomains
+     * @return registrable domain of url based on public suffix list, e.g. bbc.co.uk for www.bbc.co.uk
      * @throws MalformedURLException if link is not a illegal url
      */
     public static String getMainDomain(String link) throws MalformedURLException {
-        try {
-            String domain = getDomain(link);
-            int lastDot = domain.lastIndexOf('.');
-            int beforeLastDot = domain.substring(0, lastDot).lastIndexOf('.');
-            return beforeLastDot == -1 ? domain : domain.substring(beforeLastDot + 1);
-        } catch (IndexOutOfBoundsException | NullPointerException e) {
+        UrlParser parser = UrlParser.local();
+        String mainDomain = parser.parse(link) ? parser.getMainDomain() : null;
+        if (mainDomain == null) {
             throw new MalformedURLException("unable to detect domain of url");
         }
+        return mainDomain;
     }
 
     public static String getMainDomainForReversed(String link) throws MalformedURLException {
-        try {
-            String domain = getDomain(link);
-            int firstDot = domain.indexOf('.');
-            int afterFirstDot = domain.indexOf('.', firstDot + 1);
-            if (afterFirstDot != -1) {
-                domain = domain.substring(0, afterFirstDot);
-            }
-            return domain.substring(firstDot + 1) + "." + domain.substring(0, firstDot);
-        } catch (IndexOutOfBoundsException | NullPointerException e) {
+        UrlParser parser = UrlParser.local();
+        String mainDomain = parser.parse(link) ? parser.getMainDomainForReversed() : null;
+        if (mainDomain == null) {
             throw new MalformedURLException("unable to detect domain of url");
         }
+        return mainDomain;
     }
 
+    /**
+     * @param link link
+     * @return host of url or null if link is not an absolute url
+     */
     public static String getDomain(String link) {
-        int indexOfProtocol = link.indexOf('/') + 1;
-        int indexOfEndDomain = link.indexOf('/', indexOfProtocol + 1);
-        if (indexOfEndDomain < 0) {
-            indexOfEndDomain = link.length();
-        }
-        String domain = link.substring(indexOfProtocol + 1, indexOfEndDomain);
-        int colonIndex = domain.indexOf(':');
-        if (colonIndex > -1) {
-            domain = domain.substring(0, colonIndex);
-        }
-        return domain;
+        UrlParser parser = UrlParser.local();
+        return parser.parse(link) ? parser.getHost() : null;
     }
 
     /**
      * check whether a url is a valid url or not
      *
      * @param link url
-     * @return true if url is a valid url
+     * @return true if url is a valid http or https url
      */
     public static boolean isValidUrl(String link) {
-        try {
-            URI uri = new URL(link).toURI();
-            return uri.getHost() != null && uri.getHost().split("\\.").length >= 2;
-        } catch (MalformedURLException | URISyntaxException | NullPointerException e) {
-            return false;
-        }
+        UrlParser parser = UrlParser.local();
+        return parser.parse(link) && parser.isValid();
     }
 
+    /**
+     * @param link link
+     * @return canonical link of default {@link UrlCanonicalizer} with lower case protocol and host,
+     * sorted significant query parameters and without fragment and last slash of path
+     * @throws MalformedURLException if link is not an absolute url
+     */
     public static String normalize(String link) throws MalformedURLException {
-        URL url = new URL(link);
-        String protocol = url.getProtocol().toLowerCase();
-        String host = url.getHost().toLowerCase();
-        int port = url.getPort();
-        String uri = url.getPath();
-        String newLink = protocol + "://" + host;
-        if (port != -1) {
-            newLink += ":" + port;
+        UrlParser parser = UrlParser.local();
+        if (!parser.parse(link)) {
+            throw new MalformedURLException("illegal url: " + link);
         }
-        if (uri != null) {
-            if (uri.endsWith("/")) {
-                newLink += uri.substring(0, uri.length() - 1);
-            } else {
-                newLink += uri;
-            }
-        }
-        return newLink;
+        return UrlCanonicalizer.getDefault().canonicalize(parser);
     }
 
     /**
@@ -158,24 +111,47 @@ public class LinkUtility {
         }
     }
 
-    public static String hashLinkCompressed(String url) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            byte[] digest = md5.digest(url.getBytes());
-            return new String(digest, StandardCharsets.UTF_8);
-        } catch (NoSuchAlgorithmException e) {
-            throw new HashException(e);
-        }
-    }
-
     /**
      * @param link link which must be normalized
      * @return depth of a uri in url
      * @throws MalformedURLException if link is illegal
      */
     public static long depth(String link) throws MalformedURLException {
-        URL url = new URL(link);
-        String uri = url.getPath();
-        return uri.isEmpty() || uri.equals("/") ? 0 : uri.split("/").length - 1;
+        UrlParser parser = UrlParser.local();
+        if (!parser.parse(link)) {
+            throw new MalformedURLException("illegal url: " + link);
+        }
+        return parser.depth();
+    }
+
+    /**
+     * pack links in one message, e.g. value of a kafka record which contains all links of a page
+     * links are separated by new line which is illegal in a url
+     *
+     * @param links links which don't contain new line
+     * @return packed links
+     */
+    public static String joinLinks(Collection<String> links) {
+        return String.join(LINK_SEPARATOR, links);
+    }
+
+    /**
+     * @param message packed links or a single link
+     * @return non empty links of message
+     */
+    public static List<String> splitLinks(String message) {
+        List<String> links = new ArrayList<>();
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            if (end > start) {
+                links.add(message.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return links;
     }
 }
@@ -0,0 +1,227 @@
+package in.nimbo.common.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * public suffix list (https://publicsuffix.org) which is compiled to a trie of labels from last label to first one.
+ * nodes of trie are kept in arrays and child of a node is found with an open addressing hash table
+ * of (parent, label), so a lookup doesn't allocate and takes O(length of host)
+ * both ICANN and private suffixes (like github.io) are used, so sites of these hosts are separated
+ */
+public final class PublicSuffixList {
+    private static final String RESOURCE = "public_suffix_list.dat";
+    private static final byte RULE = 1;
+    private static final byte WILDCARD = 2;
+    private static final byte EXCEPTION = 4;
+    private static final int ROOT = 0;
+
+    private char[] labels;
+    private int[] labelOffsets;
+    private int[] labelLengths;
+    private int[] parents;
+    private byte[] flags;
+    private int[] table;
+    private int mask;
+
+    private static class DefaultHolder {
+        private static final PublicSuffixList DEFAULT = new PublicSuffixList(
+                Arrays.asList(FileUtility.readFileFromResource(RESOURCE).split("\n")));
+    }
+
+    /**
+     * @param lines lines of public suffix list, comments and empty lines are ignored
+     */
+    public PublicSuffixList(List<String> lines) {
+        Map<String, Integer> nodeIds = new HashMap<>();
+        List<String> nodeLabels = new ArrayList<>();
+        List<Integer> nodeParents = new ArrayList<>();
+        List<Byte> nodeFlags = new ArrayList<>();
+        nodeLabels.add("");
+        nodeParents.add(-1);
+        nodeFlags.add((byte) 0);
+        for (String line : lines) {
+            String rule = line.trim();
+            if (rule.isEmpty() || rule.startsWith("//")) {
+                continue;
+            }
+            int space = rule.indexOf(' ');
+            rule = space < 0 ? rule : rule.substring(0, space);
+            byte flag = RULE;
+            if (rule.startsWith("!")) {
+                flag = EXCEPTION;
+                rule = rule.substring(1);
+            } else if (rule.startsWith("*.")) {
+                flag = WILDCARD;
+                rule = rule.substring(2);
+            }
+            int node = ROOT;
+            String[] ruleLabels = rule.split("\\.");
+            for (int i = ruleLabels.length - 1; i >= 0; i--) {
+                String key = node + "." + ruleLabels[i];
+                Integer child = nodeIds.get(key);
+                if (child == null) {
+                    child = nodeLabels.size();
+                    nodeIds.put(key, child);
+                    nodeLabels.add(ruleLabels[i]);
+                    nodeParents.add(node);
+                    nodeFlags.add((byte) 0);
+                }
+                node = child;
+            }
+            nodeFlags.set(node, (byte) (nodeFlags.get(node) | flag));
+        }
+        compile(nodeLabels, nodeParents, nodeFlags);
+    }
+
+    /**
+     * @return public suffix list which is bundled in resources
+     */
+    public static PublicSuffixList getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * find number of labels of public suffix of host with rules of list and default rule "*"
+     * @param host host in lower case without port
+     * @param start start index of host
+     * @param end end index of host
+     * @param reversed true if labels of host are reversed, e.g. uk.co.bbc.www
+     * @return number of labels of public suffix which may be equal to number of labels of host
+     */
+    public int suffixLabels(CharSequence host, int start, int end, boolean reversed) {
+        int node = ROOT;
+        int labelsCount = 0;
+        int suffixLabels = 1;
+        int position = reversed ? start : end;
+        while (reversed ? position < end : position > start) {
+            int labelStart;
+            int labelEnd;
+            if (reversed) {
+                labelStart = position;
+                labelEnd = indexOf(host, position, end);
+                position = labelEnd + 1;
+            } else {
+                labelEnd = position;
+                labelStart = lastIndexOf(host, start, position) + 1;
+                position = labelStart - 1;
+            }
+            labelsCount++;
+            int child = child(node, host, labelStart, labelEnd);
+            if (child >= 0 && (flags[child] & EXCEPTION) != 0) {
+                return labelsCount - 1;
+            }
+            if ((flags[node] & WILDCARD) != 0 || (child >= 0 && (flags[child] & RULE) != 0)) {
+                suffixLabels = labelsCount;
+            }
+            if (child < 0) {
+                break;
+            }
+            node = child;
+        }
+        return suffixLabels;
+    }
+
+    private void compile(List<String> nodeLabels, List<Integer> nodeParents, List<Byte> nodeFlags) {
+        int count = nodeLabels.size();
+        int poolSize = 0;
+        for (String label : nodeLabels) {
+            poolSize += label.length();
+        }
+        labels = new char[poolSize];
+        labelOffsets = new int[count];
+        labelLengths = new int[count];
+        parents = new int[count];
+        flags = new byte[count];
+        int capacity = Integer.highestOneBit(count * 2 - 1) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+        int offset = 0;
+        for (int node = 0; node < count; node++) {
+            String label = nodeLabels.get(node);
+            label.getChars(0, label.length(), labels, offset);
+            labelOffsets[node] = offset;
+            labelLengths[node] = label.length();
+            parents[node] = nodeParents.get(node);
+            flags[node] = nodeFlags.get(node);
+            offset += label.length();
+            if (node != ROOT) {
+                int slot = hash(parents[node], labels, labelOffsets[node], labelLengths[node]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = node;
+            }
+        }
+    }
+
+    /**
+     * @return child of node with label of host[start, end) or -1 if there is no such child
+     */
+    private int child(int node, CharSequence host, int start, int end) {
+        int hash = node;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + lowerCase(host.charAt(i));
+        }
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int candidate = table[slot];
+            if (parents[candidate] == node && labelEquals(candidate, host, start, end)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean labelEquals(int node, CharSequence host, int start, int end) {
+        if (labelLengths[node] != end - start) {
+            return false;
+        }
+        int offset = labelOffsets[node];
+        for (int i = start; i < end; i++) {
+            if (labels[offset++] != lowerCase(host.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(int parent, char[] chars, int offset, int length) {
+        int hash = parent;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char lowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int indexOf(CharSequence host, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (host.charAt(i) == '.') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int lastIndexOf(CharSequence host, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (host.charAt(i) == '.') {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+}
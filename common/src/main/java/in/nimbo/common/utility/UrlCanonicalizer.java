@@ -0,0 +1,146 @@
+package in.nimbo.common.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * canonical form of urls which is used as key of pages in parser, dedup and hbase
+ * canonical url is normalized url of {@link UrlParser#normalize()} with its significant query parameters.
+ * tracking and session parameters are removed and remaining parameters are sorted by their name,
+ * so urls which differ only in them are the same page
+ * rules of a registrable domain keep only listed parameters of its urls, e.g. youtube.com:v|list
+ */
+public final class UrlCanonicalizer {
+    private static final List<String> DEFAULT_IGNORED_PARAMETERS = Arrays.asList("utm_*", "fbclid", "gclid",
+            "dclid", "msclkid", "yclid", "mc_cid", "mc_eid", "_ga", "_gl", "igshid", "ref_src",
+            "jsessionid", "phpsessid", "sessionid", "session_id", "sid");
+    private static volatile UrlCanonicalizer defaultCanonicalizer =
+            new UrlCanonicalizer(DEFAULT_IGNORED_PARAMETERS, Collections.emptyList());
+
+    private Set<String> ignoredParameters;
+    private String[] ignoredPrefixes;
+    private Map<String, Set<String>> domainParameters;
+
+    /**
+     * @param ignoredParameters case insensitive names of parameters which are removed, name which ends with *
+     *                          is a prefix, e.g. utm_*
+     * @param domainRules rules like domain:name1|name2 which keep only listed parameters in urls of domain,
+     *                    domain without names removes whole query
+     */
+    public UrlCanonicalizer(Collection<String> ignoredParameters, Collection<String> domainRules) {
+        this.ignoredParameters = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String parameter : ignoredParameters != null ? ignoredParameters : Collections.<String>emptyList()) {
+            String name = parameter.trim().toLowerCase();
+            if (name.endsWith("*")) {
+                prefixes.add(name.substring(0, name.length() - 1));
+            } else if (!name.isEmpty()) {
+                this.ignoredParameters.add(name);
+            }
+        }
+        ignoredPrefixes = prefixes.toArray(new String[0]);
+        domainParameters = new HashMap<>();
+        for (String rule : domainRules != null ? domainRules : Collections.<String>emptyList()) {
+            int colon = rule.indexOf(':');
+            String domain = (colon < 0 ? rule : rule.substring(0, colon)).trim().toLowerCase();
+            if (domain.isEmpty()) {
+                continue;
+            }
+            Set<String> names = new HashSet<>();
+            if (colon >= 0) {
+                for (String name : rule.substring(colon + 1).split("\\|")) {
+                    if (!name.trim().isEmpty()) {
+                        names.add(name.trim());
+                    }
+                }
+            }
+            domainParameters.put(domain, names);
+        }
+    }
+
+    /**
+     * @return canonicalizer which is used by {@link LinkUtility#normalize(String)} and parser
+     */
+    public static UrlCanonicalizer getDefault() {
+        return defaultCanonicalizer;
+    }
+
+    /**
+     * replace default canonicalizer with one which is configured by application
+     * it must be called before any link is canonicalized, otherwise keys of same page will differ
+     */
+    public static void setDefault(UrlCanonicalizer canonicalizer) {
+        defaultCanonicalizer = canonicalizer;
+    }
+
+    /**
+     * @param parser parser which has parsed an absolute url
+     * @return normalized url with sorted significant query parameters and without fragment
+     */
+    public String canonicalize(UrlParser parser) {
+        String normalized = parser.normalize();
+        int queryStart = parser.getQueryStart();
+        if (queryStart < 0) {
+            return normalized;
+        }
+        CharSequence link = parser.getLink();
+        int queryEnd = parser.getRequestEnd();
+        Set<String> allowedParameters = domainParameters.isEmpty() ? null : domainParameters.get(parser.getMainDomain());
+        if (allowedParameters != null && allowedParameters.isEmpty()) {
+            return normalized;
+        }
+        List<String> parameters = new ArrayList<>();
+        int parameterStart = queryStart;
+        for (int i = queryStart; i <= queryEnd; i++) {
+            if (i == queryEnd || link.charAt(i) == '&') {
+                if (i > parameterStart) {
+                    String parameter = link.subSequence(parameterStart, i).toString();
+                    String name = getName(parameter);
+                    if (allowedParameters != null ? allowedParameters.contains(name) : !isIgnored(name)) {
+                        parameters.add(parameter);
+                    }
+                }
+                parameterStart = i + 1;
+            }
+        }
+        if (parameters.isEmpty()) {
+            return normalized;
+        }
+        // stable sort keeps order of values of a repeated parameter
+        parameters.sort((first, second) -> getName(first).compareTo(getName(second)));
+        StringBuilder builder = new StringBuilder(normalized.length() + queryEnd - queryStart + 1);
+        builder.append(normalized).append('?');
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                builder.append('&');
+            }
+            builder.append(parameters.get(i));
+        }
+        return builder.toString();
+    }
+
+    private boolean isIgnored(String name) {
+        String lowerCaseName = name.toLowerCase();
+        if (ignoredParameters.contains(lowerCaseName)) {
+            return true;
+        }
+        for (String prefix : ignoredPrefixes) {
+            if (lowerCaseName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getName(String parameter) {
+        int equals = parameter.indexOf('=');
+        return equals < 0 ? parameter : parameter.substring(0, equals);
+    }
+}
@@ -0,0 +1,438 @@
+package in.nimbo.common.utility;
+
+/**
+ * single pass parser of absolute urls which works with offsets over a CharSequence
+ * parsing doesn't allocate, only methods which return a String create it
+ * parser is mutable and not thread safe, use local() to reuse one parser per thread
+ * format of url is scheme://[userinfo@]host[:port][path][?query][#fragment]
+ */
+public final class UrlParser {
+    private static final ThreadLocal<UrlParser> LOCAL = ThreadLocal.withInitial(UrlParser::new);
+    private static final int MAX_PORT = 65535;
+    private static final int MAX_PORT_LENGTH = 9;
+
+    private final StringBuilder builder = new StringBuilder(256);
+    private CharSequence link;
+    private int start;
+    private int end;
+    private int schemeEnd;
+    private int authorityStart;
+    private int hostStart;
+    private int hostEnd;
+    private int authorityEnd;
+    private int port;
+    private int pathEnd;
+    private int queryStart;
+    private int fragmentStart;
+    private boolean legalCharacters;
+
+    /**
+     * @return parser of current thread
+     */
+    public static UrlParser local() {
+        return LOCAL.get();
+    }
+
+    public boolean parse(CharSequence link) {
+        return link != null && parse(link, 0, link.length());
+    }
+
+    /**
+     * parse link[start, end) as an absolute url with authority
+     * @return false if it is not an absolute url or port is not a number
+     */
+    public boolean parse(CharSequence link, int start, int end) {
+        this.link = link;
+        this.start = start;
+        this.end = end;
+        port = -1;
+        queryStart = -1;
+        fragmentStart = -1;
+        legalCharacters = true;
+
+        int i = start;
+        if (i >= end || !isLetter(link.charAt(i))) {
+            return false;
+        }
+        for (i++; i < end && link.charAt(i) != ':'; i++) {
+            char c = link.charAt(i);
+            if (!isLetter(c) && !isDigit(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        if (i + 2 >= end || link.charAt(i + 1) != '/' || link.charAt(i + 2) != '/') {
+            return false;
+        }
+        schemeEnd = i;
+        authorityStart = i + 3;
+
+        hostStart = authorityStart;
+        int colon = -1;
+        for (i = authorityStart; i < end; i++) {
+            char c = link.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            } else if (c == '@') {
+                hostStart = i + 1;
+                colon = -1;
+            } else if (c == ':') {
+                colon = i;
+            }
+        }
+        authorityEnd = i;
+        hostEnd = colon < 0 ? authorityEnd : colon;
+        if (colon >= 0 && colon + 1 < authorityEnd) {
+            if (authorityEnd - colon - 1 > MAX_PORT_LENGTH) {
+                return false;
+            }
+            port = 0;
+            for (int j = colon + 1; j < authorityEnd; j++) {
+                char c = link.charAt(j);
+                if (!isDigit(c)) {
+                    return false;
+                }
+                port = port * 10 + (c - '0');
+            }
+        }
+
+        for (; i < end; i++) {
+            char c = link.charAt(i);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            checkCharacter(c, i);
+        }
+        pathEnd = i;
+        if (i < end && link.charAt(i) == '?') {
+            queryStart = i + 1;
+            for (i++; i < end && link.charAt(i) != '#'; i++) {
+                checkCharacter(link.charAt(i), i);
+            }
+        }
+        if (i < end) {
+            fragmentStart = i + 1;
+            for (i++; i < end; i++) {
+                char c = link.charAt(i);
+                checkCharacter(c, i);
+                legalCharacters &= c != '#';
+            }
+        }
+        return true;
+    }
+
+    /**
+     * url is valid if it is a http or https url, host has at least two labels of letters, digits and hyphens
+     * and it doesn't contain characters which are illegal in an uri
+     * @return true if last parsed url is a valid url
+     */
+    public boolean isValid() {
+        return legalCharacters && isHttp() && isValidHost() && port <= MAX_PORT;
+    }
+
+    public String getScheme() {
+        return link.subSequence(start, schemeEnd).toString();
+    }
+
+    public String getHost() {
+        return link.subSequence(hostStart, hostEnd).toString();
+    }
+
+    /**
+     * @return port of url or -1 if url doesn't have port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return path of url which is empty if url doesn't have path
+     */
+    public String getPath() {
+        return link.subSequence(authorityEnd, pathEnd).toString();
+    }
+
+    /**
+     * @return query of url or null if url doesn't have query
+     */
+    public String getQuery() {
+        if (queryStart < 0) {
+            return null;
+        }
+        return link.subSequence(queryStart, fragmentStart < 0 ? end : fragmentStart - 1).toString();
+    }
+
+    /**
+     * @return last parsed link, offsets of parser are indexes of it
+     */
+    public CharSequence getLink() {
+        return link;
+    }
+
+    /**
+     * @return index of start of host in link
+     */
+    public int getHostStart() {
+        return hostStart;
+    }
+
+    /**
+     * @return index of end of host in link
+     */
+    public int getHostEnd() {
+        return hostEnd;
+    }
+
+    /**
+     * @return index of start of path in link
+     */
+    public int getPathStart() {
+        return authorityEnd;
+    }
+
+    /**
+     * @return index of end of path in link
+     */
+    public int getPathEnd() {
+        return pathEnd;
+    }
+
+    /**
+     * @return index of start of query in link or -1 if url doesn't have query
+     */
+    public int getQueryStart() {
+        return queryStart;
+    }
+
+    /**
+     * @return index of end of path and query in link, fragment is excluded
+     */
+    public int getRequestEnd() {
+        return fragmentStart < 0 ? end : fragmentStart - 1;
+    }
+
+    /**
+     * @return lower case scheme, host and port of url, e.g. https://www.nimbo.in:8080
+     */
+    public String getOrigin() {
+        builder.setLength(0);
+        appendLowerCase(start, schemeEnd);
+        builder.append("://");
+        appendLowerCase(hostStart, hostEnd);
+        if (port >= 0) {
+            builder.append(':').append(port);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * registrable domain is public suffix of host and one more label, e.g. bbc.co.uk for www.bbc.co.uk
+     * @return registrable domain of host, whole host if it is an ip address or a public suffix
+     * or null if host has only one label
+     */
+    public String getMainDomain() {
+        int domainEnd = hostEnd;
+        if (domainEnd > hostStart && link.charAt(domainEnd - 1) == '.') {
+            domainEnd--;
+        }
+        if (indexOf('.', hostStart, domainEnd) < 0) {
+            return null;
+        }
+        if (isDigit(link.charAt(domainEnd - 1))) {
+            return link.subSequence(hostStart, domainEnd).toString();
+        }
+        int domainLabels = PublicSuffixList.getDefault().suffixLabels(link, hostStart, domainEnd, false) + 1;
+        int domainStart = domainEnd;
+        for (int i = 0; i < domainLabels && domainStart > hostStart; i++) {
+            int dot = lastIndexOf('.', hostStart, domainStart - 1);
+            domainStart = dot < 0 ? hostStart : dot + 1;
+        }
+        return link.subSequence(domainStart, domainEnd).toString();
+    }
+
+    /**
+     * host of url must be reversed, e.g. uk.co.bbc.www
+     * @return registrable domain of host in normal order, e.g. bbc.co.uk, whole host in normal order
+     * if it is a public suffix or null if host has only one label
+     */
+    public String getMainDomainForReversed() {
+        if (indexOf('.', hostStart, hostEnd) < 0) {
+            return null;
+        }
+        int domainLabels = PublicSuffixList.getDefault().suffixLabels(link, hostStart, hostEnd, true) + 1;
+        int domainEnd = hostStart;
+        for (int i = 0; i < domainLabels && domainEnd < hostEnd; i++) {
+            int dot = indexOf('.', domainEnd == hostStart ? hostStart : domainEnd + 1, hostEnd);
+            domainEnd = dot < 0 ? hostEnd : dot;
+        }
+        builder.setLength(0);
+        int labelEnd = domainEnd;
+        for (int i = domainEnd - 1; i >= hostStart; i--) {
+            if (link.charAt(i) == '.') {
+                builder.append(link, i + 1, labelEnd).append('.');
+                labelEnd = i;
+            }
+        }
+        builder.append(link, hostStart, labelEnd);
+        return builder.toString();
+    }
+
+    /**
+     * @return lower case scheme and host, port and path without last slash.
+     * query, fragment, userinfo and default port of http and https are removed
+     */
+    public String normalize() {
+        builder.setLength(0);
+        appendLowerCase(start, schemeEnd);
+        builder.append("://");
+        appendLowerCase(hostStart, hostEnd);
+        if (port >= 0 && !isDefaultPort()) {
+            builder.append(':').append(port);
+        }
+        int normalizedPathEnd = pathEnd;
+        if (normalizedPathEnd > authorityEnd && link.charAt(normalizedPathEnd - 1) == '/') {
+            normalizedPathEnd--;
+        }
+        builder.append(link, authorityEnd, normalizedPathEnd);
+        return builder.toString();
+    }
+
+    /**
+     * @return url with reversed labels of host, e.g. http://com.stackoverflow.blog/uri
+     */
+    public String reverse() {
+        builder.setLength(0);
+        builder.append(link, start, authorityStart)
+                .append(link, authorityStart, hostStart);
+        int labelEnd = hostEnd;
+        for (int i = hostEnd - 1; i >= hostStart; i--) {
+            if (link.charAt(i) == '.') {
+                builder.append(link, i + 1, labelEnd).append('.');
+                labelEnd = i;
+            }
+        }
+        builder.append(link, hostStart, labelEnd)
+                .append(link, hostEnd, end);
+        return builder.toString();
+    }
+
+    /**
+     * @return number of segments of path without empty segments at end of path
+     */
+    public int depth() {
+        int depth = 0;
+        int lastSegmentEnd = pathEnd;
+        while (lastSegmentEnd > authorityEnd && link.charAt(lastSegmentEnd - 1) == '/') {
+            lastSegmentEnd--;
+        }
+        for (int i = authorityEnd; i < lastSegmentEnd; i++) {
+            if (link.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private boolean isDefaultPort() {
+        return isHttp() && port == (schemeEnd - start == 4 ? 80 : 443);
+    }
+
+    private boolean isHttp() {
+        int length = schemeEnd - start;
+        if (length != 4 && length != 5) {
+            return false;
+        }
+        return Character.toLowerCase(link.charAt(start)) == 'h'
+                && Character.toLowerCase(link.charAt(start + 1)) == 't'
+                && Character.toLowerCase(link.charAt(start + 2)) == 't'
+                && Character.toLowerCase(link.charAt(start + 3)) == 'p'
+                && (length == 4 || Character.toLowerCase(link.charAt(start + 4)) == 's');
+    }
+
+    /**
+     * each label must be non empty, contain letters, digits and hyphens and not start or end with hyphen.
+     * last label must start with a letter unless host is an ip address. one dot at end of host is allowed
+     */
+    private boolean isValidHost() {
+        int validEnd = hostEnd;
+        if (validEnd > hostStart && link.charAt(validEnd - 1) == '.') {
+            validEnd--;
+        }
+        int labels = 0;
+        int numericLabels = 0;
+        boolean numericLabel = true;
+        int labelStart = hostStart;
+        int lastLabelStart = hostStart;
+        for (int i = hostStart; i <= validEnd; i++) {
+            char c = i < validEnd ? link.charAt(i) : '.';
+            if (c == '.') {
+                if (i == labelStart || link.charAt(labelStart) == '-' || link.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                if (numericLabel) {
+                    numericLabels++;
+                }
+                lastLabelStart = labelStart;
+                labelStart = i + 1;
+                numericLabel = true;
+            } else if (isLetter(c) || c == '-') {
+                numericLabel = false;
+            } else if (!isDigit(c)) {
+                return false;
+            }
+        }
+        if (labels < 2) {
+            return false;
+        }
+        return numericLabels == labels ? labels == 4 : isLetter(link.charAt(lastLabelStart));
+    }
+
+    /**
+     * space, control characters, characters which must be escaped and bad escape sequences are illegal
+     */
+    private void checkCharacter(char c, int index) {
+        if (c <= ' ' || c == 127 || c == '"' || c == '<' || c == '>' || c == '\\' || c == '^' || c == '`'
+                || c == '{' || c == '|' || c == '}' || c == '[' || c == ']') {
+            legalCharacters = false;
+        } else if (c == '%') {
+            legalCharacters &= index + 2 < end && isHexDigit(link.charAt(index + 1))
+                    && isHexDigit(link.charAt(index + 2));
+        }
+    }
+
+    private void appendLowerCase(int from, int to) {
+        for (int i = from; i < to; i++) {
+            builder.append(Character.toLowerCase(link.charAt(i)));
+        }
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (link.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(char c, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (link.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -1,9 +1,14 @@
 import in.nimbo.common.exception.ReverseLinkException;
 import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.common.utility.UrlCanonicalizer;
+import in.nimbo.common.utility.UrlParser;
 import org.junit.Test;
 
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -61,7 +66,7 @@ public class LinkUtilityTest {
     public void testNormalize() throws MalformedURLException {
         String site = "https://stackoverflow.blog?blb=1";
         String normalize = LinkUtility.normalize(site);
-        assertEquals("https://stackoverflow.blog", normalize);
+        assertEquals("https://stackoverflow.blog?blb=1", normalize);
     }
 
     @Test
@@ -82,7 +87,7 @@ public class LinkUtilityTest {
     public void testNormalizeWithoutURI() throws MalformedURLException {
         String site = "https://chat.stackexchange.com?tab=site&host=askubuntu.com";
         String normalize = LinkUtility.normalize(site);
-        assertEquals("https://chat.stackexchange.com", normalize);
+        assertEquals("https://chat.stackexchange.com?host=askubuntu.com&tab=site", normalize);
     }
 
     @Test
@@ -99,6 +104,26 @@ public class LinkUtilityTest {
         assertEquals("https://launchpad.net/+login", normalize);
     }
 
+    @Test
+    public void testNormalizeTrackingParameters() throws MalformedURLException {
+        assertEquals("https://nimbo.in/news?id=2&page=1",
+                LinkUtility.normalize("https://nimbo.in:443/news/?utm_source=x&page=1&&fbclid=abc&id=2#top"));
+        assertEquals("http://nimbo.in", LinkUtility.normalize("HTTP://Nimbo.in:80/?UTM_Medium=email"));
+    }
+
+    @Test
+    public void testCanonicalizerDomainRules() {
+        UrlCanonicalizer canonicalizer = new UrlCanonicalizer(Collections.singletonList("ref"),
+                Arrays.asList("youtube.com:v|list", "shop.com"));
+        UrlParser parser = new UrlParser();
+        parser.parse("https://www.youtube.com/watch?feature=share&v=abc&list=x&v=def");
+        assertEquals("https://www.youtube.com/watch?list=x&v=abc&v=def", canonicalizer.canonicalize(parser));
+        parser.parse("https://shop.com/item?id=1&color=red");
+        assertEquals("https://shop.com/item", canonicalizer.canonicalize(parser));
+        parser.parse("https://nimbo.in/?ref=home&utm_source=x");
+        assertEquals("https://nimbo.in?utm_source=x", canonicalizer.canonicalize(parser));
+    }
+
     @Test
     public void testDepthForNormalLink() throws MalformedURLException {
         assertEquals(3, LinkUtility.depth("https://stackoverflow.com/pages/1/2"));
@@ -118,4 +143,12 @@ public class LinkUtilityTest {
     public void testDepthSpecialCase() throws MalformedURLException {
         assertEquals(2, LinkUtility.depth("https://stackoverflow.com:9090/+salam/kill?a=2&z=2"));
     }
+
+    @Test
+    public void testJoinAndSplitLinks() {
+        List<String> links = Arrays.asList("https://nimbo.in/a", "https://stackoverflow.com");
+        assertEquals(links, LinkUtility.splitLinks(LinkUtility.joinLinks(links)));
+        assertEquals(Collections.singletonList("https://nimbo.in"), LinkUtility.splitLinks("https://nimbo.in"));
+        assertTrue(LinkUtility.splitLinks("").isEmpty());
+    }
 }
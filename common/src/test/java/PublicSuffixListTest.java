@@ -0,0 +1,39 @@
+import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.common.utility.PublicSuffixList;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PublicSuffixListTest {
+    private PublicSuffixList list = new PublicSuffixList(Arrays.asList(
+            "// comment", "", "uk", "co.uk", "*.ck", "!www.ck", "io", "github.io"));
+
+    @Test
+    public void testSuffixLabels() {
+        assertEquals(2, suffixLabels("www.bbc.co.uk"));
+        assertEquals(2, suffixLabels("co.uk"));
+        assertEquals(1, suffixLabels("nimbo.in"));
+        assertEquals(2, suffixLabels("a.b.ck"));
+        assertEquals(1, suffixLabels("www.ck"));
+        assertEquals(2, suffixLabels("foo.GitHub.io"));
+        assertEquals(2, list.suffixLabels("uk.co.bbc.www", 0, 13, true));
+    }
+
+    @Test
+    public void testGetMainDomain() throws MalformedURLException {
+        assertEquals("bbc.co.uk", LinkUtility.getMainDomain("https://www.bbc.co.uk/news"));
+        assertEquals("co.uk", LinkUtility.getMainDomain("https://co.uk"));
+        assertEquals("nimbo.github.io", LinkUtility.getMainDomain("https://nimbo.github.io/keenbo"));
+        assertEquals("stackoverflow.com", LinkUtility.getMainDomain("https://a.b.stackoverflow.com:8080"));
+        assertEquals("1.2.3.4", LinkUtility.getMainDomain("http://1.2.3.4/index.html"));
+        assertEquals("bbc.co.uk", LinkUtility.getMainDomainForReversed("https://uk.co.bbc.www/news"));
+        assertEquals("stackoverflow.com", LinkUtility.getMainDomainForReversed("https://com.stackoverflow.blog"));
+    }
+
+    private int suffixLabels(String host) {
+        return list.suffixLabels(host, 0, host.length(), false);
+    }
+}
@@ -0,0 +1,77 @@
+import in.nimbo.common.service.robots.RobotsRules;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RobotsRulesTest {
+    private static final String ROBOTS = "# robots of nimbo\n" +
+            "User-agent: *\n" +
+            "Disallow: /private\n" +
+            "Allow: /private/public\n" +
+            "Disallow: /*.pdf$\n" +
+            "Disallow: /search?*q=\n" +
+            "Crawl-delay: 2.5\n" +
+            "\n" +
+            "User-agent: Googlebot\n" +
+            "User-agent: Keenbo/1.0\n" +
+            "Disallow: /admin # comment\n" +
+            "Disallow:\n" +
+            "Crawl-delay: 10\n" +
+            "Sitemap: https://nimbo.in/sitemap.xml\n";
+
+    @Test
+    public void testGenericGroup() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "sahab");
+        assertTrue(rules.isAllowed("https://nimbo.in"));
+        assertTrue(rules.isAllowed("https://nimbo.in/admin"));
+        assertFalse(rules.isAllowed("https://nimbo.in/private/page"));
+        assertTrue(rules.isAllowed("https://nimbo.in/private/public/page"));
+        assertFalse(rules.isAllowed("https://nimbo.in/files/a.pdf"));
+        assertTrue(rules.isAllowed("https://nimbo.in/files/a.pdf?download=1"));
+        assertFalse(rules.isAllowed("https://nimbo.in/search?lang=en&q=java#top"));
+        assertTrue(rules.isAllowed("https://nimbo.in/search?lang=en"));
+        assertEquals(2500, rules.getCrawlDelayMillis());
+    }
+
+    @Test
+    public void testSpecificGroup() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "keenbo");
+        assertFalse(rules.isAllowed("https://nimbo.in/admin/users"));
+        assertTrue(rules.isAllowed("https://nimbo.in/private"));
+        assertEquals(10000, rules.getCrawlDelayMillis());
+    }
+
+    @Test
+    public void testInvalidCrawlDelay() {
+        assertEquals(0, RobotsRules.parse("User-agent: *\nCrawl-delay: Infinity\n", "keenbo").getCrawlDelayMillis());
+        assertEquals(0, RobotsRules.parse("User-agent: *\nCrawl-delay: NaN\n", "keenbo").getCrawlDelayMillis());
+        assertEquals(0, RobotsRules.parse("User-agent: *\nCrawl-delay: 1e400\n", "keenbo").getCrawlDelayMillis());
+        assertEquals(0, RobotsRules.parse("User-agent: *\nCrawl-delay: -5\n", "keenbo").getCrawlDelayMillis());
+    }
+
+    @Test
+    public void testLargeCrawlDelay() {
+        assertEquals(60000, RobotsRules.parse("User-agent: *\nCrawl-delay: 1e300\n", "keenbo", 60000)
+                .getCrawlDelayMillis());
+        assertEquals(60000, RobotsRules.parse("User-agent: *\nCrawl-delay: 120\n", "keenbo", 60000)
+                .getCrawlDelayMillis());
+        assertEquals(TimeUnit.DAYS.toMillis(1), RobotsRules.parse("User-agent: *\nCrawl-delay: 9223372036854775807\n",
+                "keenbo").getCrawlDelayMillis());
+    }
+
+    @Test
+    public void testAllowWinsTie() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /page\nAllow: /page\n", "keenbo");
+        assertTrue(rules.isAllowed("https://nimbo.in/page"));
+    }
+
+    @Test
+    public void testTemporaryRules() {
+        assertFalse(RobotsRules.temporary(false).isAllowed("https://nimbo.in"));
+        assertTrue(RobotsRules.temporary(false).isTemporary());
+        assertTrue(RobotsRules.ALLOW_ALL.isAllowed("https://nimbo.in/private"));
+        assertFalse(RobotsRules.ALLOW_ALL.isTemporary());
+    }
+}
@@ -0,0 +1,77 @@
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.service.filter.UrlFilter;
+import in.nimbo.common.utility.DomainTrie;
+import in.nimbo.common.utility.UrlParser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UrlFilterTest {
+    private UrlFilter filter = new UrlFilter(Arrays.asList("jpg", "PDF", "zip"), Arrays.asList("ads.com", "track.nimbo.in"),
+            Arrays.asList("jsessionid", "sid", "calendar"), 4, 3, 2);
+
+    @BeforeClass
+    public static void init() {
+        if (SharedMetricRegistries.tryGetDefault() == null) {
+            SharedMetricRegistries.setDefault("urlFilterTest");
+        }
+    }
+
+    private UrlFilter.Rule check(String link) {
+        UrlParser parser = new UrlParser();
+        assertTrue(parser.parse(link) && parser.isValid());
+        return filter.check(parser);
+    }
+
+    @Test
+    public void testAccepted() {
+        assertNull(check("https://nimbo.in"));
+        assertNull(check("https://nimbo.in/a/b/c/d?x=1&y=2&z=3"));
+        assertNull(check("https://nimbo.in/file.jpg/page"));
+        assertNull(check("https://nimbo.in/v1.2/index.html"));
+        assertNull(check("https://nimbo.in/a/b/a/b"));
+        assertNull(check("https://nimbo.in/?session=1"));
+        assertNull(check("https://nimbo.in/search?q=calendar"));
+    }
+
+    @Test
+    public void testRejected() {
+        assertEquals(UrlFilter.Rule.EXTENSION, check("https://nimbo.in/images/logo.JPG"));
+        assertEquals(UrlFilter.Rule.EXTENSION, check("https://nimbo.in/report.pdf?download=1"));
+        assertEquals(UrlFilter.Rule.DOMAIN, check("https://ads.com/page"));
+        assertEquals(UrlFilter.Rule.DOMAIN, check("https://cdn.ADS.com./page"));
+        assertEquals(UrlFilter.Rule.DOMAIN, check("https://track.nimbo.in/"));
+        assertEquals(UrlFilter.Rule.DEPTH, check("https://nimbo.in/a/b/c/d/e"));
+        assertEquals(UrlFilter.Rule.QUERY, check("https://nimbo.in/?a=1&b=2&c=3&d=4"));
+        assertEquals(UrlFilter.Rule.TRAP_PARAMETER, check("https://nimbo.in/?page=2&SID=abc"));
+        assertEquals(UrlFilter.Rule.TRAP_PARAMETER, check("https://nimbo.in/news;jsessionid=abc"));
+        assertEquals(UrlFilter.Rule.TRAP_PARAMETER, check("https://nimbo.in/calendar/2019/10"));
+        assertEquals(UrlFilter.Rule.REPEATED_SEGMENT, check("https://nimbo.in/a/a/x/a"));
+    }
+
+    @Test
+    public void testCounters() {
+        UrlParser parser = new UrlParser();
+        parser.parse("https://nimbo.in/a.zip");
+        long before = SharedMetricRegistries.getDefault()
+                .counter(MetricRegistry.name(UrlFilter.class, "extensionRejections")).getCount();
+        assertFalse(filter.accept(parser));
+        assertEquals(before + 1, SharedMetricRegistries.getDefault()
+                .counter(MetricRegistry.name(UrlFilter.class, "extensionRejections")).getCount());
+    }
+
+    @Test
+    public void testDomainTrie() {
+        DomainTrie trie = new DomainTrie(Arrays.asList("example.com", "co.uk", ""));
+        assertTrue(trie.matches("example.com", 0, 11));
+        assertTrue(trie.matches("www.Example.com", 0, 15));
+        assertTrue(trie.matches("bbc.co.uk", 0, 9));
+        assertFalse(trie.matches("myexample.com", 0, 13));
+        assertFalse(trie.matches("com", 0, 3));
+        assertFalse(new DomainTrie(Arrays.asList()).matches("example.com", 0, 11));
+    }
+}
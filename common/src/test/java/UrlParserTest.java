@@ -0,0 +1,54 @@
+import in.nimbo.common.utility.UrlParser;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UrlParserTest {
+    private UrlParser parser = new UrlParser();
+
+    @Test
+    public void testParse() {
+        assertTrue(parser.parse("HTTP://user@www.Blog.stackoverflow.com:8080/uri/?query=1#top"));
+        assertEquals("HTTP", parser.getScheme());
+        assertEquals("www.Blog.stackoverflow.com", parser.getHost());
+        assertEquals(8080, parser.getPort());
+        assertEquals("/uri/", parser.getPath());
+        assertEquals("query=1", parser.getQuery());
+        assertEquals("stackoverflow.com", parser.getMainDomain());
+        assertEquals("http://www.blog.stackoverflow.com:8080/uri", parser.normalize());
+        assertEquals("HTTP://user@com.stackoverflow.Blog.www:8080/uri/?query=1#top", parser.reverse());
+        assertEquals(1, parser.depth());
+    }
+
+    @Test
+    public void testParseWithOffset() {
+        String text = "see https://nimbo.in/about for details";
+        assertTrue(parser.parse(text, 4, 26));
+        assertEquals("nimbo.in", parser.getHost());
+        assertEquals("/about", parser.getPath());
+        assertNull(parser.getQuery());
+    }
+
+    @Test
+    public void testIsValid() {
+        assertFalse(parser.parse("mailto:support@nimbo.in"));
+        assertFalse(parser.parse("javascript:void(0)"));
+        assertFalse(parser.parse("http://nimbo.in:80a"));
+        assertTrue(parser.parse("ftp://nimbo.in") && !parser.isValid());
+        assertTrue(parser.parse("https://salam") && !parser.isValid());
+        assertTrue(parser.parse("https://a_b.com") && !parser.isValid());
+        assertTrue(parser.parse("https://nimbo.in/a b") && !parser.isValid());
+        assertTrue(parser.parse("https://nimbo.in/a%2") && !parser.isValid());
+        assertTrue(parser.parse("https://1.2.3/") && !parser.isValid());
+        assertTrue(parser.parse("https://1.2.3.4/") && parser.isValid());
+        assertTrue(parser.parse("https://nimbo.in/a%20b?q=1#top") && parser.isValid());
+    }
+
+    @Test
+    public void testMainDomainForReversed() {
+        assertTrue(parser.parse("https://com.stackoverflow.blog/uri"));
+        assertEquals("stackoverflow.com", parser.getMainDomainForReversed());
+        assertTrue(parser.parse("https://salam"));
+        assertNull(parser.getMainDomainForReversed());
+    }
+}
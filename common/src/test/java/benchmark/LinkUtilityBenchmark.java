@@ -0,0 +1,171 @@
+package benchmark;
+
+import in.nimbo.common.utility.UrlParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compare java.net.URL based link methods with UrlParser
+ * run main method of this class with test classpath of common module
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkUtilityBenchmark {
+    private static final String[] LINKS = {
+            "https://stackoverflow.com/questions/tagged/java?tab=Newest",
+            "http://www.blog.stackoverflow.com:8080/uri/",
+            "https://en.wikipedia.org/wiki/Uniform_Resource_Locator#Syntax",
+            "https://launchpad.net/+login",
+            "mailto:support@nimbo.in",
+            "https://chat.stackexchange.com?tab=site&host=askubuntu.com",
+            "https://github.com/mrp-78/Keenbo/blob/master/README.md",
+            "javascript:void(0)"
+    };
+
+    private UrlParser parser = new UrlParser();
+
+    @Benchmark
+    public void legacyAnchor(Blackhole blackhole) {
+        for (String link : LINKS) {
+            if (!link.matches("mailto:.*") && legacyIsValidUrl(link)) {
+                try {
+                    blackhole.consume(legacyNormalize(link));
+                } catch (MalformedURLException e) {
+                    blackhole.consume(e);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void parserAnchor(Blackhole blackhole) {
+        for (String link : LINKS) {
+            if (parser.parse(link) && parser.isValid()) {
+                blackhole.consume(parser.normalize());
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacyReverseLink(Blackhole blackhole) {
+        for (String link : LINKS) {
+            blackhole.consume(legacyReverseLink(link));
+        }
+    }
+
+    @Benchmark
+    public void parserReverseLink(Blackhole blackhole) {
+        for (String link : LINKS) {
+            if (parser.parse(link)) {
+                blackhole.consume(parser.reverse());
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacyMainDomain(Blackhole blackhole) {
+        for (String link : LINKS) {
+            blackhole.consume(legacyMainDomain(link));
+        }
+    }
+
+    @Benchmark
+    public void parserMainDomain(Blackhole blackhole) {
+        for (String link : LINKS) {
+            if (parser.parse(link)) {
+                blackhole.consume(parser.getMainDomain());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LinkUtilityBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static boolean legacyIsValidUrl(String link) {
+        try {
+            URI uri = new URL(link).toURI();
+            return uri.getHost() != null && uri.getHost().split("\\.").length >= 2;
+        } catch (MalformedURLException | URISyntaxException | NullPointerException e) {
+            return false;
+        }
+    }
+
+    private static String legacyNormalize(String link) throws MalformedURLException {
+        URL url = new URL(link);
+        String newLink = url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase();
+        if (url.getPort() != -1) {
+            newLink += ":" + url.getPort();
+        }
+        String uri = url.getPath();
+        if (uri.endsWith("/")) {
+            newLink += uri.substring(0, uri.length() - 1);
+        } else {
+            newLink += uri;
+        }
+        return newLink;
+    }
+
+    private static String legacyReverseLink(String link) {
+        int i = link.indexOf('/') + 1;
+        int j = link.indexOf('/', i + 1);
+        if (i == 0) {
+            return null;
+        }
+        if (j < 0) {
+            j = link.length();
+        }
+        String domain = link.substring(i + 1, j);
+        String port = "";
+        int colonIndex = domain.indexOf(':');
+        if (colonIndex > -1) {
+            port = domain.substring(colonIndex);
+            domain = domain.substring(0, colonIndex);
+        }
+        StringBuilder newDomain = new StringBuilder();
+        int dotIndex = domain.lastIndexOf('.');
+        while (dotIndex > -1) {
+            newDomain.append(domain.substring(dotIndex + 1)).append(".");
+            domain = domain.substring(0, dotIndex);
+            dotIndex = domain.lastIndexOf('.');
+        }
+        newDomain.append(domain);
+        return link.substring(0, i - 1) + "//" + newDomain + port + link.substring(j);
+    }
+
+    private static String legacyMainDomain(String link) {
+        int i = link.indexOf('/') + 1;
+        int j = link.indexOf('/', i + 1);
+        if (j < 0) {
+            j = link.length();
+        }
+        String domain = link.substring(i + 1, j);
+        int colonIndex = domain.indexOf(':');
+        if (colonIndex > -1) {
+            domain = domain.substring(0, colonIndex);
+        }
+        int lastDot = domain.lastIndexOf('.');
+        if (lastDot < 0) {
+            return null;
+        }
+        int beforeLastDot = domain.substring(0, lastDot).lastIndexOf('.');
+        return beforeLastDot == -1 ? domain : domain.substring(beforeLastDot + 1);
+    }
+}
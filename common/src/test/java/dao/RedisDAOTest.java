@@ -0,0 +1,61 @@
+package dao;
+
+import in.nimbo.common.config.RedisConfig;
+import in.nimbo.common.entity.Fingerprint;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.dao.redis.RedisDAOImpl;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.params.SetParams;
+
+import static org.junit.Assert.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RedisDAOTest {
+    private static final Fingerprint KEY = Fingerprint.of("key");
+    private RedisConfig redisConfig;
+    private JedisCluster cluster;
+    private RedisDAO redisDAO;
+
+    @Before
+    public void init() {
+        cluster = mock(JedisCluster.class);
+        redisConfig = RedisConfig.load();
+        redisDAO = new RedisDAOImpl(cluster, redisConfig);
+    }
+
+    @Test
+    public void testContains() {
+        redisConfig.setExpireTime(-1);
+        assertEquals(3, redisConfig.getHostAndPorts().size());
+        when(cluster.get(KEY.toBytes())).thenReturn(new byte[0]);
+        boolean contains = redisDAO.contains(KEY);
+        assertTrue(contains);
+        when(cluster.get(KEY.toBytes())).thenReturn(null);
+        contains = redisDAO.contains(KEY);
+        assertFalse(contains);
+    }
+
+    @Test
+    public void testAdd() {
+        try {
+            doReturn("OK").when(cluster).set(any(byte[].class), any(byte[].class), any(SetParams.class));
+            redisConfig.setExpireTime(1);
+            redisDAO.add(KEY);
+        } catch (Exception e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void testMarkIfAbsent() {
+        redisConfig.setExpireTime(10);
+        when(cluster.set(aryEq(KEY.toBytes()), any(byte[].class), any(SetParams.class))).thenReturn("OK");
+        assertTrue(redisDAO.markIfAbsent(KEY));
+        when(cluster.set(aryEq(KEY.toBytes()), any(byte[].class), any(SetParams.class))).thenReturn(null);
+        assertFalse(redisDAO.markIfAbsent(KEY));
+    }
+}
@@ -0,0 +1,32 @@
+package entity;
+
+import in.nimbo.common.entity.Fingerprint;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FingerprintTest {
+
+    @Test
+    public void ofTest() {
+        assertEquals("2016d0ad6ef2492994f10dbdb51c9b65", Fingerprint.of("https://nimbo.in").toHex());
+        assertEquals("2c2a1928da29b2ce7db82b0b01ee1d9a",
+                Fingerprint.of("https://stackoverflow.com/questions?q=1").toHex());
+        assertEquals(Fingerprint.of(new StringBuilder("https://nimbo.in")), Fingerprint.of("https://nimbo.in"));
+        assertNotEquals(Fingerprint.of("https://nimbo.in"), Fingerprint.of("http://nimbo.in"));
+    }
+
+    @Test
+    public void bytesTest() {
+        Fingerprint fingerprint = Fingerprint.of("https://nimbo.in");
+        byte[] bytes = fingerprint.toBytes();
+        assertEquals(Fingerprint.BYTES, bytes.length);
+        assertEquals(0x20, bytes[0]);
+        assertEquals(fingerprint, Fingerprint.fromBytes(bytes));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalBytesTest() {
+        Fingerprint.fromBytes(new byte[8]);
+    }
+}
@@ -0,0 +1,46 @@
+package kafka;
+
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.kafka.DomainPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DomainPartitionerTest {
+    private static final String TOPIC = "links";
+    private static final int PARTITIONS = 21;
+
+    @Test
+    public void partitionTest() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions.add(new PartitionInfo(TOPIC, i, node, new Node[]{node}, new Node[]{node}));
+        }
+        Cluster cluster = new Cluster("cluster", Collections.singletonList(node), partitions,
+                Collections.emptySet(), Collections.emptySet());
+        DomainPartitioner partitioner = new DomainPartitioner();
+        int partition = DomainPartitioner.partition("nimbo.in", PARTITIONS);
+        assertEquals(partition, partitioner.partition(TOPIC, null, null,
+                new Link("https://blog.nimbo.in/a", null, 0), null, cluster));
+        assertEquals(partition, partitioner.partition(TOPIC, null, null,
+                new Link("https://github.com", "nimbo.in", 0), null, cluster));
+        assertEquals(partition, partitioner.partition(TOPIC, null, null,
+                "https://www.nimbo.in/a\nhttps://www.nimbo.in/b", null, cluster));
+        int randomPartition = partitioner.partition(TOPIC, null, null, "invalid link", null, cluster);
+        assertTrue(randomPartition >= 0 && randomPartition < PARTITIONS);
+    }
+
+    @Test
+    public void domainTest() {
+        assertEquals("bbc.co.uk", DomainPartitioner.getDomain("https://www.bbc.co.uk/news"));
+        assertNull(DomainPartitioner.getDomain("mailto:support@nimbo.in"));
+    }
+}
@@ -0,0 +1,64 @@
+package kafka;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.kafka.ProducerPool;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ProducerPoolTest {
+    @BeforeClass
+    public static void init() {
+        if (SharedMetricRegistries.tryGetDefault() == null) {
+            SharedMetricRegistries.setDefault("kafkaTest");
+        }
+    }
+
+    @Test
+    public void getTest() {
+        List<MockProducer<String, String>> producers = new ArrayList<>();
+        ProducerPool<String, String> pool = new ProducerPool<>("test", () -> {
+            MockProducer<String, String> producer = new MockProducer<>();
+            producers.add(producer);
+            return producer;
+        }, 3);
+        assertEquals(3, pool.size());
+        assertEquals(3, producers.size());
+        Set<Producer<String, String>> roundRobin = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            roundRobin.add(pool.get());
+        }
+        assertEquals(3, roundRobin.size());
+        assertSame(producers.get(1), pool.get(1));
+        assertSame(producers.get(1), pool.get(4));
+
+        pool.close();
+        for (MockProducer<String, String> producer : producers) {
+            assertTrue(producer.closed());
+        }
+    }
+
+    @Test
+    public void metricsTest() {
+        new ProducerPool<String, String>("metrics", MockProducer::new, 2);
+        Gauge gauge = SharedMetricRegistries.getDefault().getGauges()
+                .get(MetricRegistry.name(ProducerPool.class, "metrics", "producer-1", "batchSizeAvg"));
+        assertNotNull(gauge);
+        assertTrue(Double.isNaN((Double) gauge.getValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPoolTest() {
+        new ProducerPool<String, String>("empty", MockProducer::new, 0);
+    }
+}
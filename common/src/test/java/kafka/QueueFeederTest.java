@@ -0,0 +1,157 @@
+package kafka;
+
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.kafka.QueueFeeder;
+import in.nimbo.common.kafka.QueuedRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.Assert.*;
+
+public class QueueFeederTest {
+    private static final String TOPIC = "links";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private MockConsumer<String, String> consumer;
+    private BlockingQueue<QueuedRecord<String>> queue;
+    private QueueFeeder<String, String, String> queueFeeder;
+
+    @BeforeClass
+    public static void init() {
+        if (SharedMetricRegistries.tryGetDefault() == null) {
+            SharedMetricRegistries.setDefault("kafkaTest");
+        }
+    }
+
+    @Before
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.subscribe(Collections.singletonList(TOPIC));
+        consumer.rebalance(Collections.singleton(PARTITION));
+        consumer.seek(PARTITION, 0);
+        queue = new ArrayBlockingQueue<>(4);
+        queueFeeder = new QueueFeeder<>(consumer, queue, value -> value.isEmpty() ? null : value, 3, 1);
+    }
+
+    @Test
+    public void pauseAndResumeTest() {
+        addRecords(6);
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertEquals(4, queue.size());
+        assertEquals(2, queueFeeder.getPendingSize());
+        assertTrue(queueFeeder.isPaused());
+        assertEquals(Collections.singleton(PARTITION), consumer.paused());
+
+        queue.poll();
+        queue.poll();
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertEquals(0, queueFeeder.getPendingSize());
+        assertTrue(queueFeeder.isPaused());
+
+        queue.clear();
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertFalse(queueFeeder.isPaused());
+        assertTrue(consumer.paused().isEmpty());
+    }
+
+    @Test
+    public void pauseAfterResetTest() {
+        addRecords(4);
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertTrue(queueFeeder.isPaused());
+        queue.poll();
+        queue.poll();
+
+        // kafka consumer resets pause state of partitions after rebalance
+        consumer.resume(consumer.paused());
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertTrue(queueFeeder.isPaused());
+        assertEquals(Collections.singleton(PARTITION), consumer.paused());
+    }
+
+    @Test
+    public void acknowledgeTest() {
+        addRecords(3);
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        QueuedRecord<String> first = queue.poll();
+        QueuedRecord<String> second = queue.poll();
+        assertTrue(queueFeeder.takeOffsets().isEmpty());
+
+        second.acknowledge();
+        assertTrue(queueFeeder.takeOffsets().isEmpty());
+        first.acknowledge();
+        assertEquals(new OffsetAndMetadata(2), queueFeeder.takeOffsets().get(PARTITION));
+        assertTrue(queueFeeder.takeOffsets().isEmpty());
+
+        queue.poll().acknowledge();
+        assertEquals(new OffsetAndMetadata(3), queueFeeder.takeOffsets().get(PARTITION));
+    }
+
+    @Test
+    public void skippedRecordsTest() {
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, null, ""));
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1, null, null));
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertTrue(queue.isEmpty());
+        assertEquals(new OffsetAndMetadata(2), queueFeeder.takeOffsets().get(PARTITION));
+
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 2, null, "link-2"));
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 3, null, ""));
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertTrue(queueFeeder.takeOffsets().isEmpty());
+        queue.poll().acknowledge();
+        assertEquals(new OffsetAndMetadata(4), queueFeeder.takeOffsets().get(PARTITION));
+    }
+
+    @Test
+    public void revokedPartitionTest() {
+        addRecords(6);
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        assertEquals(2, queueFeeder.getPendingSize());
+        queue.peek().acknowledge();
+        queueFeeder.onPartitionsRevoked(Collections.singleton(PARTITION));
+        assertEquals(0, queueFeeder.getPendingSize());
+        assertEquals(new OffsetAndMetadata(1), consumer.committed(PARTITION));
+
+        // mock consumer keeps paused partitions after rebalance unlike kafka consumer
+        consumer.resume(consumer.paused());
+        TopicPartition newPartition = new TopicPartition(TOPIC, 1);
+        consumer.rebalance(Collections.singleton(newPartition));
+        queueFeeder.onPartitionsAssigned(Collections.singleton(newPartition));
+        assertTrue(queue.isEmpty());
+        queueFeeder.feed(ConsumerRecords.empty());
+        assertFalse(queueFeeder.isPaused());
+        assertTrue(queueFeeder.takeOffsets().isEmpty());
+    }
+
+    @Test
+    public void reassignedPartitionTest() {
+        addRecords(6);
+        queueFeeder.feed(consumer.poll(Duration.ZERO));
+        queueFeeder.onPartitionsRevoked(Collections.singleton(PARTITION));
+        assertNull(consumer.committed(PARTITION));
+
+        consumer.resume(consumer.paused());
+        consumer.rebalance(Collections.singleton(PARTITION));
+        queueFeeder.onPartitionsAssigned(Collections.singleton(PARTITION));
+        assertEquals(4, queue.size());
+        assertEquals(4, consumer.position(PARTITION));
+    }
+
+    private void addRecords(int count) {
+        for (int i = 0; i < count; i++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, null, "link-" + i));
+        }
+    }
+}
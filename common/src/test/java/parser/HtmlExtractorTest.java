@@ -0,0 +1,65 @@
+package parser;
+
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Meta;
+import in.nimbo.common.service.parser.HtmlContent;
+import in.nimbo.common.service.parser.HtmlExtractor;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class HtmlExtractorTest {
+    private HtmlExtractor extractor = new HtmlExtractor(0, 0);
+
+    @Test
+    public void testExtract() {
+        String html = "<!DOCTYPE html><html><head><title>Nimbo &amp; Keenbo</title>" +
+                "<meta name=\"description\" content=\"search engine\">" +
+                "<script>var a = '<a href=\"/script\">x</a>';</script><style>p { color: red; }</style></head>" +
+                "<body><!-- <a href=\"/comment\">comment</a> --><p>Hello   <b>world</b></p>" +
+                "<div>second&nbsp;line</div><a href=\"/about\">About us</a> <a href='https://other.com'>Other</a></body></html>";
+        HtmlContent content = extractor.extract(html, "https://nimbo.in/index.html");
+        assertEquals("Nimbo & Keenbo", content.getTitle());
+        assertEquals("Nimbo & Keenbo Hello world second line About us Other", content.getText());
+        assertEquals(2, content.getAnchors().size());
+        assertEquals(new Anchor("https://nimbo.in/about", "About us"), content.getAnchors().get(0));
+        assertEquals(new Anchor("https://other.com", "Other"), content.getAnchors().get(1));
+        assertEquals(1, content.getMetas().size());
+        assertEquals(new Meta("description", "search engine"), content.getMetas().get(0));
+    }
+
+    @Test
+    public void testBaseHref() {
+        String html = "<html><head><base href=\"https://cdn.nimbo.in/docs/\"></head>" +
+                "<body><a href=\"page.html\">page</a></body></html>";
+        HtmlContent content = extractor.extract(html, "https://nimbo.in/");
+        assertEquals("https://cdn.nimbo.in/docs/page.html", content.getAnchors().get(0).getHref());
+    }
+
+    @Test
+    public void testLimits() {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<p>paragraph number ").append(i).append("</p><a href=\"/").append(i).append("\">link</a>");
+        }
+        html.append("</body></html>");
+        HtmlContent content = new HtmlExtractor(50, 3).extract(html.toString(), "https://nimbo.in/");
+        assertTrue(content.getText().length() <= 50);
+        assertTrue(content.getText().startsWith("paragraph number 0 link"));
+        assertEquals(3, content.getAnchors().size());
+    }
+
+    @Test
+    public void testDecode() {
+        byte[] utf8 = "<p>سلام</p>".getBytes(StandardCharsets.UTF_8);
+        assertEquals("<p>سلام</p>", HtmlExtractor.decode(utf8, null));
+
+        byte[] latin = "<meta charset=\"iso-8859-1\"><p>caf\u00e9</p>".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals("<meta charset=\"iso-8859-1\"><p>caf\u00e9</p>", HtmlExtractor.decode(latin, null));
+
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'};
+        assertEquals("a", HtmlExtractor.decode(bom, "iso-8859-1"));
+    }
+}
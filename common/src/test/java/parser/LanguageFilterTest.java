@@ -0,0 +1,43 @@
+package parser;
+
+import in.nimbo.common.service.parser.LanguageFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LanguageFilterTest {
+    private LanguageFilter filter = new LanguageFilter(4096, 0.3, 20);
+
+    @Test
+    public void testDeclaredLanguage() {
+        String html = "<html><body><p>hello</p></body></html>";
+        assertFalse(filter.isRejected(html, null));
+        assertFalse(filter.isRejected(html, "en-US"));
+        assertFalse(filter.isRejected(html, "fa, en"));
+        assertTrue(filter.isRejected(html, "fa-IR"));
+        assertTrue(filter.isRejected("<!DOCTYPE html><html dir=\"rtl\" lang=\"fa\"><body></body></html>", null));
+        assertFalse(filter.isRejected("<html lang='en-GB'><body></body></html>", null));
+    }
+
+    @Test
+    public void testNonLatinText() {
+        StringBuilder persian = new StringBuilder("<html><head><script>var text = 'english english english english';</script>" +
+                "</head><body>");
+        StringBuilder english = new StringBuilder("<html><body>");
+        for (int i = 0; i < 20; i++) {
+            persian.append("<p>این یک متن فارسی است</p>");
+            english.append("<p>this is an english text</p>");
+        }
+        assertTrue(filter.isRejected(persian.toString(), null));
+        assertFalse(filter.isRejected(english.toString(), null));
+        assertFalse(filter.isRejected("<html><body><p>کوتاه</p></body></html>", null));
+        assertFalse(new LanguageFilter(0, 0.3, 0).isRejected(persian.toString(), null));
+    }
+
+    @Test
+    public void testSample() {
+        assertEquals("short text", filter.sample("short text"));
+        assertEquals("a text which is", filter.sample("a text which is longer than sample"));
+        assertEquals("abcdefghijklmnopqrst", filter.sample("abcdefghijklmnopqrstuvwxyz"));
+    }
+}
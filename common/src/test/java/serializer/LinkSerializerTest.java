@@ -0,0 +1,31 @@
+package serializer;
+
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.serializer.LinkDeserializer;
+import in.nimbo.common.serializer.LinkSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class LinkSerializerTest {
+    private LinkSerializer linkSerializer = new LinkSerializer();
+    private LinkDeserializer linkDeserializer = new LinkDeserializer();
+
+    @Test
+    public void testSerializer() {
+        Link link = new Link("http://nimbo.in/mentors", "nimbo.in", 1, 2.5);
+        Link link1 = linkDeserializer.deserialize("topic", linkSerializer.serialize("topic", link));
+        Assert.assertEquals(link.getUrl(), link1.getUrl());
+        Assert.assertEquals(link.getLabel(), link1.getLabel());
+        Assert.assertEquals(link.getLevel(), link1.getLevel());
+        Assert.assertEquals(link.getScore(), link1.getScore(), 0.0);
+    }
+
+    @Test
+    public void testDeserializePlainUrl() {
+        Link link = linkDeserializer.deserialize("topic", "http://nimbo.in".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("http://nimbo.in", link.getUrl());
+        Assert.assertEquals(0, link.getScore(), 0.0);
+    }
+}
@@ -1,15 +1,21 @@
 package serializer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import in.nimbo.common.entity.Anchor;
 import in.nimbo.common.entity.Meta;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.serializer.LazyPage;
+import in.nimbo.common.serializer.PageCodec;
 import in.nimbo.common.serializer.PageDeserializer;
 import in.nimbo.common.serializer.PageSerializer;
+import org.apache.kafka.common.errors.SerializationException;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.net.MalformedURLException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 
@@ -43,4 +49,87 @@ public class PageSerializerTest {
         Assert.assertEquals(page.getAnchors(), page1.getAnchors());
         Assert.assertEquals(page.getRank(), page1.getRank(), 0.0);
     }
+
+    @Test
+    public void testCompressedContent() throws MalformedURLException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("Be your best ").append(i).append(" \u0633\u0644\u0627\u0645 \uD83D\uDE00 ");
+        }
+        Page largePage = new Page("http://nimbo.in/mentores", "\u0645\u0646\u062A\u0648\u0631", content.toString(),
+                page.getAnchors(), page.getMetas(), 1.5);
+        byte[] compressed = pageSerializer.serialize("topic", largePage);
+        PageSerializer uncompressedSerializer = new PageSerializer();
+        uncompressedSerializer.configure(Collections.singletonMap(PageSerializer.CONTENT_COMPRESSION_CONFIG, "none"), false);
+        byte[] uncompressed = uncompressedSerializer.serialize("topic", largePage);
+        Assert.assertTrue(compressed.length < uncompressed.length);
+        for (byte[] bytes : Arrays.asList(compressed, uncompressed)) {
+            Page page1 = pageDeserializer.deserialize("topic", bytes);
+            Assert.assertEquals(largePage.getContent(), page1.getContent());
+            Assert.assertEquals(largePage.getTitle(), page1.getTitle());
+            Assert.assertEquals(largePage.getReversedLink(), page1.getReversedLink());
+            Assert.assertEquals(largePage.getLinkDepth(), page1.getLinkDepth());
+        }
+    }
+
+    @Test
+    public void testNullFields() {
+        Page page1 = pageDeserializer.deserialize("topic", pageSerializer.serialize("topic", new Page()));
+        Assert.assertNull(page1.getLink());
+        Assert.assertNull(page1.getContent());
+        Assert.assertNull(page1.getAnchors());
+        Assert.assertNull(page1.getMetas());
+        Assert.assertNull(pageSerializer.serialize("topic", null));
+        Assert.assertNull(pageDeserializer.deserialize("topic", null));
+    }
+
+    @Test
+    public void testJsonPage() throws JsonProcessingException {
+        byte[] json = new ObjectMapper().writeValueAsBytes(page);
+        Page page1 = pageDeserializer.deserialize("topic", json);
+        Assert.assertEquals(page.getLink(), page1.getLink());
+        Assert.assertEquals(page.getContent(), page1.getContent());
+        Assert.assertEquals(page.getAnchors(), page1.getAnchors());
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testUnsupportedVersion() {
+        byte[] bytes = pageSerializer.serialize("topic", page);
+        bytes[0] = PageCodec.VERSION + 1;
+        pageDeserializer.deserialize("topic", bytes);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testTruncatedPage() {
+        byte[] bytes = pageSerializer.serialize("topic", page);
+        pageDeserializer.deserialize("topic", Arrays.copyOf(bytes, bytes.length / 2));
+    }
+
+    @Test
+    public void testLazyPage() throws MalformedURLException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("Be your best ").append(i).append(' ');
+        }
+        Page largePage = new Page("http://nimbo.in/mentores", "mentors | nimbo", content.toString(),
+                page.getAnchors(), page.getMetas(), 5.8);
+        PageDeserializer lazyDeserializer = new PageDeserializer();
+        lazyDeserializer.configure(Collections.singletonMap(PageDeserializer.LAZY_DECODE_CONFIG, "true"), false);
+        Page lazyPage = lazyDeserializer.deserialize("topic", pageSerializer.serialize("topic", largePage));
+        Assert.assertTrue(lazyPage instanceof LazyPage);
+        Assert.assertEquals(largePage.getLink(), lazyPage.getLink());
+        Assert.assertEquals(largePage.getReversedLink(), lazyPage.getReversedLink());
+        Assert.assertEquals(largePage.getMetas(), lazyPage.getMetas());
+        Assert.assertEquals(largePage.getAnchors(), lazyPage.getAnchors());
+        Assert.assertEquals(largePage.getContent(), lazyPage.getContent());
+
+        Page copy = pageDeserializer.deserialize("topic", pageSerializer.serialize("topic",
+                lazyDeserializer.deserialize("topic", pageSerializer.serialize("topic", largePage))));
+        Assert.assertEquals(largePage.getContent(), copy.getContent());
+        Assert.assertEquals(largePage.getAnchors(), copy.getAnchors());
+
+        lazyPage.setContent("changed");
+        Assert.assertEquals("changed", pageDeserializer.deserialize("topic",
+                pageSerializer.serialize("topic", lazyPage)).getContent());
+    }
 }
@@ -0,0 +1,38 @@
+package sketch;
+
+import in.nimbo.common.sketch.CountMinSketch;
+import in.nimbo.common.sketch.WindowedCountMinSketch;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void countMinSketchTest() {
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("nimbo.in");
+        }
+        for (int i = 0; i < 10000; i++) {
+            sketch.add("domain" + i + ".com");
+        }
+        assertEquals(100, sketch.estimate("nimbo.in"), 30);
+        assertTrue(sketch.estimate("nimbo.in") >= 100);
+        assertTrue(sketch.estimate("google.com") < 30);
+        assertEquals(10100, sketch.getTotalCount());
+    }
+
+    @Test
+    public void windowedCountMinSketchTest() {
+        WindowedCountMinSketch sketch = new WindowedCountMinSketch(0.001, 0.01, 1000, 0);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("nimbo.in", 500);
+        }
+        assertEquals(100, sketch.estimate("nimbo.in", 999));
+        assertEquals(50, sketch.estimate("nimbo.in", 1500));
+        sketch.add("nimbo.in", 1600);
+        assertEquals(1 + 40, sketch.estimate("nimbo.in", 1600));
+        assertEquals(0, sketch.estimate("nimbo.in", 3000));
+    }
+}
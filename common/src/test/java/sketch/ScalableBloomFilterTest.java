@@ -0,0 +1,63 @@
+package sketch;
+
+import in.nimbo.common.sketch.BloomFilter;
+import in.nimbo.common.sketch.ScalableBloomFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScalableBloomFilterTest {
+
+    @Test
+    public void bloomFilterTest() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.put("https://nimbo.in/" + i));
+        }
+        assertFalse(filter.put("https://nimbo.in/1"));
+        assertEquals(1000, filter.getCount());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("https://nimbo.in/" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("https://google.com/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+        assertTrue(filter.expectedFpp() < 0.02);
+    }
+
+    @Test
+    public void growTest() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01, 1024 * 1024);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("https://nimbo.in/" + i);
+        }
+        assertTrue(filter.getSlicesCount() > 1);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("https://nimbo.in/" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("https://google.com/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+        assertTrue(filter.expectedFpp() < 0.02);
+    }
+
+    @Test
+    public void memoryBoundTest() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01, 1024);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("https://nimbo.in/" + i);
+        }
+        assertTrue(filter.sizeInBytes() <= 1024);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("https://nimbo.in/" + i));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package sketch;
+
+import in.nimbo.common.sketch.SlidingBloomFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SlidingBloomFilterTest {
+
+    @Test
+    public void windowTest() {
+        SlidingBloomFilter filter = new SlidingBloomFilter(1000, 0.01, 3, 1000, 0);
+        filter.put("https://nimbo.in/a", 0);
+        assertTrue(filter.mightContain("https://nimbo.in/a", 500));
+        assertFalse(filter.mightContain("https://nimbo.in/b", 500));
+        filter.put("https://nimbo.in/b", 1500);
+        assertTrue(filter.mightContain("https://nimbo.in/a", 2999));
+        assertFalse(filter.mightContain("https://nimbo.in/a", 3000));
+        assertTrue(filter.mightContain("https://nimbo.in/b", 3000));
+        assertFalse(filter.mightContain("https://nimbo.in/b", 10000));
+    }
+
+    @Test
+    public void capacityTest() {
+        SlidingBloomFilter filter = new SlidingBloomFilter(100, 0.01, 2, 1000, 0);
+        for (int i = 0; i < 150; i++) {
+            filter.put("https://nimbo.in/" + i, 0);
+        }
+        assertTrue(filter.mightContain("https://nimbo.in/120", 0));
+        assertTrue(filter.mightContain("https://nimbo.in/0", 0));
+        for (int i = 150; i < 250; i++) {
+            filter.put("https://nimbo.in/" + i, 0);
+        }
+        assertTrue(filter.mightContain("https://nimbo.in/249", 0));
+        int remembered = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.mightContain("https://nimbo.in/" + i, 0)) {
+                remembered++;
+            }
+        }
+        assertTrue(remembered < 10);
+    }
+}
@@ -10,9 +10,20 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.config.ProjectConfig;
 import in.nimbo.common.config.RedisConfig;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.dao.redis.RedisDAOImpl;
+import in.nimbo.common.service.fetcher.AsyncHttpFetcher;
+import in.nimbo.common.service.fetcher.Fetcher;
+import in.nimbo.common.service.fetcher.JsoupFetcher;
+import in.nimbo.common.service.filter.UrlFilter;
+import in.nimbo.common.service.robots.RobotsService;
 import in.nimbo.common.utility.LanguageDetectorUtility;
-import in.nimbo.dao.redis.RedisDAOImpl;
+import in.nimbo.common.utility.UrlCanonicalizer;
+import in.nimbo.config.CrawlerConfig;
+import in.nimbo.dao.redis.BloomFilterRedisDAO;
 import in.nimbo.service.CrawlerService;
+import in.nimbo.service.DomainExpiry;
+import in.nimbo.service.PolitenessScheduler;
 import in.nimbo.common.service.ParserService;
 import in.nimbo.service.kafka.KafkaService;
 import in.nimbo.service.kafka.KafkaServiceImpl;
@@ -22,22 +33,31 @@ import redis.clients.jedis.JedisCluster;
 
 import java.time.LocalDateTime;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class App {
     private static Logger cliLogger = LoggerFactory.getLogger("cli");
     private static Logger appLogger = LoggerFactory.getLogger("crawler");
     private KafkaService kafkaService;
+    private ParserService parserService;
+    private ScheduledExecutorService redisSyncService;
 
-    public App(KafkaService kafkaService) {
+    public App(KafkaService kafkaService, ParserService parserService, ScheduledExecutorService redisSyncService) {
         this.kafkaService = kafkaService;
+        this.parserService = parserService;
+        this.redisSyncService = redisSyncService;
     }
 
     public static void main(String[] args){
         LanguageDetectorUtility.loadLanguageDetector(appLogger);
 
         ProjectConfig projectConfig = ProjectConfig.load();
+        UrlCanonicalizer.setDefault(new UrlCanonicalizer(projectConfig.getUrlCanonicalIgnoredParameters(),
+                projectConfig.getUrlCanonicalDomainRules()));
         KafkaConfig kafkaConfig = KafkaConfig.load();
+        CrawlerConfig crawlerConfig = CrawlerConfig.load();
         appLogger.info("Configuration loaded");
 
         initReporter(projectConfig);
@@ -45,19 +65,41 @@ public class App {
 
         RedisConfig redisConfig = RedisConfig.load();
         JedisCluster redisCluster = new JedisCluster(redisConfig.getHostAndPorts());
-        RedisDAOImpl redisDAO = new RedisDAOImpl(redisCluster, redisConfig);
+        RedisDAO redisDAO = new RedisDAOImpl(redisCluster, redisConfig);
+        ScheduledExecutorService redisSyncService = Executors.newSingleThreadScheduledExecutor();
+        if (crawlerConfig.isBloomFilterEnabled()) {
+            BloomFilterRedisDAO bloomFilterRedisDAO = new BloomFilterRedisDAO(redisDAO, crawlerConfig);
+            redisSyncService.scheduleWithFixedDelay(bloomFilterRedisDAO::sync,
+                    0, crawlerConfig.getBloomFilterSyncMinutes(), TimeUnit.MINUTES);
+            redisDAO = bloomFilterRedisDAO;
+        }
         appLogger.info("Redis started");
 
+        // domains are kept for caffeine expire time or crawl delay of their robots.txt if it is longer
         Cache<String, LocalDateTime> cache = Caffeine.newBuilder().maximumSize(projectConfig.getCaffeineMaxSize())
-                .expireAfterWrite(projectConfig.getCaffeineExpireTime(), TimeUnit.SECONDS).build();
+                .expireAfter(new DomainExpiry(TimeUnit.SECONDS.toMillis(projectConfig.getCaffeineExpireTime()),
+                        TimeUnit.SECONDS.toMillis(projectConfig.getRobotsMaxCrawlDelay())))
+                .build();
 
-        ParserService parserService = new ParserService(projectConfig);
-        CrawlerService crawlerService = new CrawlerService(cache, redisDAO, parserService);
-        KafkaService kafkaService = new KafkaServiceImpl(crawlerService, kafkaConfig);
+        Fetcher fetcher;
+        if (projectConfig.getFetcherType() == ProjectConfig.FETCHER.ASYNC) {
+            fetcher = AsyncHttpFetcher.createFetcher(projectConfig);
+        } else {
+            fetcher = new JsoupFetcher(projectConfig);
+        }
+        ParserService parserService = new ParserService(projectConfig, fetcher);
+        RobotsService robotsService = new RobotsService(projectConfig, fetcher);
+        CrawlerService crawlerService = new CrawlerService(cache, redisDAO, parserService, robotsService,
+                new UrlFilter(projectConfig));
+        // domains are ready in scheduler when they expire from cache
+        PolitenessScheduler politenessScheduler = new PolitenessScheduler(cache,
+                TimeUnit.SECONDS.toMillis(projectConfig.getCaffeineExpireTime()),
+                crawlerConfig.getPolitenessBacklogSize(), crawlerConfig.getPolitenessDomainBacklogSize());
+        KafkaService kafkaService = new KafkaServiceImpl(crawlerService, politenessScheduler, kafkaConfig, crawlerConfig);
         appLogger.info("Services started");
 
         appLogger.info("Application started");
-        App app = new App(kafkaService);
+        App app = new App(kafkaService, parserService, redisSyncService);
         Runtime.getRuntime().addShutdownHook(new Thread(app::stopApp));
 
         app.startApp();
@@ -85,6 +127,8 @@ public class App {
 
     private void stopApp() {
         kafkaService.stopSchedule();
+        redisSyncService.shutdownNow();
+        parserService.close();
         appLogger.info("Application stopped");
     }
 
@@ -0,0 +1,158 @@
+package in.nimbo.config;
+
+import in.nimbo.common.exception.LoadConfigurationException;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+
+public class CrawlerConfig {
+    public enum MODE {THREAD, ASYNC}
+
+    private static final String CONFIG_NAME = "crawler-config.properties";
+    private MODE executionMode;
+    private int linkBatchSize;
+    private int asyncDispatcherCount;
+    private int asyncMaxInFlightFetches;
+    private int politenessBacklogSize;
+    private int politenessDomainBacklogSize;
+    private boolean bloomFilterEnabled;
+    private long bloomFilterInitialCapacity;
+    private double bloomFilterFpp;
+    private int bloomFilterMaxMegabytes;
+    private int bloomFilterSyncMinutes;
+    private long emittedLinksCacheSize;
+    private int emittedLinksExpireMinutes;
+
+    public static CrawlerConfig load() {
+        CrawlerConfig crawlerConfig = new CrawlerConfig();
+        try {
+            PropertiesConfiguration config = new PropertiesConfiguration(CONFIG_NAME);
+            String executionMode = config.getString("execution.mode");
+            if (executionMode.equals("thread")) {
+                crawlerConfig.setExecutionMode(MODE.THREAD);
+            } else if (executionMode.equals("async")) {
+                crawlerConfig.setExecutionMode(MODE.ASYNC);
+            } else {
+                throw new ConfigurationException(CONFIG_NAME + ": execution mode is illegal");
+            }
+            crawlerConfig.setLinkBatchSize(config.getInt("link.batch.size"));
+            crawlerConfig.setAsyncDispatcherCount(config.getInt("async.dispatcher.count"));
+            crawlerConfig.setAsyncMaxInFlightFetches(config.getInt("async.max.inflight.fetches"));
+            crawlerConfig.setPolitenessBacklogSize(config.getInt("politeness.backlog.size"));
+            crawlerConfig.setPolitenessDomainBacklogSize(config.getInt("politeness.domain.backlog.size"));
+            crawlerConfig.setBloomFilterEnabled(config.getBoolean("bloom.filter.enabled"));
+            crawlerConfig.setBloomFilterInitialCapacity(config.getLong("bloom.filter.initial.capacity"));
+            crawlerConfig.setBloomFilterFpp(config.getDouble("bloom.filter.fpp"));
+            crawlerConfig.setBloomFilterMaxMegabytes(config.getInt("bloom.filter.max.megabytes"));
+            crawlerConfig.setBloomFilterSyncMinutes(config.getInt("bloom.filter.sync.minutes"));
+            crawlerConfig.setEmittedLinksCacheSize(config.getLong("emitted.links.cache.size"));
+            crawlerConfig.setEmittedLinksExpireMinutes(config.getInt("emitted.links.expire.minutes"));
+            return crawlerConfig;
+        } catch (ConfigurationException e) {
+            throw new LoadConfigurationException(CONFIG_NAME, e);
+        }
+    }
+
+    public MODE getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(MODE executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getLinkBatchSize() {
+        return linkBatchSize;
+    }
+
+    public void setLinkBatchSize(int linkBatchSize) {
+        this.linkBatchSize = linkBatchSize;
+    }
+
+    public int getAsyncDispatcherCount() {
+        return asyncDispatcherCount;
+    }
+
+    public void setAsyncDispatcherCount(int asyncDispatcherCount) {
+        this.asyncDispatcherCount = asyncDispatcherCount;
+    }
+
+    public int getAsyncMaxInFlightFetches() {
+        return asyncMaxInFlightFetches;
+    }
+
+    public void setAsyncMaxInFlightFetches(int asyncMaxInFlightFetches) {
+        this.asyncMaxInFlightFetches = asyncMaxInFlightFetches;
+    }
+
+    public int getPolitenessBacklogSize() {
+        return politenessBacklogSize;
+    }
+
+    public void setPolitenessBacklogSize(int politenessBacklogSize) {
+        this.politenessBacklogSize = politenessBacklogSize;
+    }
+
+    public int getPolitenessDomainBacklogSize() {
+        return politenessDomainBacklogSize;
+    }
+
+    public void setPolitenessDomainBacklogSize(int politenessDomainBacklogSize) {
+        this.politenessDomainBacklogSize = politenessDomainBacklogSize;
+    }
+
+    public boolean isBloomFilterEnabled() {
+        return bloomFilterEnabled;
+    }
+
+    public void setBloomFilterEnabled(boolean bloomFilterEnabled) {
+        this.bloomFilterEnabled = bloomFilterEnabled;
+    }
+
+    public long getBloomFilterInitialCapacity() {
+        return bloomFilterInitialCapacity;
+    }
+
+    public void setBloomFilterInitialCapacity(long bloomFilterInitialCapacity) {
+        this.bloomFilterInitialCapacity = bloomFilterInitialCapacity;
+    }
+
+    public double getBloomFilterFpp() {
+        return bloomFilterFpp;
+    }
+
+    public void setBloomFilterFpp(double bloomFilterFpp) {
+        this.bloomFilterFpp = bloomFilterFpp;
+    }
+
+    public int getBloomFilterMaxMegabytes() {
+        return bloomFilterMaxMegabytes;
+    }
+
+    public void setBloomFilterMaxMegabytes(int bloomFilterMaxMegabytes) {
+        this.bloomFilterMaxMegabytes = bloomFilterMaxMegabytes;
+    }
+
+    public int getBloomFilterSyncMinutes() {
+        return bloomFilterSyncMinutes;
+    }
+
+    public void setBloomFilterSyncMinutes(int bloomFilterSyncMinutes) {
+        this.bloomFilterSyncMinutes = bloomFilterSyncMinutes;
+    }
+
+    public long getEmittedLinksCacheSize() {
+        return emittedLinksCacheSize;
+    }
+
+    public void setEmittedLinksCacheSize(long emittedLinksCacheSize) {
+        this.emittedLinksCacheSize = emittedLinksCacheSize;
+    }
+
+    public int getEmittedLinksExpireMinutes() {
+        return emittedLinksExpireMinutes;
+    }
+
+    public void setEmittedLinksExpireMinutes(int emittedLinksExpireMinutes) {
+        this.emittedLinksExpireMinutes = emittedLinksExpireMinutes;
+    }
+}
@@ -0,0 +1,194 @@
+package in.nimbo.dao.redis;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.entity.Fingerprint;
+import in.nimbo.common.sketch.ScalableBloomFilter;
+import in.nimbo.config.CrawlerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * local bloom filter tier in front of redis
+ * links which are definitely not in filter are not checked with redis
+ * filter is rebuilt from keys of redis periodically to see links of other crawlers,
+ * before first load all checks are sent to redis
+ * during rebuild two filters are kept in memory
+ */
+public class BloomFilterRedisDAO implements RedisDAO {
+    private static final long MEGABYTE = 1024L * 1024L;
+    private Logger logger = LoggerFactory.getLogger("crawler");
+    private RedisDAO redisDAO;
+    private CrawlerConfig config;
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter loadingFilter;
+    private volatile boolean loaded;
+
+    private Counter containsCounter;
+    private Counter localMissCounter;
+    private Counter falsePositiveCounter;
+
+    public BloomFilterRedisDAO(RedisDAO redisDAO, CrawlerConfig config) {
+        this.redisDAO = redisDAO;
+        this.config = config;
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        containsCounter = metricRegistry.counter(MetricRegistry.name(BloomFilterRedisDAO.class, "containsCounter"));
+        localMissCounter = metricRegistry.counter(MetricRegistry.name(BloomFilterRedisDAO.class, "localMissCounter"));
+        falsePositiveCounter = metricRegistry.counter(MetricRegistry.name(BloomFilterRedisDAO.class, "falsePositiveCounter"));
+        metricRegistry.gauge(MetricRegistry.name(BloomFilterRedisDAO.class, "expectedFpp"),
+                () -> (Gauge<Double>) () -> loaded ? filter.expectedFpp() : 0);
+        metricRegistry.gauge(MetricRegistry.name(BloomFilterRedisDAO.class, "sizeInBytes"),
+                () -> (Gauge<Long>) () -> loaded ? filter.sizeInBytes() : 0);
+        metricRegistry.gauge(MetricRegistry.name(BloomFilterRedisDAO.class, "localHitRatio"),
+                () -> new RatioGauge() {
+                    @Override
+                    protected Ratio getRatio() {
+                        return Ratio.of(localMissCounter.getCount(), containsCounter.getCount());
+                    }
+                });
+        metricRegistry.gauge(MetricRegistry.name(BloomFilterRedisDAO.class, "observedFpp"),
+                () -> new RatioGauge() {
+                    @Override
+                    protected Ratio getRatio() {
+                        return Ratio.of(falsePositiveCounter.getCount(),
+                                falsePositiveCounter.getCount() + localMissCounter.getCount());
+                    }
+                });
+    }
+
+    @Override
+    public void add(Fingerprint link) {
+        redisDAO.add(link);
+        putLocal(link);
+    }
+
+    @Override
+    public boolean markIfAbsent(Fingerprint link) {
+        boolean marked = redisDAO.markIfAbsent(link);
+        putLocal(link);
+        return marked;
+    }
+
+    @Override
+    public boolean contains(Fingerprint link) {
+        if (!loaded) {
+            return redisDAO.contains(link);
+        }
+        containsCounter.inc();
+        if (!mightContainLocal(link)) {
+            localMissCounter.inc();
+            return false;
+        }
+        boolean contains = redisDAO.contains(link);
+        if (!contains) {
+            falsePositiveCounter.inc();
+        }
+        return contains;
+    }
+
+    /**
+     * only links which are probably in filter are checked with redis
+     */
+    @Override
+    public List<Boolean> containsAll(List<Fingerprint> links) {
+        if (!loaded) {
+            return redisDAO.containsAll(links);
+        }
+        containsCounter.inc(links.size());
+        Boolean[] results = new Boolean[links.size()];
+        List<Fingerprint> maybeLinks = new ArrayList<>();
+        for (int i = 0; i < links.size(); i++) {
+            if (mightContainLocal(links.get(i))) {
+                maybeLinks.add(links.get(i));
+            } else {
+                localMissCounter.inc();
+                results[i] = false;
+            }
+        }
+        if (!maybeLinks.isEmpty()) {
+            List<Boolean> redisResults = redisDAO.containsAll(maybeLinks);
+            int redisIndex = 0;
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = redisResults.get(redisIndex++);
+                    if (!results[i]) {
+                        falsePositiveCounter.inc();
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<Boolean> markAllIfAbsent(List<Fingerprint> links) {
+        List<Boolean> results = redisDAO.markAllIfAbsent(links);
+        for (Fingerprint link : links) {
+            putLocal(link);
+        }
+        return results;
+    }
+
+    @Override
+    public void forEachKey(Consumer<Fingerprint> consumer) {
+        redisDAO.forEachKey(consumer);
+    }
+
+    /**
+     * rebuild filter from keys of redis
+     * links which are added during rebuild are inserted in both filters
+     */
+    public void sync() {
+        long startTime = System.currentTimeMillis();
+        ScalableBloomFilter nextFilter = createFilter();
+        loadingFilter = nextFilter;
+        try {
+            redisDAO.forEachKey(link -> nextFilter.put(link.getHigh(), link.getLow()));
+            filter = nextFilter;
+            loaded = true;
+            logger.info("Bloom filter synced with {} keys in {} ms", nextFilter.getCount(),
+                    System.currentTimeMillis() - startTime);
+        } catch (JedisException e) {
+            logger.error("Unable to sync bloom filter with redis", e);
+        } finally {
+            loadingFilter = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private void putLocal(Fingerprint link) {
+        if (loaded) {
+            filter.put(link.getHigh(), link.getLow());
+        }
+        ScalableBloomFilter nextFilter = loadingFilter;
+        if (nextFilter != null) {
+            nextFilter.put(link.getHigh(), link.getLow());
+        }
+    }
+
+    /**
+     * two halves of fingerprint are used as two hashes of bloom filter, so link is not hashed again
+     */
+    private boolean mightContainLocal(Fingerprint link) {
+        return filter.mightContain(link.getHigh(), link.getLow());
+    }
+
+    private ScalableBloomFilter createFilter() {
+        return new ScalableBloomFilter(config.getBloomFilterInitialCapacity(), config.getBloomFilterFpp(),
+                config.getBloomFilterMaxMegabytes() * MEGABYTE);
+    }
+}
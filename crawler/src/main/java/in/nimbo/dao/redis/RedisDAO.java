@@ -1,7 +0,0 @@
-package in.nimbo.dao.redis;
-
-public interface RedisDAO {
-    void add(String link);
-
-    boolean contains(String link);
-}
@@ -5,25 +5,41 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
 import com.github.benmanes.caffeine.cache.Cache;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.entity.Fingerprint;
 import in.nimbo.common.entity.Page;
-import in.nimbo.common.exception.InvalidLinkException;
 import in.nimbo.common.exception.ParseLinkException;
 import in.nimbo.common.service.ParserService;
+import in.nimbo.common.service.filter.UrlFilter;
+import in.nimbo.common.service.robots.RobotsRules;
+import in.nimbo.common.service.robots.RobotsService;
 import in.nimbo.common.utility.LinkUtility;
-import in.nimbo.dao.redis.RedisDAO;
+import in.nimbo.common.utility.UrlParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class CrawlerService {
+    /**
+     * result of checking a link before crawling
+     * ROBOTS_PENDING means robots.txt of host is being fetched and link must be checked later like a cache hit
+     * FILTERED means link is rejected by url filter
+     */
+    public enum LinkStatus {FETCH, CACHE_HIT, ROBOTS_PENDING, DISALLOWED, DUPLICATE, INVALID, FILTERED}
+
     private Timer getPageTimer;
     private Counter skippedLinksCounter;
     private Counter crawledLinksCounter;
     private Counter cacheMissCounter;
     private Counter cacheHitCounter;
+    private Counter duplicateFetchCounter;
+    private Counter robotsPendingCounter;
+    private Counter disallowedLinksCounter;
     private Timer redisContainTimer;
 
     private Logger appLogger = LoggerFactory.getLogger("app");
@@ -31,65 +47,185 @@ public class CrawlerService {
     private Cache<String, LocalDateTime> cache;
     private RedisDAO redisDAO;
     private ParserService parserService;
+    private RobotsService robotsService;
+    private UrlFilter urlFilter;
 
+    /**
+     * @param cache domain cache which value of a domain is the time it may be fetched again because of crawl delay,
+     *              a domain is present in cache while it is visited recently
+     */
     public CrawlerService(Cache<String, LocalDateTime> cache,
                           RedisDAO redisDAO,
-                          ParserService parserService) {
+                          ParserService parserService,
+                          RobotsService robotsService,
+                          UrlFilter urlFilter) {
         this.cache = cache;
         this.parserService = parserService;
         this.redisDAO = redisDAO;
+        this.robotsService = robotsService;
+        this.urlFilter = urlFilter;
         MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
         getPageTimer = metricRegistry.timer(MetricRegistry.name(CrawlerService.class, "getPage"));
         skippedLinksCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "skippedLinksCounter"));
         crawledLinksCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "crawledLinksCounter"));
         cacheMissCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "cacheMissCounter"));
         cacheHitCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "cacheHitCounter"));
+        duplicateFetchCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "duplicateFetchCounter"));
+        robotsPendingCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "robotsPendingCounter"));
+        disallowedLinksCounter = metricRegistry.counter(MetricRegistry.name(CrawlerService.class, "disallowedLinksCounter"));
         redisContainTimer = metricRegistry.timer(MetricRegistry.name(CrawlerService.class, "redisContain"));
     }
 
     /**
-     *
-     * @param siteLink url of crawling page
-     * @return crawler page otherwise Optional.empty if this domain was visited recently
-     * @throws InvalidLinkException if link is invalid
-     * @throws ParseLinkException if any exception happen in parser
+     * check a batch of links with url filter, domain cache, robots.txt and redis and mark links which must be fetched as crawled
+     * robots.txt is checked before redis, so disallowed links never reach redis
+     * redis is called once per node for whole batch instead of once per link
+     * links are marked with SET NX, so a link which is marked by another thread or crawler
+     * after check is not fetched again and it is counted as a removed duplicate fetch
+     * only first link of each domain in batch is fetched and other links are treated as cache hit
+     * @param siteLinks urls of crawling pages
+     * @return status of each link in order of links
      */
-    public Optional<Page> crawl(String siteLink) {
-        appLogger.info("Start crawling link {}", siteLink);
-        try {
-            String siteDomain = LinkUtility.getMainDomain(siteLink);
-            if (cache.getIfPresent(siteDomain) == null) {
-                cacheMissCounter.inc();
-                Timer.Context redisContainTimerContext = redisContainTimer.time();
-                boolean contains = isCrawled(siteLink);
-                redisContainTimerContext.stop();
-                if (!contains) {
-                    crawledLinksCounter.inc();
-                    redisDAO.add(LinkUtility.hashLinkCompressed(siteLink));
-                    cache.put(siteDomain, LocalDateTime.now());
-                    Timer.Context context = getPageTimer.time();
-                    appLogger.info("Start parse link {}", siteLink);
-                    Page page = parserService.getPage(siteLink);
-                    appLogger.info("Finish parsing link {}", siteLink);
-                    context.stop();
-                    return Optional.of(page);
+    public List<LinkStatus> startCrawlAll(List<String> siteLinks) {
+        LinkStatus[] statuses = new LinkStatus[siteLinks.size()];
+        String[] domains = new String[siteLinks.size()];
+        long[] crawlDelays = new long[siteLinks.size()];
+        List<Fingerprint> checkHashes = new ArrayList<>();
+        List<Integer> checkIndexes = new ArrayList<>();
+        for (int i = 0; i < siteLinks.size(); i++) {
+            String siteLink = siteLinks.get(i);
+            appLogger.info("Start crawling link {}", siteLink);
+            if (isFiltered(siteLink)) {
+                appLogger.info("Skip link {} because of url filter", siteLink);
+                statuses[i] = LinkStatus.FILTERED;
+                continue;
+            }
+            try {
+                domains[i] = LinkUtility.getMainDomain(siteLink);
+                if (cache.getIfPresent(domains[i]) == null) {
+                    cacheMissCounter.inc();
+                    RobotsRules rules = robotsService.getRules(siteLink).orElse(null);
+                    statuses[i] = checkRobots(siteLink, rules);
+                    if (statuses[i] == LinkStatus.FETCH) {
+                        crawlDelays[i] = rules.getCrawlDelayMillis();
+                        checkHashes.add(Fingerprint.of(siteLink));
+                        checkIndexes.add(i);
+                    }
                 } else {
-                    appLogger.info("Skip link {} because crawled before", siteLink);
+                    appLogger.info("Skip link {} because of cache hit", siteLink);
+                    cacheHitCounter.inc();
+                    statuses[i] = LinkStatus.CACHE_HIT;
+                }
+            } catch (MalformedURLException e) {
+                appLogger.warn("Illegal URL format: " + siteLink, e);
+                statuses[i] = LinkStatus.INVALID;
+            }
+        }
+        if (!checkHashes.isEmpty()) {
+            Timer.Context redisContainTimerContext = redisContainTimer.time();
+            List<Boolean> contains = redisDAO.containsAll(checkHashes);
+            redisContainTimerContext.stop();
+            Set<String> batchDomains = new HashSet<>();
+            Set<Fingerprint> batchHashes = new HashSet<>();
+            List<Fingerprint> newHashes = new ArrayList<>();
+            List<Integer> newIndexes = new ArrayList<>();
+            for (int i = 0; i < checkIndexes.size(); i++) {
+                int index = checkIndexes.get(i);
+                Fingerprint hash = checkHashes.get(i);
+                if (contains.get(i) || batchHashes.contains(hash)) {
+                    appLogger.info("Skip link {} because crawled before", siteLinks.get(index));
                     skippedLinksCounter.inc();
-                    throw new InvalidLinkException("duplicated link: " + siteLink);
+                    statuses[index] = LinkStatus.DUPLICATE;
+                } else if (!batchDomains.add(domains[index])) {
+                    appLogger.info("Skip link {} because of cache hit", siteLinks.get(index));
+                    cacheHitCounter.inc();
+                    statuses[index] = LinkStatus.CACHE_HIT;
+                } else {
+                    batchHashes.add(hash);
+                    newHashes.add(hash);
+                    newIndexes.add(index);
+                }
+            }
+            if (!newHashes.isEmpty()) {
+                List<Boolean> marked = redisDAO.markAllIfAbsent(newHashes);
+                for (int i = 0; i < newIndexes.size(); i++) {
+                    int index = newIndexes.get(i);
+                    if (marked.get(i)) {
+                        crawledLinksCounter.inc();
+                        cache.put(domains[index], LocalDateTime.now().plus(crawlDelays[index], ChronoUnit.MILLIS));
+                        statuses[index] = LinkStatus.FETCH;
+                    } else {
+                        appLogger.info("Skip link {} because another crawler marked it", siteLinks.get(index));
+                        skippedLinksCounter.inc();
+                        duplicateFetchCounter.inc();
+                        statuses[index] = LinkStatus.DUPLICATE;
+                    }
                 }
-            } else {
-                appLogger.info("Skip link {} because of cache hit", siteLink);
-                cacheHitCounter.inc();
-                return Optional.empty();
             }
-        } catch (MalformedURLException e) {
-            appLogger.warn("Illegal URL format: " + siteLink, e);
         }
-        throw new InvalidLinkException();
+        return Arrays.asList(statuses);
+    }
+
+    /**
+     * fetch and parse page of a link which is checked with startCrawlAll
+     * @param siteLink url of crawling page
+     * @return crawled page
+     * @throws ParseLinkException if any exception happen in parser
+     */
+    public Page getPage(String siteLink) {
+        Timer.Context context = getPageTimer.time();
+        appLogger.info("Start parse link {}", siteLink);
+        Page page = parserService.getPage(siteLink);
+        appLogger.info("Finish parsing link {}", siteLink);
+        context.stop();
+        return page;
+    }
+
+    /**
+     * non blocking version of getPage
+     * @param siteLink url of crawling page
+     * @return future of crawled page which is completed exceptionally with ParseLinkException
+     * if any exception happen in parser
+     */
+    public CompletableFuture<Page> getPageAsync(String siteLink) {
+        Timer.Context context = getPageTimer.time();
+        appLogger.info("Start parse link {}", siteLink);
+        return parserService.getPageAsync(siteLink).whenComplete((page, throwable) -> {
+            context.stop();
+            if (throwable == null) {
+                appLogger.info("Finish parsing link {}", siteLink);
+            }
+        });
+    }
+
+    /**
+     * @return true if link is a valid url which is rejected by url filter, invalid links are handled by caller
+     */
+    private boolean isFiltered(String siteLink) {
+        UrlParser urlParser = UrlParser.local();
+        return urlParser.parse(siteLink) && urlParser.isValid() && !urlFilter.accept(urlParser);
+    }
+
+    /**
+     * check link with rules of robots.txt of its host
+     * @param rules rules of host or null if robots.txt of host is being fetched
+     * @return FETCH if link is allowed, DISALLOWED if it is disallowed
+     * or ROBOTS_PENDING if robots.txt of host is being fetched
+     */
+    private LinkStatus checkRobots(String siteLink, RobotsRules rules) {
+        if (rules == null) {
+            appLogger.info("Postpone link {} until robots.txt is fetched", siteLink);
+            robotsPendingCounter.inc();
+            return LinkStatus.ROBOTS_PENDING;
+        } else if (!rules.isAllowed(siteLink)) {
+            appLogger.info("Skip link {} because of robots.txt", siteLink);
+            disallowedLinksCounter.inc();
+            return LinkStatus.DISALLOWED;
+        }
+        return LinkStatus.FETCH;
     }
 
     public boolean isCrawled(String link) {
-        return redisDAO.contains(LinkUtility.hashLinkCompressed(link));
+        return redisDAO.contains(Fingerprint.of(link));
     }
 }
@@ -0,0 +1,37 @@
+package in.nimbo.service;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * expiry of domain cache which value of a domain is the time it may be fetched again because of crawl delay
+ * a domain is kept at least for default politeness delay and at most for max crawl delay
+ */
+public class DomainExpiry implements Expiry<String, LocalDateTime> {
+    private long minNanos;
+    private long maxNanos;
+
+    public DomainExpiry(long minMillis, long maxMillis) {
+        this.minNanos = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(minMillis, maxMillis));
+    }
+
+    @Override
+    public long expireAfterCreate(String domain, LocalDateTime fetchTime, long currentTime) {
+        long delayNanos = Duration.between(LocalDateTime.now(), fetchTime).toNanos();
+        return Math.min(maxNanos, Math.max(minNanos, delayNanos));
+    }
+
+    @Override
+    public long expireAfterUpdate(String domain, LocalDateTime fetchTime, long currentTime, long currentDuration) {
+        return expireAfterCreate(domain, fetchTime, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String domain, LocalDateTime fetchTime, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
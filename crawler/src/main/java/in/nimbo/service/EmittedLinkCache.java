@@ -0,0 +1,52 @@
+package in.nimbo.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.nimbo.config.CrawlerConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bounded set of links which are sent to shuffler recently
+ * popular links (menus, footers) are kept by frequency based eviction of cache, so they are sent rarely
+ * cache is thread safe and it is shared between producer services
+ */
+public class EmittedLinkCache {
+    private Cache<String, Boolean> emittedLinks;
+    private Counter emittedLinksCounter;
+    private Counter skippedLinksCounter;
+
+    public EmittedLinkCache(CrawlerConfig crawlerConfig) {
+        emittedLinks = Caffeine.newBuilder()
+                .maximumSize(crawlerConfig.getEmittedLinksCacheSize())
+                .expireAfterWrite(crawlerConfig.getEmittedLinksExpireMinutes(), TimeUnit.MINUTES)
+                .build();
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        emittedLinksCounter = metricRegistry.counter(MetricRegistry.name(EmittedLinkCache.class, "emittedLinksCounter"));
+        skippedLinksCounter = metricRegistry.counter(MetricRegistry.name(EmittedLinkCache.class, "skippedLinksCounter"));
+    }
+
+    /**
+     * mark links as emitted
+     *
+     * @param links links which are going to be sent
+     * @return links which are not emitted recently in same order, duplicate links are returned once
+     */
+    public List<String> markNew(Collection<String> links) {
+        List<String> newLinks = new ArrayList<>(links.size());
+        for (String link : links) {
+            if (emittedLinks.asMap().putIfAbsent(link, Boolean.TRUE) == null) {
+                newLinks.add(link);
+            }
+        }
+        emittedLinksCounter.inc(newLinks.size());
+        skippedLinksCounter.inc(links.size() - newLinks.size());
+        return newLinks;
+    }
+}
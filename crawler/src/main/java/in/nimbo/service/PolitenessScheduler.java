@@ -0,0 +1,199 @@
+package in.nimbo.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.github.benmanes.caffeine.cache.Cache;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.common.utility.LinkUtility;
+
+import java.net.MalformedURLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * local backlog of links whose domain was visited recently
+ * links are kept in a queue per domain and each domain becomes ready again
+ * when it is removed from domain cache, so links don't need to be sent back to shuffler
+ * records of links are acknowledged by their handlers after they leave scheduler
+ */
+public class PolitenessScheduler {
+    private Cache<String, LocalDateTime> domainCache;
+    private long delayMillis;
+    private int maxBacklogSize;
+    private int maxDomainBacklogSize;
+
+    private Map<String, DomainQueue> domainQueues;
+    private PriorityQueue<DomainQueue> readyQueue;
+    private int backlogSize;
+
+    private Counter scheduledLinksCounter;
+    private Counter overflowLinksCounter;
+
+    /**
+     * @param domainCache cache of domains which are visited recently, a domain is ready when it expires from cache
+     * @param delayMillis delay of domains whose expiry is unknown, e.g. domains which are not in cache
+     *                    while robots.txt of their host is fetched or domains whose link is polled just now
+     */
+    public PolitenessScheduler(Cache<String, LocalDateTime> domainCache, long delayMillis,
+                               int maxBacklogSize, int maxDomainBacklogSize) {
+        this.domainCache = domainCache;
+        this.delayMillis = delayMillis;
+        this.maxBacklogSize = maxBacklogSize;
+        this.maxDomainBacklogSize = maxDomainBacklogSize;
+        domainQueues = new HashMap<>();
+        readyQueue = new PriorityQueue<>(Comparator.comparingLong(DomainQueue::getNextFetchTime));
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        scheduledLinksCounter = metricRegistry.counter(MetricRegistry.name(PolitenessScheduler.class, "scheduledLinksCounter"));
+        overflowLinksCounter = metricRegistry.counter(MetricRegistry.name(PolitenessScheduler.class, "overflowLinksCounter"));
+    }
+
+    /**
+     * keep link until its domain is allowed to be fetched again
+     * @param link link which its domain was visited recently
+     * @return false if link is not scheduled because backlog is full or link is invalid
+     */
+    public boolean schedule(QueuedRecord<String> link) {
+        return schedule(link, System.currentTimeMillis());
+    }
+
+    synchronized boolean schedule(QueuedRecord<String> link, long now) {
+        String domain;
+        try {
+            domain = LinkUtility.getMainDomain(link.getValue());
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        DomainQueue domainQueue = domainQueues.get(domain);
+        if (backlogSize >= maxBacklogSize ||
+                (domainQueue != null && domainQueue.links.size() >= maxDomainBacklogSize)) {
+            overflowLinksCounter.inc();
+            return false;
+        }
+        if (domainQueue == null) {
+            domainQueue = new DomainQueue(domain, getNextFetchTime(domain, now));
+            domainQueues.put(domain, domainQueue);
+            readyQueue.add(domainQueue);
+        }
+        domainQueue.links.addLast(link);
+        backlogSize++;
+        scheduledLinksCounter.inc();
+        return true;
+    }
+
+    /**
+     * put a polled link back to head of its domain queue, because its domain was visited again before it is fetched
+     * domain becomes ready when it is removed from domain cache
+     * link is always accepted because it was in backlog
+     * @param link link which is polled from scheduler
+     * @return false if link is invalid
+     */
+    public boolean reschedule(QueuedRecord<String> link) {
+        return reschedule(link, System.currentTimeMillis());
+    }
+
+    synchronized boolean reschedule(QueuedRecord<String> link, long now) {
+        String domain;
+        try {
+            domain = LinkUtility.getMainDomain(link.getValue());
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        DomainQueue domainQueue = domainQueues.get(domain);
+        if (domainQueue == null) {
+            domainQueue = new DomainQueue(domain, 0);
+            domainQueues.put(domain, domainQueue);
+        } else {
+            readyQueue.remove(domainQueue);
+        }
+        domainQueue.nextFetchTime = getNextFetchTime(domain, now);
+        readyQueue.add(domainQueue);
+        domainQueue.links.addFirst(link);
+        backlogSize++;
+        scheduledLinksCounter.inc();
+        return true;
+    }
+
+    /**
+     * @return time which domain expires from domain cache or time after default delay if its expiry is unknown
+     */
+    private long getNextFetchTime(String domain, long now) {
+        OptionalLong expiresAfter = domainCache.policy().expireVariably()
+                .map(expiration -> expiration.getExpiresAfter(domain, TimeUnit.MILLISECONDS))
+                .orElse(OptionalLong.empty());
+        return now + expiresAfter.orElse(delayMillis);
+    }
+
+    /**
+     * @return a link whose domain is allowed to be fetched now or null if there isn't any
+     */
+    public QueuedRecord<String> poll() {
+        return poll(System.currentTimeMillis());
+    }
+
+    synchronized QueuedRecord<String> poll(long now) {
+        DomainQueue domainQueue = readyQueue.peek();
+        if (domainQueue == null || domainQueue.nextFetchTime > now) {
+            return null;
+        }
+        readyQueue.poll();
+        QueuedRecord<String> link = domainQueue.links.pollFirst();
+        backlogSize--;
+        if (domainQueue.links.isEmpty()) {
+            domainQueues.remove(domainQueue.domain);
+        } else {
+            domainQueue.nextFetchTime = now + delayMillis;
+            readyQueue.add(domainQueue);
+        }
+        return link;
+    }
+
+    /**
+     * remove links which are accepted by filter, e.g. links of partitions which are owned by another crawler
+     * @param linkFilter filter of links
+     * @return removed links
+     */
+    public synchronized List<QueuedRecord<String>> drain(Predicate<QueuedRecord<String>> linkFilter) {
+        List<QueuedRecord<String>> links = new ArrayList<>();
+        Iterator<DomainQueue> iterator = domainQueues.values().iterator();
+        while (iterator.hasNext()) {
+            DomainQueue domainQueue = iterator.next();
+            Iterator<QueuedRecord<String>> linkIterator = domainQueue.links.iterator();
+            while (linkIterator.hasNext()) {
+                QueuedRecord<String> link = linkIterator.next();
+                if (linkFilter.test(link)) {
+                    links.add(link);
+                    linkIterator.remove();
+                    backlogSize--;
+                }
+            }
+            if (domainQueue.links.isEmpty()) {
+                readyQueue.remove(domainQueue);
+                iterator.remove();
+            }
+        }
+        return links;
+    }
+
+    public synchronized int size() {
+        return backlogSize;
+    }
+
+    private static class DomainQueue {
+        private String domain;
+        private long nextFetchTime;
+        private Deque<QueuedRecord<String>> links;
+
+        private DomainQueue(String domain, long nextFetchTime) {
+            this.domain = domain;
+            this.nextFetchTime = nextFetchTime;
+            this.links = new ArrayDeque<>();
+        }
+
+        private long getNextFetchTime() {
+            return nextFetchTime;
+        }
+    }
+}
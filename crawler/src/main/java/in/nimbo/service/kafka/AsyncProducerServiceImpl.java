@@ -0,0 +1,131 @@
+package in.nimbo.service.kafka;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.config.CrawlerConfig;
+import in.nimbo.service.CrawlerService;
+import in.nimbo.service.CrawlerService.LinkStatus;
+import in.nimbo.service.EmittedLinkCache;
+import in.nimbo.service.PolitenessScheduler;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.errors.InterruptException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * check batches of links of local queue and dispatch fetching of new links as non blocking tasks
+ * number of tasks which are fetching or parsing at the same time is bounded by max in flight fetches
+ * so a few dispatcher threads are enough instead of one blocking thread per link
+ */
+public class AsyncProducerServiceImpl extends ProducerServiceImpl {
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 60;
+    private Semaphore inFlightPermits;
+    private int maxInFlightFetches;
+
+    private Counter completedTasksCounter;
+    private Counter failedTasksCounter;
+    private Timer taskTimer;
+
+    public AsyncProducerServiceImpl(KafkaConfig config, CrawlerConfig crawlerConfig, BlockingQueue<QueuedRecord<String>> messageQueue,
+                                    Producer<String, Page> pageProducer, Producer<String, String> shufflerProducer,
+                                    CrawlerService crawlerService, PolitenessScheduler politenessScheduler,
+                                    EmittedLinkCache emittedLinkCache, CountDownLatch countDownLatch,
+                                    int maxInFlightFetches) {
+        super(config, crawlerConfig, messageQueue, pageProducer, shufflerProducer, crawlerService,
+                politenessScheduler, emittedLinkCache, countDownLatch);
+        this.maxInFlightFetches = maxInFlightFetches;
+        this.inFlightPermits = new Semaphore(maxInFlightFetches);
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        completedTasksCounter = metricRegistry.counter(MetricRegistry.name(ProducerService.class, "completedTasksCounter"));
+        failedTasksCounter = metricRegistry.counter(MetricRegistry.name(ProducerService.class, "failedTasksCounter"));
+        taskTimer = metricRegistry.timer(MetricRegistry.name(ProducerService.class, "taskTimer"));
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed.get()) {
+                List<QueuedRecord<String>> newLinks = takeLinks();
+                List<LinkStatus> statuses = checkLinks(newLinks);
+                for (int i = 0; i < newLinks.size(); i++) {
+                    if (statuses.get(i) == LinkStatus.FETCH) {
+                        // link is marked as crawled, so it must be dispatched even if service is interrupted
+                        inFlightPermits.acquireUninterruptibly();
+                        dispatch(newLinks.get(i));
+                    } else {
+                        handleStatus(newLinks.get(i), statuses.get(i));
+                        allLinksCounter.inc();
+                    }
+                }
+            }
+        } catch (InterruptedException | InterruptException e) {
+            logger.info("Async page producer service interrupted successfully");
+        } finally {
+            awaitInFlightTasks();
+            logger.info("Async page producer service stopped successfully");
+            countDownLatch.countDown();
+        }
+    }
+
+    /**
+     * @return number of tasks which are fetching or parsing now
+     */
+    public int getInFlightTasks() {
+        return maxInFlightFetches - inFlightPermits.availablePermits();
+    }
+
+    private void dispatch(QueuedRecord<String> link) {
+        Timer.Context context = taskTimer.time();
+        CompletableFuture<Page> future;
+        try {
+            future = crawlerService.getPageAsync(link.getValue());
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((page, throwable) -> {
+            try {
+                if (throwable == null) {
+                    handleResult(link, Optional.of(page));
+                    completedTasksCounter.inc();
+                } else {
+                    handleFailure(link, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                    failedTasksCounter.inc();
+                }
+            } catch (Exception e) {
+                logger.error("Uncached exception", e);
+                failedTasksCounter.inc();
+            } finally {
+                context.stop();
+                allLinksCounter.inc();
+                inFlightPermits.release();
+            }
+        });
+    }
+
+    /**
+     * wait until all dispatched tasks send their result before closing producers
+     */
+    private void awaitInFlightTasks() {
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (inFlightPermits.tryAcquire(maxInFlightFetches, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                inFlightPermits.release(maxInFlightFetches);
+            } else {
+                logger.warn("Timeout while waiting for {} in flight tasks", getInFlightTasks());
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,36 +1,50 @@
 package in.nimbo.service.kafka;
 
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.kafka.QueueFeeder;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.utility.CloseUtility;
 import org.apache.kafka.clients.consumer.CommitFailedException;
 import org.apache.kafka.clients.consumer.Consumer;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * consume links and hand them off to local queue of crawler without blocking in poll loop
+ * partitions are paused while queue is full and only offsets of links which are acknowledged by handlers are committed
+ */
 public class ConsumerServiceImpl implements ConsumerService {
     private Logger logger = LoggerFactory.getLogger("crawler");
-    private BlockingQueue<String> messageQueue;
+    private BlockingQueue<QueuedRecord<String>> messageQueue;
     private KafkaConfig kafkaConfig;
-    private Consumer<String, String> consumer;
+    private Consumer<String, Link> consumer;
 
     private CountDownLatch countDownLatch;
     private AtomicBoolean closed = new AtomicBoolean(false);
+    private QueueFeeder<String, Link, String> queueFeeder;
 
     public ConsumerServiceImpl(KafkaConfig kafkaConfig,
-                               Consumer<String, String> consumer, BlockingQueue<String> messageQueue,
+                               Consumer<String, Link> consumer, BlockingQueue<QueuedRecord<String>> messageQueue,
                                CountDownLatch countDownLatch) {
         this.kafkaConfig = kafkaConfig;
         this.consumer = consumer;
         this.messageQueue = messageQueue;
         this.countDownLatch = countDownLatch;
+        int queueSize = kafkaConfig.getLocalLinkQueueSize();
+        queueFeeder = new QueueFeeder<>(consumer, messageQueue, Link::getUrl,
+                (int) (queueSize * kafkaConfig.getLocalQueueHighWaterMark()),
+                (int) (queueSize * kafkaConfig.getLocalQueueLowWaterMark()));
     }
 
     @Override
@@ -38,17 +52,23 @@ public class ConsumerServiceImpl implements ConsumerService {
         closed.set(true);
     }
 
+    /**
+     * @return feeder of local queue which must be notified about rebalance of consumer
+     */
+    public QueueFeeder<String, Link, String> getQueueFeeder() {
+        return queueFeeder;
+    }
+
     @Override
     public void run() {
         try {
             while (!closed.get()) {
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(kafkaConfig.getMaxPollDuration()));
-                for (ConsumerRecord<String, String> record : records) {
-                    messageQueue.put(record.value());
-                }
+                ConsumerRecords<String, Link> records = consumer.poll(Duration.ofMillis(kafkaConfig.getMaxPollDuration()));
+                queueFeeder.feed(records);
                 try {
-                    if (records.count() > 0) {
-                        consumer.commitSync();
+                    Map<TopicPartition, OffsetAndMetadata> offsets = queueFeeder.takeOffsets();
+                    if (!offsets.isEmpty()) {
+                        consumer.commitSync(offsets);
                     }
                 } catch (TimeoutException | CommitFailedException e) {
                     logger.warn("Unable to commit changes for link consumer");
@@ -57,7 +77,7 @@ public class ConsumerServiceImpl implements ConsumerService {
                     Thread.currentThread().interrupt();
                 }
             }
-        } catch (InterruptedException e) {
+        } catch (org.apache.kafka.common.errors.InterruptException e) {
             logger.info("Consumer service stopped successfully");
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
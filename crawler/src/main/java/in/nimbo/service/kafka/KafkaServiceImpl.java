@@ -4,11 +4,20 @@ import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.ProducerPool;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.common.monitoring.TasksMonitor;
 import in.nimbo.common.monitoring.ThreadsMonitor;
+import in.nimbo.common.utility.CloseUtility;
+import in.nimbo.config.CrawlerConfig;
 import in.nimbo.service.CrawlerService;
+import in.nimbo.service.EmittedLinkCache;
+import in.nimbo.service.PolitenessScheduler;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,25 +27,40 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
 
+/**
+ * start consumer of links and link handlers of crawler
+ * handlers share a small pool of page and shuffler producers instead of creating their own producers
+ */
 public class KafkaServiceImpl implements KafkaService {
     private Logger logger = LoggerFactory.getLogger("crawler");
     private ScheduledExecutorService threadMonitorService;
     private KafkaConfig kafkaConfig;
+    private CrawlerConfig crawlerConfig;
     private CrawlerService crawlerService;
-    private BlockingQueue<String> messageQueue;
+    private PolitenessScheduler politenessScheduler;
+    private EmittedLinkCache emittedLinkCache;
+    private BlockingQueue<QueuedRecord<String>> messageQueue;
     private CountDownLatch countDownLatch;
 
     private List<Thread> kafkaServices;
     private List<ProducerService> producerServices;
+    private List<AsyncProducerServiceImpl> asyncProducerServices;
     private ConsumerService consumerService;
+    private ProducerPool<String, Page> pageProducerPool;
+    private ProducerPool<String, String> shufflerProducerPool;
 
-    public KafkaServiceImpl(CrawlerService crawlerService, KafkaConfig kafkaConfig) {
+    public KafkaServiceImpl(CrawlerService crawlerService, PolitenessScheduler politenessScheduler,
+                            KafkaConfig kafkaConfig, CrawlerConfig crawlerConfig) {
         this.crawlerService = crawlerService;
+        this.politenessScheduler = politenessScheduler;
         this.kafkaConfig = kafkaConfig;
+        this.crawlerConfig = crawlerConfig;
+        emittedLinkCache = new EmittedLinkCache(crawlerConfig);
         kafkaServices = new ArrayList<>();
         producerServices = new ArrayList<>();
+        asyncProducerServices = new ArrayList<>();
         messageQueue = new ArrayBlockingQueue<>(kafkaConfig.getLocalLinkQueueSize());
-        countDownLatch = new CountDownLatch(kafkaConfig.getLinkProducerCount() + 1);
+        countDownLatch = new CountDownLatch(getProducerCount() + 1);
         MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
         metricRegistry.register(MetricRegistry.name(KafkaServiceImpl.class, "localMessageQueueSize"),
                 new CachedGauge<Integer>(15, TimeUnit.SECONDS) {
@@ -45,24 +69,47 @@ public class KafkaServiceImpl implements KafkaService {
                         return messageQueue.size();
                     }
                 });
+        metricRegistry.register(MetricRegistry.name(KafkaServiceImpl.class, "politenessBacklogSize"),
+                new CachedGauge<Integer>(15, TimeUnit.SECONDS) {
+                    @Override
+                    protected Integer loadValue() {
+                        return politenessScheduler.size();
+                    }
+                });
     }
 
     @Override
     public void schedule() {
         startThreadsMonitoring();
 
-        KafkaConsumer<String, String> kafkaConsumer = new KafkaConsumer<>(kafkaConfig.getLinkConsumerProperties());
-        kafkaConsumer.subscribe(Collections.singletonList(kafkaConfig.getLinkTopic()));
-        consumerService = new ConsumerServiceImpl(kafkaConfig, kafkaConsumer, messageQueue, countDownLatch);
+        KafkaConsumer<String, Link> kafkaConsumer = new KafkaConsumer<>(kafkaConfig.getLinkConsumerProperties());
+        ConsumerServiceImpl linkConsumerService = new ConsumerServiceImpl(kafkaConfig, kafkaConsumer, messageQueue, countDownLatch);
+        kafkaConsumer.subscribe(Collections.singletonList(kafkaConfig.getLinkTopic()),
+                new LinkRebalanceListener(politenessScheduler, linkConsumerService.getQueueFeeder()));
+        consumerService = linkConsumerService;
         Thread consumerThread = new Thread(consumerService, kafkaConfig.getServiceName());
         kafkaServices.add(consumerThread);
         consumerThread.start();
 
-        for (int i = 0; i < kafkaConfig.getLinkProducerCount(); i++) {
-            KafkaProducer<String, String> shufflerProducer = new KafkaProducer<>(kafkaConfig.getShufflerProducerProperties());
-            KafkaProducer<String, Page> pageProducer = new KafkaProducer<>(kafkaConfig.getPageProducerProperties());
-            ProducerService pageProducerService = new ProducerServiceImpl(kafkaConfig, messageQueue,
-                    pageProducer, shufflerProducer, crawlerService, countDownLatch);
+        pageProducerPool = new ProducerPool<>("page", kafkaConfig.getPageProducerProperties(),
+                kafkaConfig.getPageProducerPoolSize());
+        shufflerProducerPool = new ProducerPool<>("shuffler", kafkaConfig.getShufflerProducerProperties(),
+                kafkaConfig.getShufflerProducerPoolSize());
+        for (int i = 0; i < getProducerCount(); i++) {
+            Producer<String, String> shufflerProducer = shufflerProducerPool.get(i);
+            Producer<String, Page> pageProducer = pageProducerPool.get(i);
+            ProducerService pageProducerService;
+            if (crawlerConfig.getExecutionMode() == CrawlerConfig.MODE.ASYNC) {
+                AsyncProducerServiceImpl asyncProducerService = new AsyncProducerServiceImpl(kafkaConfig, crawlerConfig, messageQueue,
+                        pageProducer, shufflerProducer, crawlerService, politenessScheduler, emittedLinkCache,
+                        countDownLatch, getInFlightFetchesPerProducer());
+                asyncProducerServices.add(asyncProducerService);
+                pageProducerService = asyncProducerService;
+            } else {
+                pageProducerService = new ProducerServiceImpl(kafkaConfig, crawlerConfig, messageQueue,
+                        pageProducer, shufflerProducer, crawlerService, politenessScheduler, emittedLinkCache,
+                        countDownLatch);
+            }
             Thread pageProducerThread = new Thread(pageProducerService, kafkaConfig.getServiceName());
             kafkaServices.add(pageProducerThread);
             producerServices.add(pageProducerService);
@@ -86,14 +133,10 @@ public class KafkaServiceImpl implements KafkaService {
         try {
             countDownLatch.await();
             logger.info("All service stopped");
-            try (KafkaProducer<String, String> producer = new KafkaProducer<>(kafkaConfig.getLinkProducerProperties())) {
-                logger.info("Start sending {} messages from local message queue to kafka", messageQueue.size());
-                for (String message : messageQueue) {
-                    producer.send(new ProducerRecord<>(kafkaConfig.getLinkTopic(), message));
-                }
-                producer.flush();
-            }
-            logger.info("All messages sent to kafka");
+            CloseUtility.closeSafely(pageProducerPool);
+            CloseUtility.closeSafely(shufflerProducerPool);
+            // links of local queue and politeness scheduler are not acknowledged, so they are read again after restart
+            logger.info("{} local links are left to be consumed again", messageQueue.size() + politenessScheduler.size());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -102,8 +145,8 @@ public class KafkaServiceImpl implements KafkaService {
 
     @Override
     public void sendMessage(String message) {
-        try (KafkaProducer<String, String> producer = new KafkaProducer<>(kafkaConfig.getLinkProducerProperties())) {
-            producer.send(new ProducerRecord<>(kafkaConfig.getLinkTopic(), message));
+        try (KafkaProducer<String, Link> producer = new KafkaProducer<>(kafkaConfig.getLinkProducerProperties())) {
+            producer.send(new ProducerRecord<>(kafkaConfig.getLinkTopic(), new Link(message, null, 0)));
             producer.flush();
         }
     }
@@ -112,5 +155,32 @@ public class KafkaServiceImpl implements KafkaService {
         ThreadsMonitor threadsMonitor = new ThreadsMonitor(kafkaServices);
         threadMonitorService = Executors.newScheduledThreadPool(1);
         threadMonitorService.scheduleAtFixedRate(threadsMonitor, 0, 1, TimeUnit.SECONDS);
+        if (crawlerConfig.getExecutionMode() == CrawlerConfig.MODE.ASYNC) {
+            TasksMonitor tasksMonitor = new TasksMonitor(this::getInFlightTasks, messageQueue::size,
+                    getInFlightFetchesPerProducer() * getProducerCount());
+            threadMonitorService.scheduleAtFixedRate(tasksMonitor, 0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @return number of link handlers, in async mode each handler is a dispatcher of non blocking tasks
+     */
+    private int getProducerCount() {
+        if (crawlerConfig.getExecutionMode() == CrawlerConfig.MODE.ASYNC) {
+            return crawlerConfig.getAsyncDispatcherCount();
+        }
+        return kafkaConfig.getLinkProducerCount();
+    }
+
+    private int getInFlightFetchesPerProducer() {
+        return Math.max(1, crawlerConfig.getAsyncMaxInFlightFetches() / crawlerConfig.getAsyncDispatcherCount());
+    }
+
+    private int getInFlightTasks() {
+        int inFlightTasks = 0;
+        for (AsyncProducerServiceImpl asyncProducerService : asyncProducerServices) {
+            inFlightTasks += asyncProducerService.getInFlightTasks();
+        }
+        return inFlightTasks;
     }
 }
@@ -0,0 +1,58 @@
+package in.nimbo.service.kafka;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.kafka.QueueFeeder;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.service.PolitenessScheduler;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * links are partitioned by their domain, so after a rebalance domains of lost partitions are owned by another crawler
+ * links of lost partitions which are waiting in local queue or politeness scheduler are dropped, because they are not
+ * acknowledged and new owner of their domain reads them again from committed offsets, so politeness of domains
+ * stays local. offsets of acknowledged links are committed at revocation, so new owner doesn't read them
+ * listener is called in thread of consumer
+ */
+public class LinkRebalanceListener implements ConsumerRebalanceListener {
+    private Logger logger = LoggerFactory.getLogger("crawler");
+    private PolitenessScheduler politenessScheduler;
+    private QueueFeeder<String, Link, String> queueFeeder;
+    private Counter droppedLinksCounter;
+
+    public LinkRebalanceListener(PolitenessScheduler politenessScheduler, QueueFeeder<String, Link, String> queueFeeder) {
+        this.politenessScheduler = politenessScheduler;
+        this.queueFeeder = queueFeeder;
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        droppedLinksCounter = metricRegistry.counter(MetricRegistry.name(LinkRebalanceListener.class, "droppedLinksCounter"));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        logger.info("Link partitions revoked: {}", partitions);
+        try {
+            queueFeeder.onPartitionsRevoked(partitions);
+        } catch (TimeoutException | CommitFailedException e) {
+            logger.warn("Unable to commit acknowledged links of revoked partitions");
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        logger.info("Link partitions assigned: {}", partitions);
+        queueFeeder.onPartitionsAssigned(partitions);
+        List<QueuedRecord<String>> links = politenessScheduler.drain(link -> !partitions.contains(link.getPartition()));
+        droppedLinksCounter.inc(links.size());
+        logger.info("{} scheduled links of lost partitions are dropped", links.size());
+    }
+}
@@ -8,40 +8,64 @@ import in.nimbo.common.entity.Anchor;
 import in.nimbo.common.entity.Page;
 import in.nimbo.common.exception.InvalidLinkException;
 import in.nimbo.common.exception.ParseLinkException;
-import in.nimbo.common.utility.CloseUtility;
+import in.nimbo.common.kafka.DomainPartitioner;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.config.CrawlerConfig;
 import in.nimbo.service.CrawlerService;
+import in.nimbo.service.CrawlerService.LinkStatus;
+import in.nimbo.service.EmittedLinkCache;
+import in.nimbo.service.PolitenessScheduler;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.errors.InterruptException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ProducerServiceImpl implements ProducerService {
-    private Logger logger = LoggerFactory.getLogger("crawler");
-    private KafkaConfig config;
-    private BlockingQueue<String> messageQueue;
-    private Producer<String, String> shufflerProducer;
-    private Producer<String, Page> pageProducer;
-    private CrawlerService crawlerService;
+    private static final int QUEUE_POLL_MILLIS = 100;
+    protected Logger logger = LoggerFactory.getLogger("crawler");
+    protected KafkaConfig config;
+    protected CrawlerConfig crawlerConfig;
+    protected BlockingQueue<QueuedRecord<String>> messageQueue;
+    protected Producer<String, String> shufflerProducer;
+    protected Producer<String, Page> pageProducer;
+    protected CrawlerService crawlerService;
+    protected PolitenessScheduler politenessScheduler;
+    protected EmittedLinkCache emittedLinkCache;
+    // links of current batch which are polled from politeness scheduler, it is used only in thread of service
+    private Set<QueuedRecord<String>> scheduledLinks = Collections.newSetFromMap(new IdentityHashMap<>());
 
-    private CountDownLatch countDownLatch;
-    private AtomicBoolean closed = new AtomicBoolean(false);
+    protected CountDownLatch countDownLatch;
+    protected AtomicBoolean closed = new AtomicBoolean(false);
 
-    private Counter allLinksCounter;
+    protected Counter allLinksCounter;
 
-    public ProducerServiceImpl(KafkaConfig config, BlockingQueue<String> messageQueue,
+    public ProducerServiceImpl(KafkaConfig config, CrawlerConfig crawlerConfig, BlockingQueue<QueuedRecord<String>> messageQueue,
                                Producer<String, Page> pageProducer, Producer<String, String> shufflerProducer,
-                               CrawlerService crawlerService, CountDownLatch countDownLatch) {
+                               CrawlerService crawlerService, PolitenessScheduler politenessScheduler,
+                               EmittedLinkCache emittedLinkCache, CountDownLatch countDownLatch) {
         this.config = config;
+        this.crawlerConfig = crawlerConfig;
         this.messageQueue = messageQueue;
         this.pageProducer = pageProducer;
         this.shufflerProducer = shufflerProducer;
         this.crawlerService = crawlerService;
+        this.politenessScheduler = politenessScheduler;
+        this.emittedLinkCache = emittedLinkCache;
         this.countDownLatch = countDownLatch;
         MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
         allLinksCounter = metricRegistry.counter(MetricRegistry.name(ProducerService.class, "allLinksCounter"));
@@ -56,39 +80,157 @@ public class ProducerServiceImpl implements ProducerService {
     public void run() {
         try {
             while (!closed.get()) {
-                String newLink = messageQueue.take();
-                handleLink(newLink);
-                allLinksCounter.inc();
+                List<QueuedRecord<String>> newLinks = takeLinks();
+                handleLinks(newLinks);
             }
         } catch (InterruptedException | InterruptException e) {
             logger.info("Page Producer service interrupted successfully");
         } finally {
-            CloseUtility.closeSafely(pageProducer);
-            CloseUtility.closeSafely(shufflerProducer);
             logger.info("Page Producer service stopped successfully");
             countDownLatch.countDown();
         }
     }
 
-    private void handleLink(String link) {
-        try {
-            Optional<Page> optionalPage = crawlerService.crawl(link);
-            if (optionalPage.isPresent()) {
-                Page page = optionalPage.get();
-                for (Anchor anchor : page.getAnchors()) {
-                    String anchorHref = anchor.getHref();
-                    if (!anchorHref.contains("#")) {
-                        shufflerProducer.send(new ProducerRecord<>(config.getShufflerTopic(), anchorHref));
-                    }
+    /**
+     * wait for next link, links of politeness scheduler whose domain is ready have priority over new links
+     */
+    protected QueuedRecord<String> takeLink() throws InterruptedException {
+        while (true) {
+            QueuedRecord<String> link = politenessScheduler.poll();
+            if (link == null) {
+                link = messageQueue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                scheduledLinks.add(link);
+            }
+            if (link != null) {
+                return link;
+            }
+        }
+    }
+
+    /**
+     * wait for next link and drain available links up to batch size without waiting
+     */
+    protected List<QueuedRecord<String>> takeLinks() throws InterruptedException {
+        int batchSize = crawlerConfig.getLinkBatchSize();
+        List<QueuedRecord<String>> links = new ArrayList<>(batchSize);
+        scheduledLinks.clear();
+        links.add(takeLink());
+        QueuedRecord<String> link;
+        while (links.size() < batchSize && (link = politenessScheduler.poll()) != null) {
+            scheduledLinks.add(link);
+            links.add(link);
+        }
+        messageQueue.drainTo(links, batchSize - links.size());
+        return links;
+    }
+
+    /**
+     * check links with one call and fetch pages of new links one by one
+     */
+    private void handleLinks(List<QueuedRecord<String>> links) {
+        List<LinkStatus> statuses = checkLinks(links);
+        for (int i = 0; i < links.size(); i++) {
+            QueuedRecord<String> link = links.get(i);
+            if (statuses.get(i) == LinkStatus.FETCH) {
+                try {
+                    handleResult(link, Optional.of(crawlerService.getPage(link.getValue())));
+                } catch (Exception e) {
+                    handleFailure(link, e);
                 }
-                pageProducer.send(new ProducerRecord<>(config.getPageTopic(), page));
             } else {
-                shufflerProducer.send(new ProducerRecord<>(config.getShufflerTopic(), link));
+                handleStatus(link, statuses.get(i));
             }
-        } catch (ParseLinkException | InvalidLinkException ignored) {
-            logger.info("Skip corrupt link {}", link);
+            allLinksCounter.inc();
+        }
+    }
+
+    /**
+     * @return status of each link, all links are invalid if they can't be checked
+     */
+    protected List<LinkStatus> checkLinks(List<QueuedRecord<String>> links) {
+        List<String> urls = new ArrayList<>(links.size());
+        for (QueuedRecord<String> link : links) {
+            urls.add(link.getValue());
+        }
+        try {
+            return crawlerService.startCrawlAll(urls);
         } catch (Exception e) {
-            logger.error("Uncached exception", e);
+            logger.error("Unable to check links", e);
+            return Collections.nCopies(links.size(), LinkStatus.INVALID);
+        }
+    }
+
+    /**
+     * handle a link which is not fetched
+     */
+    protected void handleStatus(QueuedRecord<String> link, LinkStatus status) {
+        try {
+            if (status == LinkStatus.CACHE_HIT || status == LinkStatus.ROBOTS_PENDING) {
+                handleResult(link, Optional.empty());
+            } else {
+                if (status == LinkStatus.DISALLOWED) {
+                    logger.info("Skip link {} disallowed by robots.txt", link.getValue());
+                } else if (status == LinkStatus.FILTERED) {
+                    logger.info("Skip link {} rejected by url filter", link.getValue());
+                } else {
+                    logger.info("Skip corrupt link {}", link.getValue());
+                }
+                link.acknowledge();
+            }
+        } catch (Exception e) {
+            handleFailure(link, e);
+        }
+    }
+
+    /**
+     * send anchors of crawled page which are not sent recently to shuffler and page to collector
+     * anchors of each domain are sent in one record, so they are partitioned by their domain
+     * if page is not crawled because of cache hit, link waits in politeness scheduler
+     * and it is sent back to shuffler only if backlog of scheduler is full, marked as a bounced link
+     * a link which is polled from scheduler is put back at head of its domain queue
+     * link is acknowledged unless it waits in politeness scheduler
+     */
+    protected void handleResult(QueuedRecord<String> link, Optional<Page> optionalPage) {
+        if (optionalPage.isPresent()) {
+            Page page = optionalPage.get();
+            List<String> anchorHrefs = new ArrayList<>(page.getAnchors().size());
+            for (Anchor anchor : page.getAnchors()) {
+                String anchorHref = anchor.getHref();
+                if (!anchorHref.contains("#")) {
+                    anchorHrefs.add(anchorHref);
+                }
+            }
+            Map<String, List<String>> domainHrefs = new LinkedHashMap<>();
+            for (String anchorHref : emittedLinkCache.markNew(anchorHrefs)) {
+                String domain = DomainPartitioner.getDomain(anchorHref);
+                if (domain != null) {
+                    domainHrefs.computeIfAbsent(domain, key -> new ArrayList<>()).add(anchorHref);
+                }
+            }
+            for (List<String> hrefs : domainHrefs.values()) {
+                shufflerProducer.send(new ProducerRecord<>(config.getShufflerTopic(), LinkUtility.joinLinks(hrefs)));
+            }
+            pageProducer.send(new ProducerRecord<>(config.getPageTopic(), page));
+        } else {
+            boolean scheduled = scheduledLinks.contains(link) ? politenessScheduler.reschedule(link)
+                    : politenessScheduler.schedule(link);
+            if (scheduled) {
+                return;
+            }
+            ProducerRecord<String, String> record = new ProducerRecord<>(config.getShufflerTopic(), link.getValue());
+            record.headers().add(KafkaConfig.BOUNCED_LINK_HEADER, new byte[0]);
+            shufflerProducer.send(record);
+        }
+        link.acknowledge();
+    }
+
+    protected void handleFailure(QueuedRecord<String> link, Throwable throwable) {
+        if (throwable instanceof ParseLinkException || throwable instanceof InvalidLinkException) {
+            logger.info("Skip corrupt link {}", link.getValue());
+        } else {
+            logger.error("Uncached exception", throwable);
         }
+        link.acknowledge();
     }
 }
@@ -0,0 +1,91 @@
+package in.nimbo.dao;
+
+import in.nimbo.TestUtility;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.entity.Fingerprint;
+import in.nimbo.config.CrawlerConfig;
+import in.nimbo.dao.redis.BloomFilterRedisDAO;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BloomFilterRedisDAOTest {
+    private static final Fingerprint NIMBO = Fingerprint.of("https://nimbo.in");
+    private static final Fingerprint GOOGLE = Fingerprint.of("https://google.com");
+    private static final Fingerprint GITHUB = Fingerprint.of("https://github.com");
+    private RedisDAO redisDAO;
+    private BloomFilterRedisDAO bloomFilterRedisDAO;
+
+    @BeforeClass
+    public static void init() {
+        TestUtility.setMetricRegistry();
+    }
+
+    @Before
+    public void beforeEachTest() {
+        redisDAO = mock(RedisDAO.class);
+        CrawlerConfig crawlerConfig = CrawlerConfig.load();
+        crawlerConfig.setBloomFilterInitialCapacity(1000);
+        crawlerConfig.setBloomFilterMaxMegabytes(1);
+        bloomFilterRedisDAO = new BloomFilterRedisDAO(redisDAO, crawlerConfig);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void containsTest() {
+        when(redisDAO.contains(NIMBO)).thenReturn(true);
+        assertTrue(bloomFilterRedisDAO.contains(NIMBO));
+        verify(redisDAO).contains(NIMBO);
+
+        doAnswer(invocation -> {
+            Consumer<Fingerprint> consumer = invocation.getArgument(0);
+            consumer.accept(NIMBO);
+            return null;
+        }).when(redisDAO).forEachKey(any(Consumer.class));
+        bloomFilterRedisDAO.sync();
+        assertTrue(bloomFilterRedisDAO.isLoaded());
+
+        assertFalse(bloomFilterRedisDAO.contains(GOOGLE));
+        verify(redisDAO, never()).contains(GOOGLE);
+        assertTrue(bloomFilterRedisDAO.contains(NIMBO));
+        verify(redisDAO, times(2)).contains(NIMBO);
+
+        bloomFilterRedisDAO.add(GOOGLE);
+        verify(redisDAO).add(GOOGLE);
+        when(redisDAO.contains(GOOGLE)).thenReturn(true);
+        assertTrue(bloomFilterRedisDAO.contains(GOOGLE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void containsAllTest() {
+        doAnswer(invocation -> {
+            Consumer<Fingerprint> consumer = invocation.getArgument(0);
+            consumer.accept(NIMBO);
+            consumer.accept(GITHUB);
+            return null;
+        }).when(redisDAO).forEachKey(any(Consumer.class));
+        bloomFilterRedisDAO.sync();
+        when(redisDAO.containsAll(Arrays.asList(NIMBO, GITHUB)))
+                .thenReturn(Arrays.asList(true, false));
+        assertEquals(Arrays.asList(true, false, false),
+                bloomFilterRedisDAO.containsAll(Arrays.asList(NIMBO, GOOGLE, GITHUB)));
+
+        when(redisDAO.markAllIfAbsent(Collections.singletonList(GOOGLE)))
+                .thenReturn(Collections.singletonList(true));
+        assertEquals(Collections.singletonList(true),
+                bloomFilterRedisDAO.markAllIfAbsent(Collections.singletonList(GOOGLE)));
+        when(redisDAO.containsAll(Collections.singletonList(GOOGLE)))
+                .thenReturn(Collections.singletonList(true));
+        assertEquals(Collections.singletonList(true),
+                bloomFilterRedisDAO.containsAll(Collections.singletonList(GOOGLE)));
+    }
+}
@@ -4,26 +4,32 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import in.nimbo.TestUtility;
 import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.dao.redis.RedisDAO;
 import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.FetchResponse;
+import in.nimbo.common.entity.Fingerprint;
 import in.nimbo.common.entity.Meta;
 import in.nimbo.common.entity.Page;
-import in.nimbo.common.exception.InvalidLinkException;
 import in.nimbo.common.exception.LanguageDetectException;
 import in.nimbo.common.exception.ParseLinkException;
 import in.nimbo.common.service.ParserService;
+import in.nimbo.common.service.fetcher.Fetcher;
+import in.nimbo.common.service.filter.UrlFilter;
+import in.nimbo.common.service.robots.RobotsRules;
+import in.nimbo.common.service.robots.RobotsService;
 import in.nimbo.common.utility.LinkUtility;
-import in.nimbo.dao.redis.RedisDAO;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
@@ -31,7 +37,8 @@ import static org.mockito.Mockito.*;
 public class CrawlerServiceTest {
     private static RedisDAO redisDAO;
     private static ParserService parserService;
-    private static Document documentWithoutTitle;
+    private static Fetcher fetcher;
+    private static RobotsService robotsService;
     private static ProjectConfig projectConfig;
     private static Cache<String, LocalDateTime> cache;
     private static CrawlerService crawlerService;
@@ -46,7 +53,6 @@ public class CrawlerServiceTest {
 
     @BeforeClass
     public static void init() {
-        parserService = spy(new ParserService(new ProjectConfig()));
         projectConfig = ProjectConfig.load();
         TestUtility.setMetricRegistry();
     }
@@ -65,21 +71,25 @@ public class CrawlerServiceTest {
         metas.add(new Meta("google", "search"));
         page = new Page(link, title, contentWithoutTag, anchors, metas, 1.0);
         redisDAO = mock(RedisDAO.class);
-        String input = TestUtility.getFileContent(Paths.get(FILE_ADDRESS));
-        String inputWithoutTitle = TestUtility.getFileContent(Paths.get(FILE_WITHOUT_TITLE_ADDRESS));
-        Document document = Jsoup.parse(input, "UTF-8");
-        documentWithoutTitle = Jsoup.parse(inputWithoutTitle, "UTF-8");
-        when(parserService.getDocument(link)).thenReturn(Optional.of(document));
+        robotsService = mock(RobotsService.class);
+        when(robotsService.getRules(anyString())).thenReturn(Optional.of(RobotsRules.ALLOW_ALL));
+        fetcher = mock(Fetcher.class);
+        when(fetcher.fetch(link)).thenReturn(htmlResponse(FILE_ADDRESS));
+        parserService = spy(new ParserService(projectConfig, fetcher));
         doReturn(true).when(parserService).isEnglishLanguage(anyString(), anyDouble());
         cache = Caffeine.newBuilder().maximumSize(projectConfig.getCaffeineMaxSize())
                 .expireAfterWrite(projectConfig.getCaffeineExpireTime(), TimeUnit.SECONDS).build();
-        crawlerService = spy(new CrawlerService(cache, redisDAO, parserService));
+        crawlerService = spy(new CrawlerService(cache, redisDAO, parserService, robotsService,
+                new UrlFilter(projectConfig)));
     }
 
     @Test
     public void crawlTest() {
-        when(redisDAO.contains(link)).thenReturn(false);
-        Page returnedPage = crawlerService.crawl(link).get();
+        when(redisDAO.containsAll(anyList())).thenReturn(Collections.singletonList(false));
+        when(redisDAO.markAllIfAbsent(anyList())).thenReturn(Collections.singletonList(true));
+        Assert.assertEquals(Collections.singletonList(CrawlerService.LinkStatus.FETCH),
+                crawlerService.startCrawlAll(Collections.singletonList(link)));
+        Page returnedPage = crawlerService.getPage(link);
         Assert.assertEquals(page.getLink(), returnedPage.getLink());
         Assert.assertEquals(page.getAnchors(), returnedPage.getAnchors());
         Assert.assertEquals(page.getMetas(), returnedPage.getMetas());
@@ -90,28 +100,90 @@ public class CrawlerServiceTest {
     }
 
     @Test
-    public void crawlCachedLinkTest() {
-        when(redisDAO.contains(link)).thenReturn(false);
-        try {
-            cache.put(LinkUtility.getMainDomain(link), LocalDateTime.now());
-        } catch (MalformedURLException e) {
-            Assert.fail();
-        }
-        Optional<Page> returnedPage = crawlerService.crawl(link);
-        Assert.assertFalse(returnedPage.isPresent());
-    }
-
-    @Test(expected = InvalidLinkException.class)
+    public void crawlCachedLinkTest() throws MalformedURLException {
+        cache.put(LinkUtility.getMainDomain(link), LocalDateTime.now());
+        Assert.assertEquals(Collections.singletonList(CrawlerService.LinkStatus.CACHE_HIT),
+                crawlerService.startCrawlAll(Collections.singletonList(link)));
+        verify(redisDAO, never()).containsAll(anyList());
+    }
+
+    @Test
     public void crawlRepeatedLinkTest() {
-        when(redisDAO.contains(anyString())).thenReturn(true);
-        Optional<Page> returnedPage = crawlerService.crawl(link);
-        Assert.fail();
+        when(redisDAO.containsAll(anyList())).thenReturn(Collections.singletonList(true));
+        Assert.assertEquals(Collections.singletonList(CrawlerService.LinkStatus.DUPLICATE),
+                crawlerService.startCrawlAll(Collections.singletonList(link)));
+        verify(redisDAO, never()).markAllIfAbsent(anyList());
     }
 
-    @Test(expected = InvalidLinkException.class)
+    @Test
     public void crawlInvalidLink() {
-        Optional<Page> returnedPage = crawlerService.crawl("http://");
-        Assert.fail();
+        Assert.assertEquals(Collections.singletonList(CrawlerService.LinkStatus.INVALID),
+                crawlerService.startCrawlAll(Collections.singletonList("http://")));
+    }
+
+    @Test
+    public void startCrawlAllTest() throws MalformedURLException {
+        cache.put(LinkUtility.getMainDomain("https://google.com"), LocalDateTime.now());
+        List<String> links = Arrays.asList(link, "https://google.com/a", "http://",
+                "https://stackoverflow.com/a", "https://stackoverflow.com/b", "https://github.com");
+        when(redisDAO.containsAll(anyList())).thenReturn(Arrays.asList(false, false, false, true));
+        when(redisDAO.markAllIfAbsent(anyList())).thenReturn(Arrays.asList(true, true));
+        List<CrawlerService.LinkStatus> statuses = crawlerService.startCrawlAll(links);
+        Assert.assertEquals(Arrays.asList(CrawlerService.LinkStatus.FETCH, CrawlerService.LinkStatus.CACHE_HIT,
+                CrawlerService.LinkStatus.INVALID, CrawlerService.LinkStatus.FETCH,
+                CrawlerService.LinkStatus.CACHE_HIT, CrawlerService.LinkStatus.DUPLICATE), statuses);
+        verify(redisDAO).containsAll(Arrays.asList(Fingerprint.of(link),
+                Fingerprint.of("https://stackoverflow.com/a"),
+                Fingerprint.of("https://stackoverflow.com/b"),
+                Fingerprint.of("https://github.com")));
+        verify(redisDAO).markAllIfAbsent(Arrays.asList(Fingerprint.of(link),
+                Fingerprint.of("https://stackoverflow.com/a")));
+        Assert.assertNotNull(cache.getIfPresent(LinkUtility.getMainDomain(link)));
+        Assert.assertNull(cache.getIfPresent(LinkUtility.getMainDomain("https://github.com")));
+    }
+
+    @Test
+    public void startCrawlAllFilterTest() {
+        List<String> links = Arrays.asList("https://github.com/logo.png", "https://github.com/a;jsessionid=1",
+                "https://github.com/a/b/a/b/a/b");
+        List<CrawlerService.LinkStatus> statuses = crawlerService.startCrawlAll(links);
+        Assert.assertEquals(Collections.nCopies(3, CrawlerService.LinkStatus.FILTERED), statuses);
+        verify(redisDAO, never()).containsAll(anyList());
+    }
+
+    @Test
+    public void crawlFilteredLinkTest() {
+        Assert.assertEquals(Collections.singletonList(CrawlerService.LinkStatus.FILTERED),
+                crawlerService.startCrawlAll(Collections.singletonList("https://nimbo.in/files/report.pdf")));
+    }
+
+    @Test
+    public void startCrawlAllRobotsTest() throws MalformedURLException {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /private\nCrawl-delay: 120", "keenbo");
+        when(robotsService.getRules("https://github.com/private")).thenReturn(Optional.of(rules));
+        when(robotsService.getRules("https://github.com/public")).thenReturn(Optional.of(rules));
+        when(robotsService.getRules("https://stackoverflow.com")).thenReturn(Optional.empty());
+        List<String> links = Arrays.asList("https://github.com/private", "https://stackoverflow.com",
+                "https://github.com/public");
+        when(redisDAO.containsAll(anyList())).thenReturn(Collections.singletonList(false));
+        when(redisDAO.markAllIfAbsent(anyList())).thenReturn(Collections.singletonList(true));
+        List<CrawlerService.LinkStatus> statuses = crawlerService.startCrawlAll(links);
+        Assert.assertEquals(Arrays.asList(CrawlerService.LinkStatus.DISALLOWED,
+                CrawlerService.LinkStatus.ROBOTS_PENDING, CrawlerService.LinkStatus.FETCH), statuses);
+        verify(redisDAO).containsAll(Collections.singletonList(Fingerprint.of("https://github.com/public")));
+        Assert.assertTrue(cache.getIfPresent(LinkUtility.getMainDomain("https://github.com"))
+                .isAfter(LocalDateTime.now().plusSeconds(100)));
+    }
+
+    @Test
+    public void startCrawlAllRaceTest() throws MalformedURLException {
+        List<String> links = Arrays.asList(link, "https://github.com");
+        when(redisDAO.containsAll(anyList())).thenReturn(Arrays.asList(false, false));
+        when(redisDAO.markAllIfAbsent(anyList())).thenReturn(Arrays.asList(false, true));
+        List<CrawlerService.LinkStatus> statuses = crawlerService.startCrawlAll(links);
+        Assert.assertEquals(Arrays.asList(CrawlerService.LinkStatus.DUPLICATE, CrawlerService.LinkStatus.FETCH), statuses);
+        Assert.assertNull(cache.getIfPresent(LinkUtility.getMainDomain(link)));
+        Assert.assertNotNull(cache.getIfPresent(LinkUtility.getMainDomain("https://github.com")));
     }
 
     @Test
@@ -127,7 +199,7 @@ public class CrawlerServiceTest {
 
     @Test
     public void getPageWithoutTitleTest() {
-        when(parserService.getDocument(link)).thenReturn(Optional.of(documentWithoutTitle));
+        when(fetcher.fetch(link)).thenReturn(htmlResponse(FILE_WITHOUT_TITLE_ADDRESS));
         Page returnedPage = parserService.getPage(link);
         Assert.assertEquals(link, returnedPage.getLink());
         String contentWithoutTag = "Hi Header support@nimbo.in paragraph! another link";
@@ -138,15 +210,27 @@ public class CrawlerServiceTest {
     }
 
     @Test(expected = ParseLinkException.class)
-    public void getPageWithEmptyDocumentTest() {
-        when(parserService.getDocument(link)).thenReturn(Optional.empty());
+    public void getPageNotHtmlTest() {
+        when(fetcher.fetch(link)).thenReturn(CompletableFuture.completedFuture(
+                new FetchResponse(link, "application/pdf", null, new byte[0])));
+        Page returnedPage = parserService.getPage(link);
+        Assert.fail();
+    }
+
+    @Test(expected = ParseLinkException.class)
+    public void getPageFetchFailureTest() {
+        CompletableFuture<FetchResponse> failedResponse = new CompletableFuture<>();
+        failedResponse.completeExceptionally(new IOException());
+        when(fetcher.fetch(link)).thenReturn(failedResponse);
         Page returnedPage = parserService.getPage(link);
         Assert.fail();
     }
 
     @Test(expected = ParseLinkException.class)
     public void getPageMalformedURLExceptionTest() {
-        when(parserService.getDocument(invalidLink)).thenThrow(MalformedURLException.class);
+        CompletableFuture<FetchResponse> failedResponse = new CompletableFuture<>();
+        failedResponse.completeExceptionally(new MalformedURLException());
+        when(fetcher.fetch(invalidLink)).thenReturn(failedResponse);
         Page returnedPage = parserService.getPage(invalidLink);
         Assert.fail();
     }
@@ -157,4 +241,9 @@ public class CrawlerServiceTest {
         Page returnedPage = parserService.getPage(link);
         Assert.fail();
     }
+
+    private static CompletableFuture<FetchResponse> htmlResponse(String fileAddress) {
+        byte[] body = TestUtility.getFileContent(Paths.get(fileAddress)).getBytes(StandardCharsets.UTF_8);
+        return CompletableFuture.completedFuture(new FetchResponse(link, "text/html", "UTF-8", body));
+    }
 }
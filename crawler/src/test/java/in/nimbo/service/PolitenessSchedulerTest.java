@@ -0,0 +1,104 @@
+package in.nimbo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.nimbo.TestUtility;
+import in.nimbo.common.kafka.QueuedRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PolitenessSchedulerTest {
+    private static final long DELAY = 1000;
+    private Cache<String, LocalDateTime> cache;
+    private PolitenessScheduler scheduler;
+
+    @BeforeClass
+    public static void init() {
+        TestUtility.setMetricRegistry();
+    }
+
+    @Before
+    public void beforeEachTest() {
+        cache = Caffeine.newBuilder().expireAfter(new DomainExpiry(DELAY, 60 * DELAY)).build();
+        scheduler = new PolitenessScheduler(cache, DELAY, 4, 2);
+    }
+
+    @Test
+    public void domainDelayTest() {
+        assertTrue(scheduler.schedule(record("https://nimbo.in/a"), 0));
+        assertTrue(scheduler.schedule(record("https://www.nimbo.in/b"), 0));
+        assertTrue(scheduler.schedule(record("https://google.com"), 500));
+        assertNull(scheduler.poll(999));
+        assertEquals("https://nimbo.in/a", scheduler.poll(1000).getValue());
+        assertEquals("https://google.com", scheduler.poll(1500).getValue());
+        assertNull(scheduler.poll(1999));
+        assertEquals("https://www.nimbo.in/b", scheduler.poll(2000).getValue());
+        assertNull(scheduler.poll(10000));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void cachedDomainDelayTest() {
+        cache.put("nimbo.in", LocalDateTime.now().plusSeconds(10));
+        assertTrue(scheduler.schedule(record("https://nimbo.in/a"), 0));
+        assertTrue(scheduler.schedule(record("https://google.com"), 0));
+        assertEquals("https://google.com", scheduler.poll(1000).getValue());
+        assertNull(scheduler.poll(9000));
+        assertEquals("https://nimbo.in/a", scheduler.poll(10000).getValue());
+    }
+
+    @Test
+    public void rescheduleTest() {
+        assertTrue(scheduler.schedule(record("https://nimbo.in/a"), 0));
+        assertTrue(scheduler.schedule(record("https://nimbo.in/b"), 0));
+        QueuedRecord<String> link = scheduler.poll(1000);
+        assertEquals("https://nimbo.in/a", link.getValue());
+        cache.put("nimbo.in", LocalDateTime.now().plusSeconds(5));
+        assertTrue(scheduler.reschedule(link, 1000));
+        assertEquals(2, scheduler.size());
+        assertNull(scheduler.poll(5000));
+        assertEquals("https://nimbo.in/a", scheduler.poll(6000).getValue());
+        assertEquals("https://nimbo.in/b", scheduler.poll(7000).getValue());
+    }
+
+    @Test
+    public void overflowTest() {
+        assertTrue(scheduler.schedule(record("https://nimbo.in/a"), 0));
+        assertTrue(scheduler.schedule(record("https://nimbo.in/b"), 0));
+        assertFalse(scheduler.schedule(record("https://nimbo.in/c"), 0));
+        assertTrue(scheduler.schedule(record("https://google.com/a"), 0));
+        assertTrue(scheduler.schedule(record("https://github.com/a"), 0));
+        assertFalse(scheduler.schedule(record("https://github.com/b"), 0));
+        assertFalse(scheduler.schedule(record("abc"), 0));
+        assertEquals(4, scheduler.size());
+        assertEquals(4, scheduler.drain(link -> true).size());
+        assertEquals(0, scheduler.size());
+        assertNull(scheduler.poll(10000));
+    }
+
+    @Test
+    public void drainTest() {
+        assertTrue(scheduler.schedule(record("https://nimbo.in/a"), 0));
+        assertTrue(scheduler.schedule(record("https://nimbo.in/b"), 0));
+        assertTrue(scheduler.schedule(record("https://google.com"), 0));
+        List<String> links = scheduler.drain(link -> link.getValue().contains("nimbo.in")).stream()
+                .map(QueuedRecord::getValue).collect(Collectors.toList());
+        assertEquals(Arrays.asList("https://nimbo.in/a", "https://nimbo.in/b"), links);
+        assertEquals(1, scheduler.size());
+        assertEquals("https://google.com", scheduler.poll(1000).getValue());
+        assertNull(scheduler.poll(10000));
+    }
+
+    private QueuedRecord<String> record(String link) {
+        return new QueuedRecord<>(new TopicPartition("links", 0), 0, link, queuedRecord -> {});
+    }
+}
@@ -0,0 +1,117 @@
+package in.nimbo.service.kafka;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.nimbo.TestUtility;
+import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Anchor;
+import in.nimbo.common.entity.Page;
+import in.nimbo.common.exception.ParseLinkException;
+import in.nimbo.common.kafka.QueuedRecord;
+import in.nimbo.common.serializer.PageSerializer;
+import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.config.CrawlerConfig;
+import in.nimbo.service.CrawlerService;
+import in.nimbo.service.CrawlerService.LinkStatus;
+import in.nimbo.service.EmittedLinkCache;
+import in.nimbo.service.PolitenessScheduler;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncProducerServiceImplTest {
+    private BlockingQueue<QueuedRecord<String>> messageQueue;
+    private List<String> acknowledgedLinks;
+    private AsyncProducerServiceImpl producerService;
+    private CountDownLatch countDownLatch;
+    private CrawlerService crawlerService;
+    private PolitenessScheduler politenessScheduler;
+    private MockProducer<String, String> shufflerProducer;
+    private MockProducer<String, Page> pageProducer;
+
+    @BeforeClass
+    public static void init() {
+        TestUtility.setMetricRegistry();
+    }
+
+    @Before
+    public void beforeEachTest() {
+        messageQueue = new LinkedBlockingQueue<>();
+        acknowledgedLinks = Collections.synchronizedList(new ArrayList<>());
+        countDownLatch = new CountDownLatch(1);
+        crawlerService = mock(CrawlerService.class);
+        politenessScheduler = new PolitenessScheduler(Caffeine.newBuilder().build(), TimeUnit.MINUTES.toMillis(1), 10, 10);
+        KafkaConfig kafkaConfig = KafkaConfig.load();
+        shufflerProducer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        pageProducer = new MockProducer<>(true, new StringSerializer(), new PageSerializer());
+        CrawlerConfig crawlerConfig = CrawlerConfig.load();
+        producerService = new AsyncProducerServiceImpl(kafkaConfig, crawlerConfig, messageQueue,
+                pageProducer, shufflerProducer,
+                crawlerService, politenessScheduler, new EmittedLinkCache(crawlerConfig), countDownLatch, 2);
+    }
+
+    @Test
+    public void producerTest() throws MalformedURLException, InterruptedException {
+        Set<String> shuffledLinks = new HashSet<>();
+        shuffledLinks.add("https://stackoverflow.com");
+        shuffledLinks.add("https://google.com");
+        Set<Anchor> anchors = new HashSet<>();
+        anchors.add(new Anchor("https://stackoverflow.com", "stackoverflow"));
+        anchors.add(new Anchor("https://google.com", "google"));
+        Page page = new Page("https://nimbo.in", "nimbo", "sahab internship", anchors, new ArrayList<>(), 1.0);
+        CompletableFuture<Page> delayedPage = new CompletableFuture<>();
+        CompletableFuture<Page> failedPage = new CompletableFuture<>();
+        failedPage.completeExceptionally(new CompletionException(new ParseLinkException()));
+        when(crawlerService.startCrawlAll(Arrays.asList("https://nimbo.in", "https://corrupt.link",
+                "https://cache.hit", "https://duplicate.link")))
+                .thenReturn(Arrays.asList(LinkStatus.FETCH, LinkStatus.FETCH, LinkStatus.CACHE_HIT, LinkStatus.DUPLICATE));
+        when(crawlerService.getPageAsync("https://nimbo.in")).thenReturn(delayedPage);
+        when(crawlerService.getPageAsync("https://corrupt.link")).thenReturn(failedPage);
+        messageQueue.add(record("https://nimbo.in"));
+        messageQueue.add(record("https://corrupt.link"));
+        messageQueue.add(record("https://cache.hit"));
+        messageQueue.add(record("https://duplicate.link"));
+
+        Thread producerServiceThread = new Thread(producerService);
+        producerServiceThread.start();
+        TimeUnit.SECONDS.sleep(1);
+        assertTrue(messageQueue.isEmpty());
+        assertEquals(1, producerService.getInFlightTasks());
+
+        producerService.close();
+        producerServiceThread.interrupt();
+        delayedPage.complete(page);
+        producerServiceThread.join();
+        assertEquals(0, producerService.getInFlightTasks());
+        assertEquals(2, shufflerProducer.history().size());
+        Set<String> sentLinks = new HashSet<>();
+        for (ProducerRecord<String, String> record : shufflerProducer.history()) {
+            sentLinks.addAll(LinkUtility.splitLinks(record.value()));
+        }
+        assertEquals(shuffledLinks, sentLinks);
+        assertEquals(1, politenessScheduler.size());
+        assertEquals(1, pageProducer.history().size());
+        assertEquals("https://nimbo.in", pageProducer.history().get(0).value().getLink());
+        assertEquals(new HashSet<>(Arrays.asList("https://nimbo.in", "https://corrupt.link", "https://duplicate.link")),
+                new HashSet<>(acknowledgedLinks));
+        assertEquals(0, countDownLatch.getCount());
+    }
+
+    private QueuedRecord<String> record(String link) {
+        return new QueuedRecord<>(new TopicPartition("links", 0), 0, link,
+                queuedRecord -> acknowledgedLinks.add(queuedRecord.getValue()));
+    }
+}
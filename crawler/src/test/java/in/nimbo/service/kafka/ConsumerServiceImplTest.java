@@ -2,6 +2,8 @@ package in.nimbo.service.kafka;
 
 import in.nimbo.TestUtility;
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.kafka.QueuedRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
@@ -32,9 +34,9 @@ public class ConsumerServiceImplTest {
 
     @Test
     public void consumerRunTest() throws InterruptedException {
-        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        BlockingQueue<QueuedRecord<String>> queue = new LinkedBlockingQueue<>();
         CountDownLatch countDownLatch = new CountDownLatch(1);
-        MockConsumer<String, String> kafkaConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        MockConsumer<String, Link> kafkaConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
         kafkaConsumer.subscribe(Collections.singletonList(kafkaConfig.getLinkTopic()));
         ConsumerService consumerService = new ConsumerServiceImpl(kafkaConfig, kafkaConsumer, queue, countDownLatch);
         
@@ -46,7 +48,7 @@ public class ConsumerServiceImplTest {
         crawledLinks.add("https://google.com");
         for (int i = 0; i < crawledLinks.size(); i++) {
             kafkaConsumer.addRecord(new ConsumerRecord<>(
-                    kafkaConfig.getLinkTopic(), 0, i, "producer", crawledLinks.get(i)));
+                    kafkaConfig.getLinkTopic(), 0, i, "producer", new Link(crawledLinks.get(i), null, 0)));
         }
 
         new Thread(() -> {
@@ -60,9 +62,9 @@ public class ConsumerServiceImplTest {
         consumerService.run();
         assertEquals(2, queue.size());
         for (String crawl : crawledLinks) {
-            String link = queue.poll(1, TimeUnit.MILLISECONDS);
+            QueuedRecord<String> link = queue.poll(1, TimeUnit.MILLISECONDS);
             assertNotNull(link);
-            Assert.assertEquals(link, crawl);
+            Assert.assertEquals(link.getValue(), crawl);
         }
         Assert.assertEquals(0, queue.size());
         Assert.assertEquals(0, countDownLatch.getCount());
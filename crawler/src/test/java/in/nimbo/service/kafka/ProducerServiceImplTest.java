@@ -1,13 +1,20 @@
 package in.nimbo.service.kafka;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import in.nimbo.TestUtility;
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Anchor;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.serializer.PageSerializer;
+import in.nimbo.common.utility.LinkUtility;
+import in.nimbo.config.CrawlerConfig;
 import in.nimbo.service.CrawlerService;
+import in.nimbo.service.EmittedLinkCache;
+import in.nimbo.service.PolitenessScheduler;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -15,8 +22,9 @@ import org.junit.Test;
 
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -24,12 +32,15 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class ProducerServiceImplTest {
-    private BlockingQueue<String> messageQueue;
+    private BlockingQueue<QueuedRecord<String>> messageQueue;
+    private List<String> acknowledgedLinks;
     private ProducerService producerService;
     private CountDownLatch countDownLatch;
     private CrawlerService crawlerService;
@@ -44,14 +55,16 @@ public class ProducerServiceImplTest {
     @Before
     public void beforeEachTest() {
         messageQueue = spy(new LinkedBlockingQueue<>());
+        acknowledgedLinks = Collections.synchronizedList(new ArrayList<>());
         countDownLatch = new CountDownLatch(1);
         crawlerService = mock(CrawlerService.class);
         KafkaConfig kafkaConfig = KafkaConfig.load();
         shufflerProducer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
         pageProducer = new MockProducer<>(true, new StringSerializer(), new PageSerializer());
-        producerService = new ProducerServiceImpl(kafkaConfig, messageQueue,
-                pageProducer, shufflerProducer,
-                crawlerService, countDownLatch);
+        CrawlerConfig crawlerConfig = CrawlerConfig.load();
+        producerService = new ProducerServiceImpl(kafkaConfig, crawlerConfig, messageQueue,
+                pageProducer, shufflerProducer, crawlerService, new PolitenessScheduler(Caffeine.newBuilder().build(), 1000, 10, 10),
+                new EmittedLinkCache(crawlerConfig), countDownLatch);
     }
 
     @Test
@@ -63,9 +76,10 @@ public class ProducerServiceImplTest {
         anchors.add(new Anchor("https://stackoverflow.com", "stackoverflow"));
         anchors.add(new Anchor("https://google.com", "google"));
         Page page = new Page("https://nimbo.in", "nimbo", "sahab internship", anchors, new ArrayList<>(), 1.0);
-        when(crawlerService.crawl(anyString())).thenReturn(Optional.of(page));
-        messageQueue.add("https://nimbo.in");
-
+        when(crawlerService.startCrawlAll(anyList()))
+                .thenReturn(Collections.singletonList(CrawlerService.LinkStatus.FETCH));
+        when(crawlerService.getPage(anyString())).thenReturn(page);
+        messageQueue.add(record("https://nimbo.in"));
 
         Thread producerServiceThread = new Thread(producerService);
         producerServiceThread.start();
@@ -79,12 +93,51 @@ public class ProducerServiceImplTest {
             }
         }).start();
         producerServiceThread.join();
+        assertEquals(2, shufflerProducer.history().size());
+        Set<String> sentLinks = new HashSet<>();
         for (ProducerRecord<String, String> record : shufflerProducer.history()) {
-            assertTrue(crawledLinks.contains(record.value()));
+            sentLinks.addAll(LinkUtility.splitLinks(record.value()));
         }
+        assertEquals(crawledLinks, sentLinks);
         for (ProducerRecord<String, Page> record : pageProducer.history()) {
             assertEquals("https://nimbo.in", record.value().getLink());
         }
+        assertEquals(Collections.singletonList("https://nimbo.in"), acknowledgedLinks);
         assertEquals(0, countDownLatch.getCount());
     }
+
+    @Test
+    public void bouncedLinkTest() throws InterruptedException {
+        CrawlerConfig crawlerConfig = CrawlerConfig.load();
+        producerService = new ProducerServiceImpl(KafkaConfig.load(), crawlerConfig, messageQueue,
+                pageProducer, shufflerProducer, crawlerService, new PolitenessScheduler(Caffeine.newBuilder().build(), 1000, 0, 0),
+                new EmittedLinkCache(crawlerConfig), countDownLatch);
+        when(crawlerService.startCrawlAll(anyList()))
+                .thenReturn(Collections.singletonList(CrawlerService.LinkStatus.CACHE_HIT));
+        messageQueue.add(record("https://nimbo.in"));
+
+        Thread producerServiceThread = new Thread(producerService);
+        producerServiceThread.start();
+        new Thread(() -> {
+            try {
+                TimeUnit.SECONDS.sleep(2);
+                producerService.close();
+                producerServiceThread.interrupt();
+            } catch (InterruptedException e) {
+                // ignored
+            }
+        }).start();
+        producerServiceThread.join();
+        assertEquals(1, shufflerProducer.history().size());
+        ProducerRecord<String, String> record = shufflerProducer.history().get(0);
+        assertEquals("https://nimbo.in", record.value());
+        assertNotNull(record.headers().lastHeader(KafkaConfig.BOUNCED_LINK_HEADER));
+        assertTrue(pageProducer.history().isEmpty());
+        assertEquals(Collections.singletonList("https://nimbo.in"), acknowledgedLinks);
+    }
+
+    private QueuedRecord<String> record(String link) {
+        return new QueuedRecord<>(new TopicPartition("links", 0), 0, link,
+                queuedRecord -> acknowledgedLinks.add(queuedRecord.getValue()));
+    }
 }
@@ -12,6 +12,7 @@ import in.nimbo.common.dao.elastic.ElasticDAOImpl;
 import in.nimbo.common.dao.hbase.HBaseDAO;
 import in.nimbo.common.dao.hbase.HBaseDAOImpl;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.utility.UrlCanonicalizer;
 import in.nimbo.config.CollectorConfig;
 import in.nimbo.service.CollectorService;
 import in.nimbo.service.kafka.KafkaService;
@@ -41,6 +42,8 @@ public class App {
     public static void main(String[] args) {
         HBaseConfig hBasePageConfig = HBaseConfig.load();
         ProjectConfig projectConfig = ProjectConfig.load();
+        UrlCanonicalizer.setDefault(new UrlCanonicalizer(projectConfig.getUrlCanonicalIgnoredParameters(),
+                projectConfig.getUrlCanonicalDomainRules()));
         KafkaConfig kafkaConfig = KafkaConfig.load();
         ElasticConfig elasticConfig = ElasticConfig.load();
         CollectorConfig collectorConfig = CollectorConfig.load();
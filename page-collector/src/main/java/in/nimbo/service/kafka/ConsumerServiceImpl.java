@@ -2,36 +2,49 @@ package in.nimbo.service.kafka;
 
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.QueueFeeder;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.utility.CloseUtility;
 import org.apache.kafka.clients.consumer.CommitFailedException;
 import org.apache.kafka.clients.consumer.Consumer;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.InterruptException;
 import org.apache.kafka.common.errors.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * consume pages and hand them off to local queue of collector without blocking in poll loop
+ * partitions are paused while queue is full and only offsets of pages which are acknowledged by handlers are committed
+ */
 public class ConsumerServiceImpl implements ConsumerService {
     private Logger logger = LoggerFactory.getLogger("collector");
-    private BlockingQueue<Page> messageQueue;
+    private BlockingQueue<QueuedRecord<Page>> messageQueue;
     private Consumer<String, Page> consumer;
     private CountDownLatch countDownLatch;
     private KafkaConfig kafkaConfig;
 
     private AtomicBoolean closed = new AtomicBoolean(false);
+    private QueueFeeder<String, Page, Page> queueFeeder;
 
-    public ConsumerServiceImpl(KafkaConfig kafkaConfig, Consumer<String, Page> consumer, BlockingQueue<Page> messageQueue,
+    public ConsumerServiceImpl(KafkaConfig kafkaConfig, Consumer<String, Page> consumer, BlockingQueue<QueuedRecord<Page>> messageQueue,
                                CountDownLatch countDownLatch) {
         this.kafkaConfig = kafkaConfig;
         this.consumer = consumer;
         this.messageQueue = messageQueue;
         this.countDownLatch = countDownLatch;
+        int queueSize = kafkaConfig.getLocalPageQueueSize();
+        queueFeeder = new QueueFeeder<>(consumer, messageQueue, page -> page,
+                (int) (queueSize * kafkaConfig.getLocalQueueHighWaterMark()),
+                (int) (queueSize * kafkaConfig.getLocalQueueLowWaterMark()));
     }
 
     @Override
@@ -39,18 +52,23 @@ public class ConsumerServiceImpl implements ConsumerService {
         closed.set(true);
     }
 
+    /**
+     * @return feeder of local queue which must be notified about rebalance of consumer
+     */
+    public QueueFeeder<String, Page, Page> getQueueFeeder() {
+        return queueFeeder;
+    }
+
     @Override
     public void run() {
         try {
             while (!closed.get()) {
                 ConsumerRecords<String, Page> records = consumer.poll(Duration.ofMillis(kafkaConfig.getMaxPollDuration()));
-                for (ConsumerRecord<String, Page> record : records) {
-                    messageQueue.put(record.value());
-                }
-
+                queueFeeder.feed(records);
                 try {
-                    if (records.count() > 0) {
-                        consumer.commitSync();
+                    Map<TopicPartition, OffsetAndMetadata> offsets = queueFeeder.takeOffsets();
+                    if (!offsets.isEmpty()) {
+                        consumer.commitSync(offsets);
                     }
                 } catch (TimeoutException | CommitFailedException e) {
                     logger.warn("Unable to commit changes for page consumer");
@@ -59,7 +77,7 @@ public class ConsumerServiceImpl implements ConsumerService {
                     Thread.currentThread().interrupt();
                 }
             }
-        } catch (InterruptedException | InterruptException e) {
+        } catch (InterruptException e) {
             logger.info("Consumer service interrupted successfully");
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
@@ -5,11 +5,13 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.ProducerPool;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.monitoring.ThreadsMonitor;
+import in.nimbo.common.utility.CloseUtility;
 import in.nimbo.service.CollectorService;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.Producer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,13 +26,14 @@ public class KafkaServiceImpl implements KafkaService {
     private KafkaConfig config;
     private CollectorService collectorService;
 
-    private BlockingQueue<Page> messageQueue;
+    private BlockingQueue<QueuedRecord<Page>> messageQueue;
     private ConsumerService consumerService;
 
     private List<ProducerService> producerServices;
     private List<Thread> kafkaServices;
-    private List<List<Page>> bufferLists;
+    private List<List<QueuedRecord<Page>>> bufferLists;
     private CountDownLatch countDownLatch;
+    private ProducerPool<String, Page> pageProducerPool;
 
     public KafkaServiceImpl(KafkaConfig kafkaConfig, CollectorService collectorService) {
         this.config = kafkaConfig;
@@ -55,14 +58,16 @@ public class KafkaServiceImpl implements KafkaService {
         startThreadsMonitoring();
 
         KafkaConsumer<String, Page> kafkaConsumer = new KafkaConsumer<>(config.getPageConsumerProperties());
-        kafkaConsumer.subscribe(Collections.singletonList(config.getPageTopic()));
-        consumerService = new ConsumerServiceImpl(config, kafkaConsumer, messageQueue, countDownLatch);
+        ConsumerServiceImpl pageConsumerService = new ConsumerServiceImpl(config, kafkaConsumer, messageQueue, countDownLatch);
+        kafkaConsumer.subscribe(Collections.singletonList(config.getPageTopic()), pageConsumerService.getQueueFeeder());
+        consumerService = pageConsumerService;
         Thread consumerThread = new Thread(consumerService, config.getServiceName() + "0");
         kafkaServices.add(consumerThread);
 
+        pageProducerPool = new ProducerPool<>("page", config.getPageProducerProperties(), config.getPageProducerPoolSize());
         for (int i = 1; i <= config.getPageProducerCount(); i++) {
-            List<Page> bufferList = new ArrayList<>();
-            KafkaProducer<String, Page> producer = new KafkaProducer<>(config.getPageProducerProperties());
+            List<QueuedRecord<Page>> bufferList = new ArrayList<>();
+            Producer<String, Page> producer = pageProducerPool.get(i);
             ProducerService producerService =
                     new ProducerServiceImpl(config, messageQueue, bufferList, producer, collectorService, countDownLatch);
             Thread pageProducerThread = new Thread(producerService, config.getServiceName() + i);
@@ -92,20 +97,13 @@ public class KafkaServiceImpl implements KafkaService {
         try {
             countDownLatch.await();
             logger.info("All service stopped");
-            try (KafkaProducer<String, Page> producer = new KafkaProducer<>(config.getPageProducerProperties())) {
-                logger.info("Start sending {} messages from local page queue to kafka", messageQueue.size());
-                for (Page page : messageQueue) {
-                    producer.send(new ProducerRecord<>(config.getPageTopic(), page));
-                }
-                for (List<Page> bufferList : bufferLists) {
-                    logger.info("Start sending {} messages from local buffer list to kafka", messageQueue.size());
-                    for (Page page : bufferList) {
-                        producer.send(new ProducerRecord<>(config.getPageTopic(), page));
-                    }
-                }
-                producer.flush();
+            CloseUtility.closeSafely(pageProducerPool);
+            // pages of local queue and buffer lists are not acknowledged, so they are read again after restart
+            int bufferedPages = 0;
+            for (List<QueuedRecord<Page>> bufferList : bufferLists) {
+                bufferedPages += bufferList.size();
             }
-            logger.info("All messages sent to kafka");
+            logger.info("{} local pages are left to be consumed again", messageQueue.size() + bufferedPages);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
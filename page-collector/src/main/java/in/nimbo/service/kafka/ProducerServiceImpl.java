@@ -2,7 +2,7 @@ package in.nimbo.service.kafka;
 
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Page;
-import in.nimbo.common.utility.CloseUtility;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.utility.LinkUtility;
 import in.nimbo.service.CollectorService;
 import org.apache.kafka.clients.producer.Producer;
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -20,13 +21,14 @@ public class ProducerServiceImpl implements ProducerService {
     private CollectorService collectorService;
     private Logger logger = LoggerFactory.getLogger("collector");
     private KafkaConfig config;
-    private BlockingQueue<Page> messageQueue;
+    private BlockingQueue<QueuedRecord<Page>> messageQueue;
     private Producer<String, Page> pageProducer;
     private AtomicBoolean closed = new AtomicBoolean(false);
     private CountDownLatch countDownLatch;
-    private List<Page> bufferList;
+    private List<QueuedRecord<Page>> bufferList;
 
-    public ProducerServiceImpl(KafkaConfig kafkaConfig, BlockingQueue<Page> messageQueue, List<Page> bufferList,
+    public ProducerServiceImpl(KafkaConfig kafkaConfig, BlockingQueue<QueuedRecord<Page>> messageQueue,
+                               List<QueuedRecord<Page>> bufferList,
                                Producer<String, Page> pageProducer, CollectorService collectorService,
                                CountDownLatch countDownLatch) {
         this.config = kafkaConfig;
@@ -48,10 +50,11 @@ public class ProducerServiceImpl implements ProducerService {
             int retry = 0;
             int lastSize = -1;
             while (!closed.get()) {
-                Page page = messageQueue.take();
+                QueuedRecord<Page> record = messageQueue.take();
+                Page page = record.getValue();
                 try {
                     page.setLink(LinkUtility.normalize(page.getLink()));
-                    bufferList.add(page);
+                    bufferList.add(record);
                     int size = bufferList.size();
                     if (size > 0 && (size >= 2000 || retry >= 10)) {
                         handle();
@@ -66,25 +69,36 @@ public class ProducerServiceImpl implements ProducerService {
                     lastSize = size;
                 } catch (MalformedURLException e) {
                     logger.error("Illegal url format: {}", page.getLink(), e);
+                    record.acknowledge();
                 }
             }
         } catch (InterruptedException e) {
             logger.info("Page Producer service interrupted successfully");
         } finally {
-            CloseUtility.closeSafely(pageProducer);
             logger.info("Page Producer service stopped successfully");
             countDownLatch.countDown();
         }
     }
 
+    /**
+     * store pages of buffer or send them back to page topic if they are not stored
+     * and acknowledge their records
+     */
     private void handle() {
         logger.info("Start collecting {} pages", bufferList.size());
-        boolean collected = collectorService.processList(bufferList);
+        List<Page> pages = new ArrayList<>(bufferList.size());
+        for (QueuedRecord<Page> record : bufferList) {
+            pages.add(record.getValue());
+        }
+        boolean collected = collectorService.processList(pages);
         if (!collected) {
-            for (Page page : bufferList) {
+            for (Page page : pages) {
                 pageProducer.send(new ProducerRecord<>(config.getPageTopic(), page));
             }
         }
+        for (QueuedRecord<Page> record : bufferList) {
+            record.acknowledge();
+        }
         logger.info("Finish collecting {} pages", bufferList.size());
         bufferList.clear();
     }
@@ -4,6 +4,7 @@ import in.nimbo.TestUtility;
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Anchor;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.QueuedRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
@@ -33,7 +34,7 @@ public class ConsumerServiceImplTest {
 
     @Test
     public void consumerRunTest() throws InterruptedException {
-        BlockingQueue<Page> queue = new LinkedBlockingQueue<>();
+        BlockingQueue<QueuedRecord<Page>> queue = new LinkedBlockingQueue<>();
         CountDownLatch countDownLatch = new CountDownLatch(1);
         MockConsumer<String, Page> kafkaConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
         kafkaConsumer.subscribe(Collections.singletonList(kafkaConfig.getPageTopic()));
@@ -76,8 +77,9 @@ public class ConsumerServiceImplTest {
 
         assertEquals(2, queue.size());
         for (Page page : crawledLinks) {
-            Page returnedPage = queue.poll(1, TimeUnit.MILLISECONDS);
-            assertNotNull(returnedPage);
+            QueuedRecord<Page> record = queue.poll(1, TimeUnit.MILLISECONDS);
+            assertNotNull(record);
+            Page returnedPage = record.getValue();
             Assert.assertEquals(page.getLink(), returnedPage.getLink());
             Assert.assertEquals(page.getReversedLink(), returnedPage.getReversedLink());
             Assert.assertEquals(page.getLinkDepth(), returnedPage.getLinkDepth());
@@ -5,10 +5,12 @@ import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.entity.Anchor;
 import in.nimbo.common.entity.Meta;
 import in.nimbo.common.entity.Page;
+import in.nimbo.common.kafka.QueuedRecord;
 import in.nimbo.common.serializer.PageSerializer;
 import in.nimbo.service.CollectorService;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Assert;
 import org.junit.Before;
@@ -26,12 +28,13 @@ import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class ProducerServiceImplTest {
     private MockProducer<String, Page> kafkaProducer;
-    private BlockingQueue<Page> messageQueue;
-    private List<Page> bufferList;
+    private BlockingQueue<QueuedRecord<Page>> messageQueue;
+    private List<QueuedRecord<Page>> bufferList;
     private ProducerService producerService;
     private CountDownLatch countDownLatch;
     private CollectorService collectorService;
@@ -55,7 +58,9 @@ public class ProducerServiceImplTest {
         anchors.add(new Anchor("https://stackoverflow.com", "stackoverflow"));
         anchors.add(new Anchor("https://google.com", "google"));
         Page page = new Page("http://nimbo.in", "nimbo", "sahab internship", anchors, new ArrayList<Meta>(), 1.0);
-        messageQueue.add(page);
+        List<Page> acknowledgedPages = new ArrayList<>();
+        messageQueue.add(new QueuedRecord<>(new TopicPartition("pages", 0), 0, page,
+                record -> acknowledgedPages.add(record.getValue())));
         when(collectorService.processList(any(List.class))).thenReturn(false);
 
         Thread producerServiceThread = new Thread(producerService);
@@ -82,6 +87,9 @@ public class ProducerServiceImplTest {
             Assert.assertEquals(page.getAnchors(), returnedPage.getAnchors());
             Assert.assertEquals(String.valueOf(page.getRank()), String.valueOf(returnedPage.getRank()));
         }
+        // page is waiting in buffer list, so it is not acknowledged yet
+        assertEquals(1, bufferList.size());
+        assertTrue(acknowledgedPages.isEmpty());
         assertEquals(0, countDownLatch.getCount());
     }
 }
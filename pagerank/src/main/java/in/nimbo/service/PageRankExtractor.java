@@ -1,6 +1,7 @@
 package in.nimbo.service;
 
 import in.nimbo.common.config.HBaseConfig;
+import in.nimbo.common.entity.Fingerprint;
 import in.nimbo.common.utility.LinkUtility;
 import in.nimbo.config.PageRankConfig;
 import in.nimbo.entity.Edge;
@@ -32,13 +33,13 @@ public class PageRankExtractor {
 
         JavaRDD<Node> nodes = hBaseRDD.map(result -> {
             String row = Bytes.toString(result.getRow());
-            return new Node(LinkUtility.hashLink(row), row);
+            return new Node(Fingerprint.of(row).toHex(), row);
         });
         JavaRDD<Edge> edges = hBaseRDD.flatMap(result -> result.listCells().iterator())
                 .filter(cell -> CellUtil.matchingFamily(cell, anchorColumnFamily))
                 .map(cell -> new Edge(
-                        LinkUtility.hashLink(Bytes.toString(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength())),
-                        LinkUtility.hashLink(LinkUtility.reverseLink(Bytes.toString(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())))
+                        Fingerprint.of(Bytes.toString(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength())).toHex(),
+                        Fingerprint.of(LinkUtility.reverseLink(Bytes.toString(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength()))).toHex()
                 ));
 
         Dataset<Row> vertexDF = spark.createDataFrame(nodes, Node.class);
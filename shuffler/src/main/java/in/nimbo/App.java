@@ -3,26 +3,44 @@ package in.nimbo;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.jmx.JmxReporter;
+import in.nimbo.common.config.HBaseConfig;
 import in.nimbo.common.config.KafkaConfig;
 import in.nimbo.common.config.ProjectConfig;
+import in.nimbo.common.config.RedisConfig;
+import in.nimbo.common.dao.hbase.HBaseDAO;
+import in.nimbo.common.dao.hbase.HBaseDAOImpl;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.dao.redis.RedisDAOImpl;
+import in.nimbo.common.utility.CloseUtility;
 import in.nimbo.config.ShufflerConfig;
+import in.nimbo.service.DomainRankService;
+import in.nimbo.service.DuplicateLinkFilter;
 import in.nimbo.service.kafka.KafkaService;
 import in.nimbo.service.kafka.KafkaServiceImpl;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisCluster;
 
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 public class App {
     private static Logger cliLogger = LoggerFactory.getLogger("cli");
     private static Logger appLogger = LoggerFactory.getLogger("shuffler");
     private KafkaService kafkaService;
+    private HBaseDAO hBaseDAO;
+    private JedisCluster redisCluster;
 
-    public App(KafkaService kafkaService) {
+    public App(KafkaService kafkaService, HBaseDAO hBaseDAO, JedisCluster redisCluster) {
         this.kafkaService = kafkaService;
+        this.hBaseDAO = hBaseDAO;
+        this.redisCluster = redisCluster;
     }
 
     public static void main(String[] args) {
+        HBaseConfig hBaseConfig = HBaseConfig.load();
         ProjectConfig projectConfig = ProjectConfig.load();
         KafkaConfig kafkaConfig = KafkaConfig.load();
         ShufflerConfig shufflerConfig = ShufflerConfig.load();
@@ -31,11 +49,33 @@ public class App {
         initReporter(projectConfig);
         appLogger.info("Reporter started");
 
-        KafkaService kafkaService = new KafkaServiceImpl(kafkaConfig, shufflerConfig);
+        Connection hBaseConnection = null;
+        try {
+            hBaseConnection = ConnectionFactory.createConnection();
+            appLogger.info("HBase started");
+        } catch (IOException e) {
+            appLogger.error("Unable to establish HBase connection", e);
+            System.exit(1);
+        }
+        HBaseDAO hBaseDAO = new HBaseDAOImpl(hBaseConnection, hBaseConfig);
+        DomainRankService domainRankService = new DomainRankService(hBaseDAO, hBaseConfig, shufflerConfig);
+
+        JedisCluster redisCluster = null;
+        RedisDAO redisDAO = null;
+        if (shufflerConfig.isDedupRedisEnabled()) {
+            RedisConfig redisConfig = RedisConfig.load();
+            redisCluster = new JedisCluster(redisConfig.getHostAndPorts());
+            redisDAO = new RedisDAOImpl(redisCluster, redisConfig);
+            appLogger.info("Redis started");
+        }
+        DuplicateLinkFilter duplicateLinkFilter = new DuplicateLinkFilter(shufflerConfig, redisDAO);
+
+        KafkaService kafkaService = new KafkaServiceImpl(kafkaConfig, shufflerConfig, domainRankService,
+                duplicateLinkFilter);
         appLogger.info("Services started");
 
         appLogger.info("Application started");
-        App app = new App(kafkaService);
+        App app = new App(kafkaService, hBaseDAO, redisCluster);
         Runtime.getRuntime().addShutdownHook(new Thread(app::stopApp));
 
         app.startApp();
@@ -49,6 +89,12 @@ public class App {
 
     private void stopApp() {
         kafkaService.stopSchedule();
+        try {
+            hBaseDAO.close();
+        } catch (IOException e) {
+            appLogger.warn("Unable to close resources", e);
+        }
+        CloseUtility.closeSafely(redisCluster);
         appLogger.info("Application stopped");
     }
 
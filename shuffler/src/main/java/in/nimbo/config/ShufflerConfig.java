@@ -5,22 +5,95 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 
 public class ShufflerConfig {
+    public enum MODE {BATCH, STREAM}
+
     private static final String CONFIG_NAME = "shuffler-config.properties";
+    private MODE shuffleMode;
+    private int shuffleWorkerCount;
+    private int shuffleLinkProducerCount;
     private int shuffleSize;
     private int shuffleWaitMinutes;
+    private double frontierDepthWeight;
+    private double frontierInlinkWeight;
+    private double frontierRankWeight;
+    private double frontierFreshnessWeight;
+    private int frontierFreshnessHalfLifeMinutes;
+    private int frontierRankCacheSize;
+    private int frontierRankExpireHours;
+    private int streamRatePerSecond;
+    private int streamTickMillis;
+    private int streamWindowSeconds;
+    private double streamDomainMaxShare;
+    private int dedupWindowMinutes;
+    private int dedupGenerations;
+    private int dedupGenerationCapacity;
+    private double dedupFpp;
+    private boolean dedupRedisEnabled;
+    private int dedupRedisBatchSize;
 
     public static ShufflerConfig load() {
         ShufflerConfig pageRankConfig = new ShufflerConfig();
         try {
             PropertiesConfiguration config = new PropertiesConfiguration(CONFIG_NAME);
+            String shuffleMode = config.getString("shuffle.mode");
+            if (shuffleMode.equals("batch")) {
+                pageRankConfig.setShuffleMode(MODE.BATCH);
+            } else if (shuffleMode.equals("stream")) {
+                pageRankConfig.setShuffleMode(MODE.STREAM);
+            } else {
+                throw new ConfigurationException(CONFIG_NAME + ": shuffle mode is illegal");
+            }
+            pageRankConfig.setShuffleWorkerCount(config.getInt("shuffle.worker.count"));
+            pageRankConfig.setShuffleLinkProducerCount(config.getInt("shuffle.link.producer.count"));
             pageRankConfig.setShuffleSize(config.getInt("shuffle.size"));
             pageRankConfig.setShuffleWaitMinutes(config.getInt("shuffle.wait.minutes"));
+            pageRankConfig.setFrontierDepthWeight(config.getDouble("frontier.depth.weight"));
+            pageRankConfig.setFrontierInlinkWeight(config.getDouble("frontier.inlink.weight"));
+            pageRankConfig.setFrontierRankWeight(config.getDouble("frontier.rank.weight"));
+            pageRankConfig.setFrontierFreshnessWeight(config.getDouble("frontier.freshness.weight"));
+            pageRankConfig.setFrontierFreshnessHalfLifeMinutes(config.getInt("frontier.freshness.half.life.minutes"));
+            pageRankConfig.setFrontierRankCacheSize(config.getInt("frontier.rank.cache.size"));
+            pageRankConfig.setFrontierRankExpireHours(config.getInt("frontier.rank.expire.hours"));
+            pageRankConfig.setStreamRatePerSecond(config.getInt("stream.rate.per.second"));
+            pageRankConfig.setStreamTickMillis(config.getInt("stream.tick.millis"));
+            pageRankConfig.setStreamWindowSeconds(config.getInt("stream.window.seconds"));
+            pageRankConfig.setStreamDomainMaxShare(config.getDouble("stream.domain.max.share"));
+            pageRankConfig.setDedupWindowMinutes(config.getInt("dedup.window.minutes"));
+            pageRankConfig.setDedupGenerations(config.getInt("dedup.generations"));
+            pageRankConfig.setDedupGenerationCapacity(config.getInt("dedup.generation.capacity"));
+            pageRankConfig.setDedupFpp(config.getDouble("dedup.fpp"));
+            pageRankConfig.setDedupRedisEnabled(config.getBoolean("dedup.redis.enabled"));
+            pageRankConfig.setDedupRedisBatchSize(config.getInt("dedup.redis.batch.size"));
             return pageRankConfig;
         } catch (ConfigurationException e) {
             throw new LoadConfigurationException(CONFIG_NAME, e);
         }
     }
 
+    public MODE getShuffleMode() {
+        return shuffleMode;
+    }
+
+    public void setShuffleMode(MODE shuffleMode) {
+        this.shuffleMode = shuffleMode;
+    }
+
+    public int getShuffleWorkerCount() {
+        return shuffleWorkerCount;
+    }
+
+    public void setShuffleWorkerCount(int shuffleWorkerCount) {
+        this.shuffleWorkerCount = shuffleWorkerCount;
+    }
+
+    public int getShuffleLinkProducerCount() {
+        return shuffleLinkProducerCount;
+    }
+
+    public void setShuffleLinkProducerCount(int shuffleLinkProducerCount) {
+        this.shuffleLinkProducerCount = shuffleLinkProducerCount;
+    }
+
     public int getShuffleSize() {
         return shuffleSize;
     }
@@ -36,4 +109,140 @@ public class ShufflerConfig {
     public void setShuffleWaitMinutes(int shuffleWaitMinutes) {
         this.shuffleWaitMinutes = shuffleWaitMinutes;
     }
+
+    public double getFrontierDepthWeight() {
+        return frontierDepthWeight;
+    }
+
+    public void setFrontierDepthWeight(double frontierDepthWeight) {
+        this.frontierDepthWeight = frontierDepthWeight;
+    }
+
+    public double getFrontierInlinkWeight() {
+        return frontierInlinkWeight;
+    }
+
+    public void setFrontierInlinkWeight(double frontierInlinkWeight) {
+        this.frontierInlinkWeight = frontierInlinkWeight;
+    }
+
+    public double getFrontierRankWeight() {
+        return frontierRankWeight;
+    }
+
+    public void setFrontierRankWeight(double frontierRankWeight) {
+        this.frontierRankWeight = frontierRankWeight;
+    }
+
+    public double getFrontierFreshnessWeight() {
+        return frontierFreshnessWeight;
+    }
+
+    public void setFrontierFreshnessWeight(double frontierFreshnessWeight) {
+        this.frontierFreshnessWeight = frontierFreshnessWeight;
+    }
+
+    public int getFrontierFreshnessHalfLifeMinutes() {
+        return frontierFreshnessHalfLifeMinutes;
+    }
+
+    public void setFrontierFreshnessHalfLifeMinutes(int frontierFreshnessHalfLifeMinutes) {
+        this.frontierFreshnessHalfLifeMinutes = frontierFreshnessHalfLifeMinutes;
+    }
+
+    public int getFrontierRankCacheSize() {
+        return frontierRankCacheSize;
+    }
+
+    public void setFrontierRankCacheSize(int frontierRankCacheSize) {
+        this.frontierRankCacheSize = frontierRankCacheSize;
+    }
+
+    public int getFrontierRankExpireHours() {
+        return frontierRankExpireHours;
+    }
+
+    public void setFrontierRankExpireHours(int frontierRankExpireHours) {
+        this.frontierRankExpireHours = frontierRankExpireHours;
+    }
+
+    public int getStreamRatePerSecond() {
+        return streamRatePerSecond;
+    }
+
+    public void setStreamRatePerSecond(int streamRatePerSecond) {
+        this.streamRatePerSecond = streamRatePerSecond;
+    }
+
+    public int getStreamTickMillis() {
+        return streamTickMillis;
+    }
+
+    public void setStreamTickMillis(int streamTickMillis) {
+        this.streamTickMillis = streamTickMillis;
+    }
+
+    public int getStreamWindowSeconds() {
+        return streamWindowSeconds;
+    }
+
+    public void setStreamWindowSeconds(int streamWindowSeconds) {
+        this.streamWindowSeconds = streamWindowSeconds;
+    }
+
+    public double getStreamDomainMaxShare() {
+        return streamDomainMaxShare;
+    }
+
+    public void setStreamDomainMaxShare(double streamDomainMaxShare) {
+        this.streamDomainMaxShare = streamDomainMaxShare;
+    }
+
+    public int getDedupWindowMinutes() {
+        return dedupWindowMinutes;
+    }
+
+    public void setDedupWindowMinutes(int dedupWindowMinutes) {
+        this.dedupWindowMinutes = dedupWindowMinutes;
+    }
+
+    public int getDedupGenerations() {
+        return dedupGenerations;
+    }
+
+    public void setDedupGenerations(int dedupGenerations) {
+        this.dedupGenerations = dedupGenerations;
+    }
+
+    public int getDedupGenerationCapacity() {
+        return dedupGenerationCapacity;
+    }
+
+    public void setDedupGenerationCapacity(int dedupGenerationCapacity) {
+        this.dedupGenerationCapacity = dedupGenerationCapacity;
+    }
+
+    public double getDedupFpp() {
+        return dedupFpp;
+    }
+
+    public void setDedupFpp(double dedupFpp) {
+        this.dedupFpp = dedupFpp;
+    }
+
+    public boolean isDedupRedisEnabled() {
+        return dedupRedisEnabled;
+    }
+
+    public void setDedupRedisEnabled(boolean dedupRedisEnabled) {
+        this.dedupRedisEnabled = dedupRedisEnabled;
+    }
+
+    public int getDedupRedisBatchSize() {
+        return dedupRedisBatchSize;
+    }
+
+    public void setDedupRedisBatchSize(int dedupRedisBatchSize) {
+        this.dedupRedisBatchSize = dedupRedisBatchSize;
+    }
 }
@@ -0,0 +1,84 @@
+package in.nimbo.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.nimbo.common.config.HBaseConfig;
+import in.nimbo.common.dao.hbase.HBaseDAO;
+import in.nimbo.common.exception.HBaseException;
+import in.nimbo.config.ShufflerConfig;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rank of domains which is computed by site graph and kept in site table
+ * ranks are cached locally and a domain which is not in site table has rank zero
+ * if HBase is not available, ranks of missed domains are zero and they are not cached
+ */
+public class DomainRankService {
+    private static final int BULK_SIZE = 1000;
+    private Logger logger = LoggerFactory.getLogger("shuffler");
+    private HBaseDAO hBaseDAO;
+    private HBaseConfig hBaseConfig;
+    private Cache<String, Double> rankCache;
+    private Timer loadRanksTimer;
+
+    public DomainRankService(HBaseDAO hBaseDAO, HBaseConfig hBaseConfig, ShufflerConfig shufflerConfig) {
+        this.hBaseDAO = hBaseDAO;
+        this.hBaseConfig = hBaseConfig;
+        rankCache = Caffeine.newBuilder().maximumSize(shufflerConfig.getFrontierRankCacheSize())
+                .expireAfterWrite(shufflerConfig.getFrontierRankExpireHours(), TimeUnit.HOURS).build();
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        loadRanksTimer = metricRegistry.timer(MetricRegistry.name(DomainRankService.class, "loadRanksTimer"));
+    }
+
+    /**
+     * @param domains registrable domains
+     * @return rank of each domain which is found in cache or site table
+     */
+    public Map<String, Double> getRanks(Collection<String> domains) {
+        Map<String, Double> ranks = new HashMap<>(rankCache.getAllPresent(domains));
+        List<String> missedDomains = new ArrayList<>();
+        for (String domain : domains) {
+            if (!ranks.containsKey(domain)) {
+                missedDomains.add(domain);
+            }
+        }
+        Timer.Context loadRanksTimerContext = loadRanksTimer.time();
+        try {
+            for (int from = 0; from < missedDomains.size(); from += BULK_SIZE) {
+                List<String> bulk = missedDomains.subList(from, Math.min(missedDomains.size(), from + BULK_SIZE));
+                Result[] results = hBaseDAO.getBulk(bulk);
+                for (int i = 0; i < bulk.size(); i++) {
+                    double rank = getRank(results[i]);
+                    ranks.put(bulk.get(i), rank);
+                    rankCache.put(bulk.get(i), rank);
+                }
+            }
+        } catch (HBaseException e) {
+            logger.warn("Unable to load rank of domains from site table", e);
+        } finally {
+            loadRanksTimerContext.stop();
+        }
+        return ranks;
+    }
+
+    private double getRank(Result result) {
+        byte[] rank = result == null ? null : result.getValue(hBaseConfig.getInfoColumnFamily(), hBaseConfig.getSiteRankColumn());
+        if (rank == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(Bytes.toString(rank));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package in.nimbo.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.SharedMetricRegistries;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.entity.Fingerprint;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.sketch.SlidingBloomFilter;
+import in.nimbo.config.ShufflerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * drop links which are sent to link topic recently or are crawled before, so crawler doesn't check them with redis
+ * sent links are kept in a sliding bloom filter, so a received link is dropped if it is sent in last window
+ * or it is a false positive of filter. links which crawler sends back are not checked, because shuffler
+ * has sent them recently but they are not crawled. crawled links are checked with redis in batches if it is enabled
+ * filter is thread safe and it is shared between shuffler workers
+ */
+public class DuplicateLinkFilter {
+    private Logger logger = LoggerFactory.getLogger("shuffler");
+    private ShufflerConfig config;
+    private RedisDAO redisDAO;
+    private SlidingBloomFilter sentLinks;
+    private Counter receivedLinksCounter;
+    private Counter recentLinksCounter;
+    private Counter crawledLinksCounter;
+
+    /**
+     * @param redisDAO redis of crawled links or null if crawled links are not checked
+     */
+    public DuplicateLinkFilter(ShufflerConfig config, RedisDAO redisDAO) {
+        this.config = config;
+        this.redisDAO = redisDAO;
+        long generationMillis = TimeUnit.MINUTES.toMillis(config.getDedupWindowMinutes())
+                / Math.max(1, config.getDedupGenerations() - 1);
+        sentLinks = new SlidingBloomFilter(config.getDedupGenerationCapacity(), config.getDedupFpp(),
+                config.getDedupGenerations(), Math.max(1, generationMillis), System.currentTimeMillis());
+        MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        receivedLinksCounter = metricRegistry.counter(MetricRegistry.name(DuplicateLinkFilter.class, "receivedLinksCounter"));
+        recentLinksCounter = metricRegistry.counter(MetricRegistry.name(DuplicateLinkFilter.class, "recentLinksCounter"));
+        crawledLinksCounter = metricRegistry.counter(MetricRegistry.name(DuplicateLinkFilter.class, "crawledLinksCounter"));
+        metricRegistry.gauge(MetricRegistry.name(DuplicateLinkFilter.class, "dropRatio"), () -> new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(recentLinksCounter.getCount() + crawledLinksCounter.getCount(),
+                        receivedLinksCounter.getCount());
+            }
+        });
+    }
+
+    /**
+     * check a received link before it is added to frontier
+     * @return true if link is sent in last window and it must be dropped
+     */
+    public boolean isRecent(String url) {
+        receivedLinksCounter.inc();
+        Fingerprint fingerprint = Fingerprint.of(url);
+        if (sentLinks.mightContain(fingerprint.getHigh(), fingerprint.getLow(), System.currentTimeMillis())) {
+            recentLinksCounter.inc();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * drop links which are crawled before and remember other links as sent
+     * recently sent links are dropped when they are received with {@link #isRecent(String)}
+     * if redis is not available, crawled links are not dropped
+     * @param links links which are going to be sent
+     * @return links which must be sent in same order
+     */
+    public List<Link> filter(List<Link> links) {
+        long now = System.currentTimeMillis();
+        List<Fingerprint> fingerprints = new ArrayList<>(links.size());
+        for (Link link : links) {
+            fingerprints.add(Fingerprint.of(link.getUrl()));
+        }
+        List<Link> result = links;
+        if (redisDAO != null && !links.isEmpty()) {
+            result = new ArrayList<>(links.size());
+            int batchSize = Math.max(1, config.getDedupRedisBatchSize());
+            for (int from = 0; from < links.size(); from += batchSize) {
+                int to = Math.min(links.size(), from + batchSize);
+                List<Boolean> crawled = containsAll(fingerprints.subList(from, to));
+                for (int i = from; i < to; i++) {
+                    if (crawled.get(i - from)) {
+                        crawledLinksCounter.inc();
+                    } else {
+                        result.add(links.get(i));
+                    }
+                }
+            }
+        }
+        for (Fingerprint fingerprint : fingerprints) {
+            sentLinks.put(fingerprint.getHigh(), fingerprint.getLow(), now);
+        }
+        return result;
+    }
+
+    private List<Boolean> containsAll(List<Fingerprint> fingerprints) {
+        try {
+            return redisDAO.containsAll(fingerprints);
+        } catch (JedisException e) {
+            logger.warn("Unable to check crawled links with redis: {}", e.getMessage());
+            return Collections.nCopies(fingerprints.size(), false);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package in.nimbo.service;
+
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.utility.UrlParser;
+import in.nimbo.config.ShufflerConfig;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * links of shuffler which are kept in a queue per domain until they are emitted in priority order
+ * a link which is seen several times is kept once and its inlinks are counted.
+ * score of a link is computed from its depth, inlinks, rank of its domain and its freshness.
+ * links of a domain are sorted by depth and inlinks, and domains take turns in proportion to score
+ * of their best link, so a domain with higher rank is polled more often without starving other domains
+ * frontier is not thread safe
+ */
+public class LinkFrontier {
+    private ShufflerConfig config;
+    private Map<String, Entry> entries;
+    private Map<String, DomainQueue> domainQueues;
+    private TreeSet<DomainQueue> turns;
+    private Set<String> unrankedDomains;
+    private double virtualTime;
+    private long sequence;
+
+    private static final class Entry {
+        private String url;
+        private int depth;
+        private int inlinks;
+        private long firstSeen;
+        private long sequence;
+        private double score;
+
+        private Entry(String url, int depth, long firstSeen, long sequence) {
+            this.url = url;
+            this.depth = depth;
+            this.firstSeen = firstSeen;
+            this.sequence = sequence;
+            inlinks = 1;
+        }
+    }
+
+    private static final class DomainQueue {
+        private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry entry) -> -entry.score)
+                .thenComparingLong(entry -> entry.sequence);
+        private static final Comparator<DomainQueue> TURN_ORDER = Comparator.comparingDouble(
+                (DomainQueue domainQueue) -> domainQueue.nextTurn).thenComparingLong(domainQueue -> domainQueue.sequence);
+        private String domain;
+        private long sequence;
+        private TreeSet<Entry> links = new TreeSet<>(ORDER);
+        private double rank = Double.NaN;
+        private double nextTurn;
+
+        private DomainQueue(String domain, long sequence) {
+            this.domain = domain;
+            this.sequence = sequence;
+        }
+    }
+
+    public LinkFrontier(ShufflerConfig config) {
+        this.config = config;
+        entries = new HashMap<>();
+        domainQueues = new HashMap<>();
+        turns = new TreeSet<>(DomainQueue.TURN_ORDER);
+        unrankedDomains = new HashSet<>();
+    }
+
+    /**
+     * @param url normalized url
+     * @return false if url is invalid and it is dropped
+     */
+    public boolean add(String url) {
+        return add(url, System.currentTimeMillis());
+    }
+
+    boolean add(String url, long now) {
+        Entry entry = entries.get(url);
+        UrlParser parser = UrlParser.local();
+        if (entry == null) {
+            if (!parser.parse(url) || !parser.isValid()) {
+                return false;
+            }
+            String domain = parser.getMainDomain();
+            if (domain == null) {
+                return false;
+            }
+            entry = new Entry(url, parser.depth(), now, sequence++);
+            entry.score = score(entry.depth, entry.inlinks, 0, 0);
+            entries.put(url, entry);
+            DomainQueue domainQueue = domainQueues.get(domain);
+            if (domainQueue == null) {
+                domainQueue = new DomainQueue(domain, entry.sequence);
+                domainQueue.links.add(entry);
+                domainQueue.nextTurn = virtualTime + turnInterval(domainQueue, now);
+                domainQueues.put(domain, domainQueue);
+                turns.add(domainQueue);
+                unrankedDomains.add(domain);
+            } else {
+                domainQueue.links.add(entry);
+            }
+        } else {
+            parser.parse(url);
+            DomainQueue domainQueue = domainQueues.get(parser.getMainDomain());
+            domainQueue.links.remove(entry);
+            entry.inlinks++;
+            entry.score = score(entry.depth, entry.inlinks, 0, 0);
+            domainQueue.links.add(entry);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of distinct links in frontier
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public Set<String> getDomains() {
+        return domainQueues.keySet();
+    }
+
+    /**
+     * @return domains which their rank is not set, they are tracked when they are added to frontier
+     */
+    public Set<String> getUnrankedDomains() {
+        return new HashSet<>(unrankedDomains);
+    }
+
+    /**
+     * set rank of unranked domains and move their next turn sooner if their rank increases their score
+     *
+     * @param domainRanks rank of domains, rank of a domain which is not in map is set to zero
+     */
+    public void setRanks(Map<String, Double> domainRanks) {
+        setRanks(domainRanks, System.currentTimeMillis());
+    }
+
+    void setRanks(Map<String, Double> domainRanks, long now) {
+        for (String domain : unrankedDomains) {
+            DomainQueue domainQueue = domainQueues.get(domain);
+            turns.remove(domainQueue);
+            domainQueue.rank = domainRanks.getOrDefault(domain, 0.0);
+            domainQueue.nextTurn = Math.min(domainQueue.nextTurn, virtualTime + turnInterval(domainQueue, now));
+            turns.add(domainQueue);
+        }
+        unrankedDomains.clear();
+    }
+
+    public Collection<String> getUrls() {
+        return entries.keySet();
+    }
+
+    /**
+     * score all links and remove them from frontier in priority order interleaved by domain.
+     * round i of result contains i-th best link of each domain which are sorted by score,
+     * so a domain with many links can't delay best links of other domains
+     *
+     * @param domainRanks rank of domains, rank of a missed domain is zero
+     * @return links with their score
+     */
+    public List<Link> drain(Map<String, Double> domainRanks, long now) {
+        Comparator<Entry> byScore = Comparator.comparingDouble((Entry entry) -> entry.score).reversed();
+        List<List<Entry>> queues = new ArrayList<>(domainQueues.size());
+        List<String> queueDomains = new ArrayList<>(domainQueues.size());
+        for (DomainQueue domainQueue : domainQueues.values()) {
+            double rank = domainRanks.getOrDefault(domainQueue.domain, 0.0);
+            List<Entry> queue = new ArrayList<>(domainQueue.links);
+            for (Entry entry : queue) {
+                entry.score = score(entry.depth, entry.inlinks, rank, now - entry.firstSeen);
+            }
+            queue.sort(byScore);
+            queues.add(queue);
+            queueDomains.add(domainQueue.domain);
+        }
+        List<Link> links = new ArrayList<>(entries.size());
+        List<Entry> round = new ArrayList<>();
+        Map<Entry, String> roundDomains = new HashMap<>();
+        for (int i = 0; !queues.isEmpty(); i++) {
+            round.clear();
+            roundDomains.clear();
+            List<List<Entry>> nextQueues = new ArrayList<>();
+            List<String> nextDomains = new ArrayList<>();
+            for (int j = 0; j < queues.size(); j++) {
+                List<Entry> queue = queues.get(j);
+                round.add(queue.get(i));
+                roundDomains.put(queue.get(i), queueDomains.get(j));
+                if (queue.size() > i + 1) {
+                    nextQueues.add(queue);
+                    nextDomains.add(queueDomains.get(j));
+                }
+            }
+            queues = nextQueues;
+            queueDomains = nextDomains;
+            round.sort(byScore);
+            for (Entry entry : round) {
+                links.add(new Link(entry.url, roundDomains.get(entry), entry.depth, entry.score));
+            }
+        }
+        clear();
+        return links;
+    }
+
+    /**
+     * remove best links of domains in order of their turns, one link of a domain at each turn.
+     * next turn of a domain is after an interval which is inverse of score of its best link,
+     * so domains with higher rank and better links take more turns.
+     * a domain is skipped until next poll if admission of its link is rejected
+     *
+     * @param maxLinks maximum number of links
+     * @param admission called before a link of a domain is removed, link is removed only if it returns true
+     * @return links with their score in order of removal
+     */
+    public List<Link> poll(int maxLinks, long now, Predicate<String> admission) {
+        List<Link> links = new ArrayList<>(Math.min(maxLinks, entries.size()));
+        List<DomainQueue> skippedDomains = new ArrayList<>();
+        while (links.size() < maxLinks && !turns.isEmpty()) {
+            DomainQueue domainQueue = turns.pollFirst();
+            if (!admission.test(domainQueue.domain)) {
+                skippedDomains.add(domainQueue);
+                continue;
+            }
+            virtualTime = domainQueue.nextTurn;
+            Entry entry = domainQueue.links.pollFirst();
+            entries.remove(entry.url);
+            links.add(new Link(entry.url, domainQueue.domain, entry.depth,
+                    score(entry.depth, entry.inlinks, getRank(domainQueue), now - entry.firstSeen)));
+            if (domainQueue.links.isEmpty()) {
+                domainQueues.remove(domainQueue.domain);
+                unrankedDomains.remove(domainQueue.domain);
+            } else {
+                domainQueue.nextTurn += turnInterval(domainQueue, now);
+                turns.add(domainQueue);
+            }
+        }
+        turns.addAll(skippedDomains);
+        return links;
+    }
+
+    public void clear() {
+        entries.clear();
+        domainQueues.clear();
+        turns.clear();
+        unrankedDomains.clear();
+        virtualTime = 0;
+    }
+
+    /**
+     * @return interval between turns of domain which is shorter for a domain with a better first link
+     */
+    private double turnInterval(DomainQueue domainQueue, long now) {
+        Entry entry = domainQueue.links.first();
+        return 1 / (1 + Math.max(0, score(entry.depth, entry.inlinks, getRank(domainQueue), now - entry.firstSeen)));
+    }
+
+    private static double getRank(DomainQueue domainQueue) {
+        return Double.isNaN(domainQueue.rank) ? 0 : domainQueue.rank;
+    }
+
+    double score(int depth, int inlinks, double domainRank, long ageMillis) {
+        double halfLifeMillis = config.getFrontierFreshnessHalfLifeMinutes() * 60_000.0;
+        double freshness = halfLifeMillis > 0 ? Math.pow(2, -Math.max(0, ageMillis) / halfLifeMillis) : 0;
+        return config.getFrontierDepthWeight() / (1 + depth)
+                + config.getFrontierInlinkWeight() * Math.log1p(inlinks)
+                + config.getFrontierRankWeight() * Math.log1p(Math.max(0, domainRank))
+                + config.getFrontierFreshnessWeight() * freshness;
+    }
+}
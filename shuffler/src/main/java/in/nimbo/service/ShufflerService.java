@@ -1,10 +1,14 @@
 package in.nimbo.service;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.sketch.WindowedCountMinSketch;
 import in.nimbo.common.utility.CloseUtility;
+import in.nimbo.common.utility.LinkUtility;
 import in.nimbo.config.ShufflerConfig;
 import org.apache.kafka.clients.consumer.CommitFailedException;
 import org.apache.kafka.clients.consumer.Consumer;
@@ -20,36 +24,56 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
+/**
+ * a shuffler worker which consumes its assigned partitions of shuffler topic into its own frontier
+ * and sends links of frontier to link topic. producer of worker may be shared with other workers
+ * and it is not closed by worker. rate of stream mode is divided between workers equally
+ * and share of a domain is checked by its worker because all links of a domain are in one partition
+ */
 public class ShufflerService implements Runnable, Closeable {
+    private static final double SKETCH_EPSILON = 0.0001;
+    private static final double SKETCH_DELTA = 0.001;
     private Logger logger = LoggerFactory.getLogger("shuffler");
     private KafkaConfig kafkaConfig;
     private ShufflerConfig shufflerConfig;
-    private List<String> shuffleList;
+    private LinkFrontier frontier;
+    private DomainRankService domainRankService;
+    private DuplicateLinkFilter duplicateLinkFilter;
     private Consumer<String, String> shufflerConsumer;
-    private Producer<String, String> linkProducer;
+    private Producer<String, Link> linkProducer;
 
     private AtomicBoolean closed = new AtomicBoolean(false);
     private CountDownLatch countDownLatch;
-    private ThreadLocalRandom random = ThreadLocalRandom.current();
 
     private Timer shuffleLinksTimer;
+    private Counter invalidLinksCounter;
+    private Counter throttledDomainsCounter;
 
     public ShufflerService(KafkaConfig kafkaConfig, ShufflerConfig shufflerConfig,
-                           Consumer<String, String> shufflerConsumer, Producer<String, String> linkProducer,
-                           List<String> shuffleList, CountDownLatch countDownLatch) {
+                           Consumer<String, String> shufflerConsumer, Producer<String, Link> linkProducer,
+                           LinkFrontier frontier, DomainRankService domainRankService,
+                           DuplicateLinkFilter duplicateLinkFilter,
+                           CountDownLatch countDownLatch, int workerId) {
         this.kafkaConfig = kafkaConfig;
         this.shufflerConfig = shufflerConfig;
         this.shufflerConsumer = shufflerConsumer;
         this.linkProducer = linkProducer;
-        this.shuffleList = shuffleList;
+        this.frontier = frontier;
+        this.domainRankService = domainRankService;
+        this.duplicateLinkFilter = duplicateLinkFilter;
         this.countDownLatch = countDownLatch;
         MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
-        shuffleLinksTimer = metricRegistry.timer(MetricRegistry.name(ShufflerService.class, "shuffleLinksTimer"));
+        shuffleLinksTimer = metricRegistry.timer(MetricRegistry.name(ShufflerService.class,
+                "worker-" + workerId, "shuffleLinksTimer"));
+        invalidLinksCounter = metricRegistry.counter(MetricRegistry.name(ShufflerService.class, "invalidLinksCounter"));
+        throttledDomainsCounter = metricRegistry.counter(MetricRegistry.name(ShufflerService.class, "throttledDomainsCounter"));
     }
 
     @Override
@@ -60,76 +84,157 @@ public class ShufflerService implements Runnable, Closeable {
     @Override
     public void run() {
         try {
-            int retry = 0;
-            int lastSize = -1;
-            while (!closed.get()) {
-                ConsumerRecords<String, String> records = shufflerConsumer.poll(Duration.ofMillis(kafkaConfig.getMaxPollDuration()));
-                for (ConsumerRecord<String, String> record : records) {
-                    shuffleList.add(record.value());
-                }
-                int size = shuffleList.size();
-                if (size > 0 && (size >= shufflerConfig.getShuffleSize() || retry >= 10)) {
-                    processList();
-                    retry = 0;
-                    TimeUnit.MINUTES.sleep(shufflerConfig.getShuffleWaitMinutes());
-                } else {
-                    if (size == lastSize) {
-                        retry++;
-                    } else {
-                        retry = 0;
-                    }
-                }
-                lastSize = size;
-
-                try {
-                    if (records.count() > 0) {
-                        shufflerConsumer.commitSync();
-                    }
-                } catch (TimeoutException | CommitFailedException e) {
-                    logger.warn("Unable to commit changes for shuffle consumer");
-                } catch (org.apache.kafka.common.errors.InterruptException e) {
-                    logger.warn("Unable to commit changes for shuffle consumer because of interruption");
-                    Thread.currentThread().interrupt();
-                }
+            if (shufflerConfig.getShuffleMode() == ShufflerConfig.MODE.BATCH) {
+                runBatch();
+            } else {
+                runStream();
             }
-        }catch (InterruptedException | InterruptException e) {
+        } catch (InterruptException e) {
             logger.info("Shuffler service interrupted successfully");
-        }  catch (Exception e) {
+        } catch (Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
             CloseUtility.closeSafely(shufflerConsumer);
-            CloseUtility.closeSafely(linkProducer);
             logger.info("Shuffler service stopped successfully");
             countDownLatch.countDown();
         }
     }
 
-    private String[] shuffle(List<String> shuffleList) {
-        String[] arr = shuffleList.toArray(new String[0]);
-        for (int i = shuffleList.size(); i > 1; i--) {
-            swap(arr, i - 1, random.nextInt(i));
+    /**
+     * collect links until frontier is full or no new link is received, then send all of them.
+     * consumer is paused instead of sleeping after each batch, so it keeps polling and stays in its group
+     */
+    private void runBatch() {
+        int retry = 0;
+        int lastSize = -1;
+        long pausedUntil = 0;
+        while (!closed.get()) {
+            ConsumerRecords<String, String> records = shufflerConsumer.poll(Duration.ofMillis(kafkaConfig.getMaxPollDuration()));
+            addRecords(records);
+            long now = System.currentTimeMillis();
+            if (pausedUntil > 0 && now >= pausedUntil) {
+                shufflerConsumer.resume(shufflerConsumer.paused());
+                pausedUntil = 0;
+            }
+            int size = frontier.size();
+            if (size > 0 && (size >= shufflerConfig.getShuffleSize() || retry >= 10)) {
+                processList();
+                retry = 0;
+                shufflerConsumer.pause(shufflerConsumer.assignment());
+                pausedUntil = now + TimeUnit.MINUTES.toMillis(shufflerConfig.getShuffleWaitMinutes());
+            } else if (pausedUntil == 0) {
+                if (size == lastSize) {
+                    retry++;
+                } else {
+                    retry = 0;
+                }
+            }
+            lastSize = size;
+            commit(records);
+        }
+    }
+
+    /**
+     * send links continuously at a fixed rate, domains take turns in proportion to score of their best link.
+     * a domain is skipped in its turn if its share of links which are sent in last window is reached.
+     * consumer is paused while frontier is full and resumed when half of it is sent
+     */
+    private void runStream() {
+        long tickMillis = shufflerConfig.getStreamTickMillis();
+        double ratePerSecond = (double) shufflerConfig.getStreamRatePerSecond()
+                / Math.max(1, shufflerConfig.getShuffleWorkerCount());
+        double ratePerMillis = ratePerSecond / 1000.0;
+        long windowMillis = TimeUnit.SECONDS.toMillis(shufflerConfig.getStreamWindowSeconds());
+        // links of a domain are partitioned to one worker, so its share is computed from total rate
+        long domainCap = Math.max(1, (long) (shufflerConfig.getStreamDomainMaxShare()
+                * shufflerConfig.getStreamRatePerSecond() * shufflerConfig.getStreamWindowSeconds()));
+        WindowedCountMinSketch domainCounts = new WindowedCountMinSketch(
+                SKETCH_EPSILON, SKETCH_DELTA, windowMillis, System.currentTimeMillis());
+        Predicate<String> admission = domain -> {
+            long now = System.currentTimeMillis();
+            if (domainCounts.estimate(domain, now) >= domainCap) {
+                throttledDomainsCounter.inc();
+                return false;
+            }
+            domainCounts.add(domain, now);
+            return true;
+        };
+        double allowance = 0;
+        long lastTick = System.currentTimeMillis();
+        while (!closed.get()) {
+            ConsumerRecords<String, String> records = shufflerConsumer.poll(Duration.ofMillis(tickMillis));
+            addRecords(records);
+            commit(records);
+
+            long now = System.currentTimeMillis();
+            allowance = Math.min(allowance + (now - lastTick) * ratePerMillis, Math.max(1, ratePerSecond));
+            lastTick = now;
+            if (allowance >= 1 && frontier.size() > 0) {
+                Timer.Context shuffleLinksTimerContext = shuffleLinksTimer.time();
+                Set<String> unrankedDomains = frontier.getUnrankedDomains();
+                if (!unrankedDomains.isEmpty()) {
+                    frontier.setRanks(domainRankService.getRanks(unrankedDomains));
+                }
+                List<Link> links = duplicateLinkFilter.filter(frontier.poll((int) allowance, now, admission));
+                shuffleLinksTimerContext.stop();
+                allowance -= links.size();
+                for (Link link : links) {
+                    linkProducer.send(new ProducerRecord<>(kafkaConfig.getLinkTopic(), link));
+                }
+            }
+
+            int size = frontier.size();
+            if (size >= shufflerConfig.getShuffleSize()) {
+                shufflerConsumer.pause(shufflerConsumer.assignment());
+            } else if (size < shufflerConfig.getShuffleSize() / 2 && !shufflerConsumer.paused().isEmpty()) {
+                shufflerConsumer.resume(shufflerConsumer.paused());
+            }
+        }
+    }
+
+    /**
+     * add links of records to frontier, recently sent links are dropped unless crawler has sent them back
+     */
+    private void addRecords(ConsumerRecords<String, String> records) {
+        for (ConsumerRecord<String, String> record : records) {
+            boolean bounced = record.headers().lastHeader(KafkaConfig.BOUNCED_LINK_HEADER) != null;
+            for (String link : LinkUtility.splitLinks(record.value())) {
+                if (!bounced && duplicateLinkFilter.isRecent(link)) {
+                    continue;
+                }
+                if (!frontier.add(link)) {
+                    invalidLinksCounter.inc();
+                }
+            }
         }
-        return arr;
     }
 
-    private static void swap(String[] arr, int i, int j) {
-        String tmp = arr[i];
-        arr[i] = arr[j];
-        arr[j] = tmp;
+    private void commit(ConsumerRecords<String, String> records) {
+        try {
+            if (records.count() > 0) {
+                shufflerConsumer.commitSync();
+            }
+        } catch (TimeoutException | CommitFailedException e) {
+            logger.warn("Unable to commit changes for shuffle consumer");
+        } catch (InterruptException e) {
+            logger.warn("Unable to commit changes for shuffle consumer because of interruption");
+            Thread.currentThread().interrupt();
+        }
     }
 
+    /**
+     * send links of frontier in priority order which is interleaved by domain
+     */
     private void processList() {
-        logger.info("Start filtering {} links", shuffleList.size());
-        List<String> filteredLinks = shuffleList;
-        logger.info("Start shuffling {} links", filteredLinks.size());
+        logger.info("Start scoring {} links", frontier.size());
         Timer.Context shuffleLinksTimerContext = shuffleLinksTimer.time();
-        String[] shuffledLinks = shuffle(filteredLinks);
+        Map<String, Double> domainRanks = domainRankService.getRanks(frontier.getDomains());
+        List<Link> links = duplicateLinkFilter.filter(frontier.drain(domainRanks, System.currentTimeMillis()));
         shuffleLinksTimerContext.stop();
-        logger.info("Finish shuffling {} links", filteredLinks.size());
-        for (String link : shuffledLinks) {
+        logger.info("Finish scoring {} links", links.size());
+        for (Link link : links) {
             linkProducer.send(new ProducerRecord<>(kafkaConfig.getLinkTopic(), link));
         }
-        logger.info("Added {} shuffled links to kafka", filteredLinks.size());
-        shuffleList.clear();
+        logger.info("Added {} links to kafka", links.size());
     }
 }
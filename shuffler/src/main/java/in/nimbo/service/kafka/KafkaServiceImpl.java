@@ -4,7 +4,13 @@ import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.kafka.ProducerPool;
+import in.nimbo.common.utility.CloseUtility;
 import in.nimbo.config.ShufflerConfig;
+import in.nimbo.service.DomainRankService;
+import in.nimbo.service.DuplicateLinkFilter;
+import in.nimbo.service.LinkFrontier;
 import in.nimbo.service.ShufflerService;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
@@ -18,53 +24,90 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * start shuffler workers which are consumers of a group, so partitions of shuffler topic are divided between them
+ * each worker has its own frontier and workers share a pool of thread safe producers of link topic
+ */
 public class KafkaServiceImpl implements KafkaService {
     private Logger logger = LoggerFactory.getLogger("shuffler");
     private KafkaConfig config;
     private ShufflerConfig shufflerConfig;
-    private List<String> shuffleList;
-    private ShufflerService shufflerService;
-    private Thread shufflerServiceThread;
+    private DomainRankService domainRankService;
+    private DuplicateLinkFilter duplicateLinkFilter;
+    private List<LinkFrontier> frontiers;
+    private List<ShufflerService> shufflerServices;
+    private List<Thread> shufflerServiceThreads;
+    private ProducerPool<String, Link> linkProducerPool;
 
     private CountDownLatch countDownLatch;
 
-    public KafkaServiceImpl(KafkaConfig kafkaConfig, ShufflerConfig shufflerConfig) {
+    public KafkaServiceImpl(KafkaConfig kafkaConfig, ShufflerConfig shufflerConfig,
+                            DomainRankService domainRankService, DuplicateLinkFilter duplicateLinkFilter) {
         this.config = kafkaConfig;
         this.shufflerConfig = shufflerConfig;
-        countDownLatch = new CountDownLatch(1);
-        shuffleList = new ArrayList<>();
+        this.domainRankService = domainRankService;
+        this.duplicateLinkFilter = duplicateLinkFilter;
+        countDownLatch = new CountDownLatch(shufflerConfig.getShuffleWorkerCount());
+        frontiers = new ArrayList<>();
+        shufflerServices = new ArrayList<>();
+        shufflerServiceThreads = new ArrayList<>();
         MetricRegistry metricRegistry = SharedMetricRegistries.getDefault();
+        for (int i = 0; i < shufflerConfig.getShuffleWorkerCount(); i++) {
+            LinkFrontier frontier = new LinkFrontier(shufflerConfig);
+            frontiers.add(frontier);
+            metricRegistry.register(MetricRegistry.name(KafkaServiceImpl.class, "worker-" + i, "localShuffleQueueSize"),
+                    new CachedGauge<Integer>(15, TimeUnit.SECONDS) {
+                        @Override
+                        protected Integer loadValue() {
+                            return frontier.size();
+                        }
+                    });
+        }
         metricRegistry.register(MetricRegistry.name(KafkaServiceImpl.class, "localShuffleQueueSize"),
                 new CachedGauge<Integer>(15, TimeUnit.SECONDS) {
                     @Override
                     protected Integer loadValue() {
-                        return shuffleList.size();
+                        return frontiers.stream().mapToInt(LinkFrontier::size).sum();
                     }
                 });
     }
 
     @Override
     public void schedule() {
-        KafkaConsumer<String, String> shufflerConsumer = new KafkaConsumer<>(config.getShufflerConsumerProperties());
-        KafkaProducer<String, String> linkProducer = new KafkaProducer<>(config.getLinkProducerProperties());
-        shufflerConsumer.subscribe(Collections.singletonList(config.getShufflerTopic()));
-        shufflerService = new ShufflerService(config, shufflerConfig, shufflerConsumer, linkProducer, shuffleList, countDownLatch);
-        shufflerServiceThread = new Thread(shufflerService);
-        shufflerServiceThread.start();
+        linkProducerPool = new ProducerPool<>("link", config.getLinkProducerProperties(),
+                shufflerConfig.getShuffleLinkProducerCount());
+        for (int i = 0; i < shufflerConfig.getShuffleWorkerCount(); i++) {
+            KafkaConsumer<String, String> shufflerConsumer = new KafkaConsumer<>(config.getShufflerConsumerProperties());
+            shufflerConsumer.subscribe(Collections.singletonList(config.getShufflerTopic()));
+            ShufflerService shufflerService = new ShufflerService(config, shufflerConfig, shufflerConsumer,
+                    linkProducerPool.get(i), frontiers.get(i), domainRankService,
+                    duplicateLinkFilter, countDownLatch, i);
+            Thread shufflerServiceThread = new Thread(shufflerService, config.getServiceName() + "-" + i);
+            shufflerServices.add(shufflerService);
+            shufflerServiceThreads.add(shufflerServiceThread);
+            shufflerServiceThread.start();
+        }
     }
 
     @Override
     public void stopSchedule() {
         logger.info("Stop schedule service");
-        shufflerService.close();
-        shufflerServiceThread.interrupt();
+        for (ShufflerService shufflerService : shufflerServices) {
+            shufflerService.close();
+        }
+        for (Thread shufflerServiceThread : shufflerServiceThreads) {
+            shufflerServiceThread.interrupt();
+        }
         try {
             countDownLatch.await();
             logger.info("All service stopped");
+            CloseUtility.closeSafely(linkProducerPool);
             try (KafkaProducer<String, String> producer = new KafkaProducer<>(config.getShufflerProducerProperties())) {
-                logger.info("Start sending {} messages from local message list to kafka", shuffleList.size());
-                for (String link : shuffleList) {
-                    producer.send(new ProducerRecord<>(config.getShufflerTopic(), link));
+                for (LinkFrontier frontier : frontiers) {
+                    logger.info("Start sending {} messages from local frontier to kafka", frontier.size());
+                    for (String link : frontier.getUrls()) {
+                        producer.send(new ProducerRecord<>(config.getShufflerTopic(), link));
+                    }
                 }
                 producer.flush();
             }
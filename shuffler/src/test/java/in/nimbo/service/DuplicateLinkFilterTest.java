@@ -0,0 +1,71 @@
+package in.nimbo.service;
+
+import in.nimbo.TestUtility;
+import in.nimbo.common.dao.redis.RedisDAO;
+import in.nimbo.common.entity.Fingerprint;
+import in.nimbo.common.entity.Link;
+import in.nimbo.config.ShufflerConfig;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class DuplicateLinkFilterTest {
+    private static ShufflerConfig shufflerConfig;
+
+    @BeforeClass
+    public static void init() {
+        TestUtility.setMetricRegistry();
+        shufflerConfig = ShufflerConfig.load();
+        shufflerConfig.setDedupGenerationCapacity(1000);
+        shufflerConfig.setDedupRedisBatchSize(2);
+    }
+
+    @Test
+    public void recentTest() {
+        DuplicateLinkFilter filter = new DuplicateLinkFilter(shufflerConfig, null);
+        assertFalse(filter.isRecent("https://nimbo.in/a"));
+        List<Link> links = filter.filter(Arrays.asList(link("https://nimbo.in/a"), link("https://nimbo.in/b")));
+        assertEquals(2, links.size());
+        assertTrue(filter.isRecent("https://nimbo.in/a"));
+        assertTrue(filter.isRecent("https://nimbo.in/b"));
+        // a link which is sent back by crawler is sent again
+        assertEquals(1, filter.filter(Collections.singletonList(link("https://nimbo.in/b"))).size());
+        assertFalse(filter.isRecent("https://nimbo.in/c"));
+    }
+
+    @Test
+    public void crawledTest() {
+        RedisDAO redisDAO = mock(RedisDAO.class);
+        when(redisDAO.containsAll(anyList())).thenAnswer(invocation -> {
+            List<Fingerprint> fingerprints = invocation.getArgument(0);
+            return fingerprints.stream().map(fingerprint -> fingerprint.equals(Fingerprint.of("https://github.com/b")))
+                    .collect(Collectors.toList());
+        });
+        DuplicateLinkFilter filter = new DuplicateLinkFilter(shufflerConfig, redisDAO);
+        List<String> urls = filter.filter(Arrays.asList(link("https://github.com/a"), link("https://github.com/b"),
+                link("https://github.com/c"))).stream().map(Link::getUrl).collect(Collectors.toList());
+        assertEquals(Arrays.asList("https://github.com/a", "https://github.com/c"), urls);
+        verify(redisDAO, times(2)).containsAll(anyList());
+    }
+
+    @Test
+    public void redisFailureTest() {
+        RedisDAO redisDAO = mock(RedisDAO.class);
+        when(redisDAO.containsAll(anyList())).thenThrow(new JedisConnectionException("connection refused"));
+        DuplicateLinkFilter filter = new DuplicateLinkFilter(shufflerConfig, redisDAO);
+        assertEquals(1, filter.filter(Collections.singletonList(link("https://stackoverflow.com/a"))).size());
+    }
+
+    private static Link link(String url) {
+        return new Link(url, null, 0);
+    }
+}
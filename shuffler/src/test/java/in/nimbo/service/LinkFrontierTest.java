@@ -0,0 +1,117 @@
+package in.nimbo.service;
+
+import in.nimbo.common.entity.Link;
+import in.nimbo.config.ShufflerConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class LinkFrontierTest {
+    private ShufflerConfig shufflerConfig;
+    private LinkFrontier frontier;
+
+    @Before
+    public void init() {
+        shufflerConfig = ShufflerConfig.load();
+        frontier = new LinkFrontier(shufflerConfig);
+    }
+
+    @Test
+    public void addTest() {
+        assertTrue(frontier.add("https://nimbo.in/a", 0));
+        assertTrue(frontier.add("https://nimbo.in/a", 0));
+        assertTrue(frontier.add("https://blog.nimbo.in/b", 0));
+        assertFalse(frontier.add("mailto:support@nimbo.in", 0));
+        assertFalse(frontier.add("https://localhost/a", 0));
+        assertEquals(2, frontier.size());
+        assertEquals(Collections.singleton("nimbo.in"), frontier.getDomains());
+    }
+
+    @Test
+    public void drainTest() {
+        frontier.add("https://stackoverflow.com/a/b/c/d", 0);
+        frontier.add("https://stackoverflow.com/a", 0);
+        frontier.add("https://stackoverflow.com/a/b", 0);
+        frontier.add("https://github.com/a/b/c", 0);
+        frontier.add("https://github.com/a/b/c", 0);
+        frontier.add("https://github.com/a/b/c", 0);
+        frontier.add("https://nimbo.in/a", 0);
+        List<Link> links = frontier.drain(Collections.singletonMap("nimbo.in", 100.0), 0);
+        assertEquals(0, frontier.size());
+        assertTrue(frontier.getDomains().isEmpty());
+        List<String> urls = links.stream().map(Link::getUrl).collect(Collectors.toList());
+        assertEquals(7 - 2, urls.size());
+        assertEquals("https://nimbo.in/a", urls.get(0));
+        assertEquals("https://stackoverflow.com/a", urls.get(1));
+        assertEquals("https://github.com/a/b/c", urls.get(2));
+        assertEquals("https://stackoverflow.com/a/b", urls.get(3));
+        assertEquals("https://stackoverflow.com/a/b/c/d", urls.get(4));
+        assertEquals("github.com", links.get(2).getLabel());
+        assertEquals(3, links.get(2).getLevel());
+        for (int i = 1; i < 3; i++) {
+            assertTrue(links.get(i - 1).getScore() >= links.get(i).getScore());
+        }
+    }
+
+    @Test
+    public void pollTest() {
+        frontier.add("https://stackoverflow.com/a/b", 0);
+        frontier.add("https://stackoverflow.com/a", 0);
+        frontier.add("https://stackoverflow.com/b", 0);
+        frontier.add("https://github.com/a", 0);
+        frontier.add("https://nimbo.in/a", 0);
+        frontier.add("https://nimbo.in/b", 0);
+        assertEquals(3, frontier.getUnrankedDomains().size());
+        frontier.setRanks(Collections.singletonMap("nimbo.in", 100.0), 0);
+        assertTrue(frontier.getUnrankedDomains().isEmpty());
+
+        List<Link> links = frontier.poll(4, 0, domain -> !domain.equals("github.com"));
+        List<String> urls = links.stream().map(Link::getUrl).collect(Collectors.toList());
+        assertEquals(4, urls.size());
+        assertEquals("https://nimbo.in/a", urls.get(0));
+        assertEquals("https://nimbo.in/b", urls.get(1));
+        assertEquals("https://stackoverflow.com/a", urls.get(2));
+        assertEquals("https://stackoverflow.com/b", urls.get(3));
+        assertTrue(links.get(0).getScore() > links.get(2).getScore());
+        assertEquals(2, frontier.size());
+        frontier.add("https://nimbo.in/c", 0);
+        assertEquals(Collections.singleton("nimbo.in"), frontier.getUnrankedDomains());
+        frontier.setRanks(Collections.emptyMap(), 0);
+        assertEquals(3, frontier.size());
+
+        assertTrue(frontier.poll(10, 0, domain -> false).isEmpty());
+        urls = frontier.poll(10, 0, domain -> true).stream().map(Link::getUrl).collect(Collectors.toList());
+        assertEquals(3, urls.size());
+        assertTrue(urls.contains("https://nimbo.in/c"));
+        assertTrue(urls.contains("https://github.com/a"));
+        assertTrue(urls.contains("https://stackoverflow.com/a/b"));
+        assertEquals(0, frontier.size());
+        assertTrue(frontier.getDomains().isEmpty());
+    }
+
+    @Test
+    public void rankedDomainTurnsTest() {
+        for (int i = 0; i < 20; i++) {
+            frontier.add("https://github.com/" + i, 0);
+            frontier.add("https://nimbo.in/" + i, 0);
+        }
+        frontier.setRanks(Collections.singletonMap("nimbo.in", 1000.0), 0);
+        List<Link> links = frontier.poll(20, 0, domain -> true);
+        long rankedLinks = links.stream().filter(link -> link.getLabel().equals("nimbo.in")).count();
+        assertTrue(rankedLinks > 20 - rankedLinks);
+        assertTrue(rankedLinks < 20);
+    }
+
+    @Test
+    public void scoreTest() {
+        assertTrue(frontier.score(1, 1, 0, 0) > frontier.score(5, 1, 0, 0));
+        assertTrue(frontier.score(1, 10, 0, 0) > frontier.score(1, 1, 0, 0));
+        assertTrue(frontier.score(1, 1, 10, 0) > frontier.score(1, 1, 0, 0));
+        assertTrue(frontier.score(1, 1, 0, 0) > frontier.score(1, 1, 0, 3_600_000));
+    }
+}
@@ -2,6 +2,9 @@ package in.nimbo.service;
 
 import in.nimbo.TestUtility;
 import in.nimbo.common.config.KafkaConfig;
+import in.nimbo.common.entity.Link;
+import in.nimbo.common.serializer.LinkSerializer;
+import in.nimbo.common.utility.LinkUtility;
 import in.nimbo.config.ShufflerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
@@ -10,72 +13,116 @@ import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ShufflerServiceTest {
-    private static ShufflerService shufflerService;
     private static KafkaConfig kafkaConfig;
-    private static MockConsumer<String, String> shufflerConsumer;
-    private static MockProducer<String, String> linkProducer;
-    private static List<String> shuffleList;
-    private static CountDownLatch countDownLatch;
+    private static ShufflerConfig shufflerConfig;
+    private ShufflerService shufflerService;
+    private MockConsumer<String, String> shufflerConsumer;
+    private MockProducer<String, Link> linkProducer;
+    private LinkFrontier frontier;
+    private DuplicateLinkFilter duplicateLinkFilter;
+    private CountDownLatch countDownLatch;
 
     @BeforeClass
     public static void init() {
         TestUtility.setMetricRegistry();
         kafkaConfig = KafkaConfig.load();
-        ShufflerConfig shufflerConfig = ShufflerConfig.load();
+        shufflerConfig = ShufflerConfig.load();
         shufflerConfig.setShuffleSize(0);
+        shufflerConfig.setDedupGenerationCapacity(1000);
+    }
 
+    @Before
+    public void beforeEachTest() {
         countDownLatch = new CountDownLatch(1);
-        shuffleList = new ArrayList<>();
+        frontier = new LinkFrontier(shufflerConfig);
+        DomainRankService domainRankService = mock(DomainRankService.class);
+        when(domainRankService.getRanks(anyCollection())).thenReturn(Collections.emptyMap());
         shufflerConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
         shufflerConsumer.subscribe(Collections.singletonList(kafkaConfig.getLinkTopic()));
-        linkProducer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        shufflerConsumer.rebalance(
+                Collections.singleton(new TopicPartition(kafkaConfig.getLinkTopic(), 0)));
+        shufflerConsumer.seek(new TopicPartition(kafkaConfig.getLinkTopic(), 0), 0);
+        linkProducer = new MockProducer<>(true, new StringSerializer(), new LinkSerializer());
+        duplicateLinkFilter = new DuplicateLinkFilter(shufflerConfig, null);
         shufflerService = new ShufflerService(kafkaConfig, shufflerConfig,
-                shufflerConsumer, linkProducer, shuffleList, countDownLatch);
+                shufflerConsumer, linkProducer, frontier, domainRankService,
+                duplicateLinkFilter, countDownLatch, 0);
     }
 
     @Test
     public void shufflerTest() throws InterruptedException {
-        shufflerConsumer.rebalance(
-                Collections.singleton(new TopicPartition(kafkaConfig.getLinkTopic(), 0)));
-        shufflerConsumer.seek(new TopicPartition(kafkaConfig.getLinkTopic(), 0), 0);
         List<String> crawledLinks = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            crawledLinks.add(String.valueOf(i));
+            crawledLinks.add("https://nimbo.in/" + i);
         }
         for (int i = 0; i < crawledLinks.size(); i++) {
             shufflerConsumer.addRecord(new ConsumerRecord<>(
                     kafkaConfig.getLinkTopic(), 0, i, "producer", crawledLinks.get(i)));
         }
+        List<String> pageLinks = Arrays.asList("https://github.com/a", "https://github.com/b");
+        shufflerConsumer.addRecord(new ConsumerRecord<>(
+                kafkaConfig.getLinkTopic(), 0, crawledLinks.size(), "producer", LinkUtility.joinLinks(pageLinks)));
+        crawledLinks.addAll(pageLinks);
+
+        runShuffler();
+        assertEquals(0, frontier.size());
+        List<String> sentLinks = getSentLinks();
+        assertEquals(crawledLinks.size(), sentLinks.size());
+        assertTrue(sentLinks.containsAll(crawledLinks));
+        assertEquals(0, countDownLatch.getCount());
+    }
+
+    @Test
+    public void bouncedLinkTest() throws InterruptedException {
+        duplicateLinkFilter.filter(Arrays.asList(new Link("https://nimbo.in/a", "nimbo.in", 1),
+                new Link("https://github.com/a", "github.com", 1)));
+        shufflerConsumer.addRecord(new ConsumerRecord<>(
+                kafkaConfig.getLinkTopic(), 0, 0, "producer", "https://nimbo.in/a"));
+        ConsumerRecord<String, String> bouncedRecord = new ConsumerRecord<>(
+                kafkaConfig.getLinkTopic(), 0, 1, "producer", "https://github.com/a");
+        bouncedRecord.headers().add(KafkaConfig.BOUNCED_LINK_HEADER, new byte[0]);
+        shufflerConsumer.addRecord(bouncedRecord);
+
+        runShuffler();
+        assertEquals(Collections.singletonList("https://github.com/a"), getSentLinks());
+    }
 
-        Thread producerServiceThread = new Thread(shufflerService);
-        producerServiceThread.start();
+    private void runShuffler() throws InterruptedException {
+        Thread shufflerServiceThread = new Thread(shufflerService);
+        shufflerServiceThread.start();
         new Thread(() -> {
             try {
                 TimeUnit.SECONDS.sleep(2);
                 shufflerService.close();
-                producerServiceThread.interrupt();
+                shufflerServiceThread.interrupt();
             } catch (InterruptedException e) {
                 // ignored
             }
         }).start();
-        producerServiceThread.join();
-        assertTrue(shuffleList.isEmpty());
-        for (ProducerRecord<String, String> record : linkProducer.history()) {
-            assertTrue(crawledLinks.contains(record.value()));
-        }
-        assertEquals(0, countDownLatch.getCount());
+        shufflerServiceThread.join();
+    }
+
+    private List<String> getSentLinks() {
+        return linkProducer.history().stream()
+                .map(ProducerRecord::value).map(Link::getUrl).collect(Collectors.toList());
     }
 }